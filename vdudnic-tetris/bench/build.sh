@@ -0,0 +1,50 @@
+#!/bin/sh
+#
+# Builds the benchmarks and runs them.
+#
+#   ./build.sh               builds, then runs every benchmark
+#   ./build.sh 'Board.*'     builds, then runs the benchmarks matching a regex
+#   ./build.sh -l            builds, then lists the benchmarks
+#
+# The JMH jars are downloaded from Maven Central into lib/ the first time; to
+# build offline, put them there by hand. Classes are compiled into classes/,
+# together with the game sources in ../src, which the benchmarks exercise.
+
+set -e
+cd "$(dirname "$0")"
+
+JMH_VERSION=1.37
+REPOSITORY=https://repo1.maven.org/maven2
+JARS="org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar
+org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar
+net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar
+org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+
+mkdir -p lib
+CLASSPATH=
+for jar in $JARS
+do
+  file="lib/$(basename "$jar")"
+  if [ ! -f "$file" ]
+  then
+    echo "downloading $file"
+    curl -fsSL -o "$file" "$REPOSITORY/$jar"
+  fi
+  CLASSPATH="$CLASSPATH:$file"
+done
+CLASSPATH="${CLASSPATH#:}"
+
+# the annotation processor writes the generated benchmarks and their list
+# into classes/ next to the compiled sources
+rm -rf classes
+mkdir classes
+javac -nowarn -cp "$CLASSPATH" -processor \
+  org.openjdk.jmh.generators.BenchmarkProcessor -d classes \
+  $(find ../src tetris -name '*.java')
+
+if [ "$1" = "-l" ]
+then
+  java -cp "classes:$CLASSPATH" org.openjdk.jmh.Main -l
+else
+  java -cp "classes:$CLASSPATH" tetris.bench.BenchmarkRunner "$@"
+fi
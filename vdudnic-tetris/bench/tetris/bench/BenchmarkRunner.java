@@ -0,0 +1,52 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler, so every result comes with
+ * its allocation rate in bytes per operation. Compile the bench folder together
+ * with src against jmh-core and jmh-generator-annprocess.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class BenchmarkRunner
+{
+  /**
+   * There are no benchmark runner objects.
+   */
+  private BenchmarkRunner()
+  {
+    // do nothing
+  }
+
+  /**
+   * @param the_args A regular expression selecting the benchmarks to run; all
+   *          of them if there is none.
+   * @throws RunnerException if a benchmark fails.
+   */
+  public static void main(final String[] the_args) throws RunnerException
+  {
+    String include = BenchmarkRunner.class.getPackage().getName() + ".*";
+    if (0 < the_args.length)
+    {
+      include = the_args[0];
+    }
+    final Options options =
+        new OptionsBuilder().include(include).addProfiler(GCProfiler.class).build();
+    new Runner(options).run();
+  }
+}
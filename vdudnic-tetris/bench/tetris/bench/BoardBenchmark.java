@@ -0,0 +1,109 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.entities.Board;
+
+/**
+ * Moves, rotations and collision tests on empty, mid-game and near-full
+ * boards. Each benchmark undoes its own move (left then right, clockwise then
+ * counterclockwise), so the board is the same at every invocation.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BoardBenchmark
+{
+  /**
+   * The fixture to start from.
+   */
+  @Param({Fixtures.EMPTY, Fixtures.MID_GAME, Fixtures.NEAR_FULL})
+  public String my_fill;
+
+  /**
+   * The board.
+   */
+  private Board my_board;
+
+  /**
+   * Builds the board.
+   */
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    my_board = Fixtures.board(my_fill);
+  }
+
+  /**
+   * @return the board, after moving its piece left and back right.
+   */
+  @Benchmark
+  public Board moveLeftRight()
+  {
+    my_board.moveLeft();
+    my_board.moveRight();
+    return my_board;
+  }
+
+  /**
+   * @return the board, after rotating its piece clockwise and back.
+   */
+  @Benchmark
+  public Board rotateBothWays()
+  {
+    my_board.rotateClockwise();
+    my_board.rotateCounterclockwise();
+    return my_board;
+  }
+
+  /**
+   * @return Does the current piece, moved down one row, collide?
+   */
+  @Benchmark
+  public boolean collidesBelow()
+  {
+    return my_board.collides(my_board.currentPiece().moveDown());
+  }
+
+  /**
+   * @return Is any row of the board full, including the current piece?
+   */
+  @Benchmark
+  public boolean anyRowFull()
+  {
+    boolean result = false;
+    for (int y = 0; y < my_board.height(); y++)
+    {
+      result |= my_board.isRowFull(y);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.entities.Board;
+
+/**
+ * Drops, which change the board for good. Every measured call gets a fresh
+ * fixture: each iteration is a batch of BATCH single calls over BATCH boards
+ * built before the iteration starts. Four-line clears, which have one fixture
+ * whatever the fill, are in LineClearBenchmark.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, batchSize = DropBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = DropBenchmark.BATCH)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DropBenchmark
+{
+  /**
+   * The number of calls, and fixtures, per iteration.
+   */
+  public static final int BATCH = 1000;
+
+  /**
+   * The fixture to start from.
+   */
+  @Param({Fixtures.EMPTY, Fixtures.MID_GAME, Fixtures.NEAR_FULL})
+  public String my_fill;
+
+  /**
+   * Boards for the drop benchmark, one per call.
+   */
+  private final Board[] my_boards = new Board[BATCH];
+
+  /**
+   * The index of the next board to use.
+   */
+  private int my_next;
+
+  /**
+   * Builds the boards for one iteration.
+   */
+  @Setup(Level.Iteration)
+  public void setUp()
+  {
+    for (int i = 0; i < BATCH; i++)
+    {
+      my_boards[i] = Fixtures.board(my_fill);
+    }
+    my_next = 0;
+  }
+
+  /**
+   * @return a board whose current piece has just been dropped.
+   */
+  @Benchmark
+  public Board drop()
+  {
+    final Board board = my_boards[my_next++ % BATCH];
+    board.drop();
+    return board;
+  }
+}
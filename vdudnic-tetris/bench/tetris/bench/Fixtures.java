@@ -0,0 +1,206 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tetris.entities.Board;
+import tetris.entities.Point;
+import tetris.entities.pieces.IPiece;
+import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+import tetris.sim.RandomPolicy;
+
+/**
+ * Seeded boards for the benchmarks. The same name and seed always produce the
+ * same board, so results are comparable between runs and between changes.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class Fixtures
+{
+  /**
+   * The height of every fixture board.
+   */
+  public static final int HEIGHT = 20;
+
+  /**
+   * The width of every fixture board.
+   */
+  public static final int WIDTH = 10;
+
+  /**
+   * The seed of every fixture board.
+   */
+  public static final long SEED = 305;
+
+  /**
+   * An empty board.
+   */
+  public static final String EMPTY = "EMPTY";
+
+  /**
+   * A board whose tallest column is half the board height.
+   */
+  public static final String MID_GAME = "MID_GAME";
+
+  /**
+   * A board whose tallest column is two rows below the top.
+   */
+  public static final String NEAR_FULL = "NEAR_FULL";
+
+  /**
+   * The number of rows a vertical I piece fills.
+   */
+  private static final int TETRIS = 4;
+
+  /**
+   * There are no fixture objects.
+   */
+  private Fixtures()
+  {
+    // do nothing
+  }
+
+  /**
+   * @param the_name EMPTY, MID_GAME or NEAR_FULL.
+   * @return a new board in the named state.
+   */
+  public static Board board(final String the_name)
+  {
+    final Board result;
+    if (EMPTY.equals(the_name))
+    {
+      result = new Board(HEIGHT, WIDTH, SEED);
+    }
+    else if (MID_GAME.equals(the_name))
+    {
+      result = stack(HEIGHT / 2);
+    }
+    else if (NEAR_FULL.equals(the_name))
+    {
+      result = stack(HEIGHT - 2);
+    }
+    else
+    {
+      throw new IllegalArgumentException("no such fixture: " + the_name);
+    }
+    return result;
+  }
+
+  /**
+   * @param the_height The height of the tallest column.
+   * @return a new board, played with random inputs from a fixed seed, whose
+   *         tallest column is at least the_height.
+   */
+  public static Board stack(final int the_height)
+  {
+    final RandomPolicy policy = new RandomPolicy();
+    Board result = null;
+    for (long seed = SEED; result == null; seed++)
+    {
+      final Board board = new Board(HEIGHT, WIDTH, seed);
+      final Random random = new Random(seed);
+      while (!board.isFull() && maxHeight(board) < the_height)
+      {
+        policy.playPiece(board, random);
+        board.drop();
+      }
+      if (!board.isFull())
+      {
+        result = board;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return a new board with the bottom four rows filled except for the last
+   *         column, whose current piece is an I piece that clears all four when
+   *         it is dropped upright.
+   */
+  public static Board tetrisReady()
+  {
+    final List<Piece> sequence = new ArrayList<Piece>();
+    final int pieces = 2 * TETRIS + 2;
+    for (int i = 0; i < pieces; i++)
+    {
+      sequence.add(new IPiece().setOrigin(new Point(WIDTH / 2, HEIGHT)));
+    }
+    final Board result = new Board(HEIGHT, WIDTH, sequence);
+    for (int row = 0; row < TETRIS; row++)
+    {
+      place(result, 0, 0);
+      place(result, 0, TETRIS);
+    }
+    // upright I pieces have their blocks at x offset 2
+    place(result, 1, WIDTH - 2 - 2);
+    result.rotateClockwise();
+    moveTo(result, WIDTH - 1 - 2);
+    return result;
+  }
+
+  /**
+   * Rotates the current piece of the_board clockwise the_turns times, moves
+   * its origin to column the_x and drops it.
+   *
+   * @param the_board The board.
+   * @param the_turns The number of clockwise turns.
+   * @param the_x The column of the origin.
+   */
+  public static void place(final Board the_board, final int the_turns, final int the_x)
+  {
+    for (int i = 0; i < the_turns; i++)
+    {
+      the_board.rotateClockwise();
+    }
+    moveTo(the_board, the_x);
+    the_board.drop();
+  }
+
+  /**
+   * Moves the origin of the current piece of the_board towards column the_x
+   * until it gets there or is blocked.
+   *
+   * @param the_board The board.
+   * @param the_x The column of the origin.
+   */
+  private static void moveTo(final Board the_board, final int the_x)
+  {
+    boolean moved = true;
+    while (moved && PieceStates.x(the_board.currentState()) < the_x)
+    {
+      the_board.moveRight();
+      moved = the_board.changed();
+    }
+    while (moved && the_x < PieceStates.x(the_board.currentState()))
+    {
+      the_board.moveLeft();
+      moved = the_board.changed();
+    }
+  }
+
+  /**
+   * @param the_board The board.
+   * @return What is the height of the tallest column of the_board?
+   */
+  private static int maxHeight(final Board the_board)
+  {
+    int result = 0;
+    for (int x = 0; x < the_board.width(); x++)
+    {
+      result = Math.max(result, the_board.columnHeight(x));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.entities.Point;
+import tetris.entities.piecegen.RandomGenerator;
+import tetris.entities.piecegen.SequenceGenerator;
+import tetris.entities.pieces.IPiece;
+import tetris.entities.pieces.OPiece;
+import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.TPiece;
+
+/**
+ * Piece generator throughput.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GeneratorBenchmark
+{
+  /**
+   * The random generator.
+   */
+  private RandomGenerator my_random;
+
+  /**
+   * The sequence generator.
+   */
+  private SequenceGenerator my_sequence;
+
+  /**
+   * Builds the generators.
+   */
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    my_random =
+        new RandomGenerator(Fixtures.SEED, new Point(Fixtures.WIDTH / 2, Fixtures.HEIGHT));
+    final List<Piece> pieces = new ArrayList<Piece>();
+    pieces.add(new IPiece());
+    pieces.add(new OPiece());
+    pieces.add(new TPiece());
+    my_sequence = new SequenceGenerator(pieces);
+  }
+
+  /**
+   * @return the next random piece.
+   */
+  @Benchmark
+  public Piece randomNext()
+  {
+    return my_random.next();
+  }
+
+  /**
+   * @return the next piece of the sequence.
+   */
+  @Benchmark
+  public Piece sequenceNext()
+  {
+    return my_sequence.next();
+  }
+}
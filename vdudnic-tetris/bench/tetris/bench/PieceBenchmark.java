@@ -0,0 +1,126 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tetris.entities.Point;
+import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+import tetris.entities.pieces.TPiece;
+
+/**
+ * Piece moves through the Piece objects and through packed states.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PieceBenchmark
+{
+  /**
+   * The piece.
+   */
+  private Piece my_piece;
+
+  /**
+   * The packed state of the piece.
+   */
+  private int my_state;
+
+  /**
+   * Builds the piece.
+   */
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    my_piece = new TPiece().setOrigin(new Point(Fixtures.WIDTH / 2, Fixtures.HEIGHT));
+    my_state = my_piece.state();
+  }
+
+  /**
+   * @return the piece rotated clockwise.
+   */
+  @Benchmark
+  public Piece rotateClockwise()
+  {
+    return my_piece.rotateClockwise();
+  }
+
+  /**
+   * @return the piece moved down.
+   */
+  @Benchmark
+  public Piece moveDown()
+  {
+    return my_piece.moveDown();
+  }
+
+  /**
+   * @param the_hole Consumes the block positions.
+   */
+  @Benchmark
+  public void absolutePositions(final Blackhole the_hole)
+  {
+    for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
+    {
+      the_hole.consume(my_piece.absolutePosition(i));
+    }
+  }
+
+  /**
+   * @return the state rotated clockwise.
+   */
+  @Benchmark
+  public int stateRotateClockwise()
+  {
+    return PieceStates.rotateClockwise(my_state);
+  }
+
+  /**
+   * @return the state moved down.
+   */
+  @Benchmark
+  public int stateMoveDown()
+  {
+    return PieceStates.moveDown(my_state);
+  }
+
+  /**
+   * @param the_hole Consumes the block coordinates.
+   */
+  @Benchmark
+  public void stateBlockPositions(final Blackhole the_hole)
+  {
+    for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
+    {
+      the_hole.consume(PieceStates.blockX(my_state, i));
+      the_hole.consume(PieceStates.blockY(my_state, i));
+    }
+  }
+}
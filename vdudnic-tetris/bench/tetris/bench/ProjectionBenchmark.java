@@ -0,0 +1,115 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.entities.Board;
+import tetris.entities.pieces.Piece;
+
+/**
+ * The projection of the current piece over stacks of different heights. The
+ * board caches its projection, so the uncached benchmarks move the piece first
+ * to make it compute the projection again.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ProjectionBenchmark
+{
+  /**
+   * The height of the tallest column of the stack.
+   */
+  @Param({"0", "5", "10", "15", "18"})
+  public int my_stack_height;
+
+  /**
+   * The board.
+   */
+  private Board my_board;
+
+  /**
+   * A flag alternating between moving the piece left and right.
+   */
+  private boolean my_left;
+
+  /**
+   * Builds the board.
+   */
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    my_board = Fixtures.stack(my_stack_height);
+  }
+
+  /**
+   * @return the projection, computed again after a move.
+   */
+  @Benchmark
+  public int projectionStateAfterMove()
+  {
+    move();
+    return my_board.projectionState();
+  }
+
+  /**
+   * @return the projection piece, computed again after a move.
+   */
+  @Benchmark
+  public Piece projectionAfterMove()
+  {
+    move();
+    return my_board.projection();
+  }
+
+  /**
+   * @return the cached projection piece.
+   */
+  @Benchmark
+  public Piece projectionCached()
+  {
+    return my_board.projection();
+  }
+
+  /**
+   * Moves the piece one column, alternating direction so it stays in place.
+   */
+  private void move()
+  {
+    if (my_left)
+    {
+      my_board.moveLeft();
+    }
+    else
+    {
+      my_board.moveRight();
+    }
+    my_left = !my_left;
+  }
+}
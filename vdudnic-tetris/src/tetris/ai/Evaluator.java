@@ -0,0 +1,29 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+/**
+ * Scores the grid left by a placement; the search picks the placement with
+ * the highest score. Searches run on many threads at once, so an evaluator
+ * must be thread safe.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface Evaluator
+{
+  /**
+   * @param the_grid The grid after the placement and any cleared rows. It is
+   *          scratch space of the search and must not be kept.
+   * @param the_lines The number of rows the placement cleared.
+   * @return How good is the_grid? Higher is better.
+   */
+  double evaluate(/*@ non_null @*/ Grid the_grid, int the_lines);
+}
@@ -0,0 +1,717 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.pieces.PieceStates;
+import tetris.sim.InputPolicy;
+import tetris.sim.Simulator;
+
+/**
+ * A player that looks past the next piece by expectimax over the pieces still
+ * in the bag. After the current and next pieces, whose placements are tried
+ * as by SearchPlayer, each further piece is a chance node whose value is the
+ * average, over the types the 7-bag can still deal, of the best placement of
+ * a piece of that type. Drawing a type takes it out of the bag, and an empty
+ * bag is refilled, so a search sees only the sequences that can happen.
+ *
+ * <p>Beyond the current piece only the best few placements of each piece by
+ * the evaluator, the beam, are searched further. The search deepens one piece
+ * at a time until it reaches the depth limit or the move's time budget runs
+ * out, and plays the best placement of the deepest search that finished, so
+ * a player on more cores searches deeper in the same time. The subtrees of
+ * the placements of the current piece are searched in parallel on a fork/join
+ * pool.
+ *
+ * <p>A player keeps no state between moves other than statistics, so one
+ * instance can play any number of games at once.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class ExpectimaxPlayer implements InputPolicy
+{
+  /**
+   * The default time budget of a move, in nanoseconds.
+   */
+  public static final long DEFAULT_BUDGET = 10000000L;
+
+  /**
+   * The default number of pieces after the next piece searched at most.
+   */
+  public static final int DEFAULT_DEPTH = 3;
+
+  /**
+   * The default number of placements of each piece after the current one
+   * searched further.
+   */
+  public static final int DEFAULT_BEAM = 4;
+
+  /**
+   * The score of a placement that ends the game.
+   */
+  private static final double LOSS = -Double.MAX_VALUE;
+
+  /**
+   * The number of games played by main().
+   */
+  private static final int GAMES = 4;
+
+  /**
+   * The piece limit per game played by main().
+   */
+  private static final int MAX_PIECES = 200;
+
+  /**
+   * The number of nanoseconds in a microsecond.
+   */
+  private static final double NANOS_PER_MICRO = 1e3;
+
+  /**
+   * The scratch space of each thread.
+   */
+  private static final ThreadLocal<Workspace> WORKSPACES = new ThreadLocal<Workspace>();
+
+  /**
+   * Scores the grids.
+   */
+  private final/* @ non_null @ */Evaluator my_evaluator;
+
+  /**
+   * The number of pieces after the next piece searched at most.
+   */
+  private final int my_depth;
+
+  /**
+   * The number of placements of each piece after the current one searched
+   * further.
+   */
+  private final int my_beam;
+
+  /**
+   * The time budget of a move, in nanoseconds.
+   */
+  private final long my_budget;
+
+  /**
+   * The pool the subtrees are searched on, or null to search them on the
+   * calling thread.
+   */
+  private final/* @ nullable @ */ForkJoinPool my_pool;
+
+  /**
+   * The number of moves chosen.
+   */
+  private final AtomicLong my_moves = new AtomicLong();
+
+  /**
+   * The sum of the depths of the searches the moves were chosen by.
+   */
+  private final AtomicLong my_depths = new AtomicLong();
+
+  /**
+   * Constructs a new player with the default depth, beam and budget that
+   * searches on the common pool.
+   *
+   * @param the_evaluator The evaluator.
+   */
+  public ExpectimaxPlayer(final/* @ non_null @ */Evaluator the_evaluator)
+  {
+    this(the_evaluator, DEFAULT_DEPTH, DEFAULT_BEAM, DEFAULT_BUDGET,
+         ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new player.
+   *
+   * @param the_evaluator The evaluator.
+   * @param the_depth The number of pieces after the next piece to search at
+   *          most.
+   * @param the_beam The number of placements of each piece after the current
+   *          one to search further.
+   * @param the_budget The time budget of a move, in nanoseconds.
+   * @param the_pool The pool to search on, or null to search on the calling
+   *          thread, which is best when many games are played at once.
+   * @throws IllegalArgumentException if the_depth is negative or the_beam is
+   *           not positive.
+   */
+  public ExpectimaxPlayer(final/* @ non_null @ */Evaluator the_evaluator,
+                          final int the_depth, final int the_beam, final long the_budget,
+                          final/* @ nullable @ */ForkJoinPool the_pool)
+  {
+    if (the_depth < 0 || the_beam < 1)
+    {
+      throw new IllegalArgumentException("bad depth or beam: " + the_depth + ", " +
+                                         the_beam);
+    }
+    my_evaluator = the_evaluator;
+    my_depth = the_depth;
+    my_beam = the_beam;
+    my_budget = the_budget;
+    my_pool = the_pool;
+  }
+
+  /**
+   * Moves the current piece of the_board to the best placement and freezes it
+   * there.
+   *
+   * @param the_board The board.
+   * @param the_random Unused; the player is deterministic given enough time.
+   */
+  public void playPiece(final Board the_board, final Random the_random)
+  {
+    final int target = choose(the_board);
+    if (0 <= target)
+    {
+      // choose() left the search of the current piece in this thread's
+      // workspace
+      final Workspace workspace = workspace(the_board);
+      final int length = workspace.my_root_finder.path(target, workspace.my_path);
+      for (int i = 0; i < length; i++)
+      {
+        Command.apply(the_board, workspace.my_path[i]);
+      }
+    }
+  }
+
+  /**
+   * @param the_board The board.
+   * @return the state at rest of the best placement of the current piece of
+   *         the_board, or -1 if it has none.
+   */
+  public int choose(final/* @ non_null @ */Board the_board)
+  {
+    final long deadline = System.nanoTime() + my_budget;
+    final Workspace workspace = workspace(the_board);
+    workspace.my_root.load(the_board);
+    final PlacementFinder finder = workspace.my_root_finder;
+    final int count = finder.find(workspace.my_root, the_board.currentState());
+    final double[] values = workspace.my_root_values;
+    final int next = the_board.nextPiece().state();
+    final int upcoming = the_board.upcomingTypes();
+    int result = -1;
+    int reached = -1;
+    boolean finished = true;
+    // the search without chance nodes always finishes, so there is a result
+    // whatever the budget
+    for (int depth = 0; finished && depth <= my_depth &&
+                        (depth == 0 || System.nanoTime() < deadline); depth++)
+    {
+      final Search search =
+          new Search(workspace.my_root, finder, next, upcoming, depth, deadline);
+      final SearchTask task = new SearchTask(search, values, 0, count);
+      if (my_pool == null)
+      {
+        task.compute();
+      }
+      else
+      {
+        my_pool.invoke(task);
+      }
+      finished = !search.my_expired;
+      if (finished)
+      {
+        result = best(finder, values, count);
+        reached = depth;
+      }
+    }
+    my_moves.incrementAndGet();
+    my_depths.addAndGet(reached);
+    return result;
+  }
+
+  /**
+   * @return What is the average depth of the searches the moves so far were
+   *         chosen by?
+   */
+  public double averageDepth()
+  {
+    return (double) my_depths.get() / Math.max(1, my_moves.get());
+  }
+
+  /**
+   * Plays games with a sequential searcher on all processors and prints the
+   * totals and the average depth searched, then plays one game with a
+   * parallel searcher and prints the average time per move and the average
+   * depth searched.
+   *
+   * @param the_args Ignored.
+   */
+  public static void main(final String[] the_args)
+  {
+    System.setProperty("java.awt.headless", "true");
+    final ExpectimaxPlayer sequential =
+        new ExpectimaxPlayer(LinearEvaluator.DEFAULT, DEFAULT_DEPTH, DEFAULT_BEAM,
+                             DEFAULT_BUDGET, null);
+    final Simulator simulator =
+        new Simulator(Simulator.DEFAULT_HEIGHT, Simulator.DEFAULT_WIDTH, sequential);
+    System.out.println(simulator.run(0, GAMES, MAX_PIECES));
+    System.out.printf("average depth %.2f%n", sequential.averageDepth());
+
+    final ExpectimaxPlayer player = new ExpectimaxPlayer(LinearEvaluator.DEFAULT);
+    final Board board = new Board(Simulator.DEFAULT_HEIGHT, Simulator.DEFAULT_WIDTH, 0);
+    final Random random = new Random(0);
+    long total = 0;
+    int moves = 0;
+    while (!board.isFull() && moves < MAX_PIECES)
+    {
+      final long start = System.nanoTime();
+      player.playPiece(board, random);
+      total = total + System.nanoTime() - start;
+      moves = moves + 1;
+    }
+    System.out.printf("%d moves, %.1f us/move, average depth %.2f%n", moves,
+                      total / NANOS_PER_MICRO / moves, player.averageDepth());
+  }
+
+  /**
+   * @param the_finder The finder holding the placements of the current piece.
+   * @param the_values The values of the placements.
+   * @param the_count The number of placements.
+   * @return the state of the placement with the highest value, or -1 if there
+   *         are none.
+   */
+  private static int best(final PlacementFinder the_finder, final double[] the_values,
+                          final int the_count)
+  {
+    int result = -1;
+    double best = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < the_count; i++)
+    {
+      if (best < the_values[i])
+      {
+        best = the_values[i];
+        result = the_finder.placement(i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param the_search The search.
+   * @param the_candidate The state at rest of a placement of the current
+   *          piece.
+   * @param the_workspace The workspace of the calling thread.
+   * @return the value of the placement.
+   */
+  private double value(final Search the_search, final int the_candidate,
+                       final Workspace the_workspace)
+  {
+    final Grid after = the_workspace.my_grids[0];
+    after.copyFrom(the_search.my_root);
+    final int lines = after.place(the_candidate);
+    double result = LOSS;
+    if (!after.overflows())
+    {
+      result =
+          best(the_search, the_workspace, 1, after, the_search.my_next, the_search.my_upcoming,
+               the_search.my_depth, lines);
+    }
+    return result;
+  }
+
+  /**
+   * @param the_search The search.
+   * @param the_workspace The workspace of the calling thread.
+   * @param the_ply The number of pieces placed before this one.
+   * @param the_grid The grid before this piece is placed.
+   * @param the_spawn The state of this piece where it appears.
+   * @param the_bag The type mask of the bag after this piece is dealt.
+   * @param the_depth The number of pieces still to search after this one.
+   * @param the_lines The number of rows removed before this piece.
+   * @return the value of the best placement of this piece, LOSS if every one
+   *         ends the game.
+   */
+  private double best(final Search the_search, final Workspace the_workspace,
+                      final int the_ply, final Grid the_grid, final int the_spawn,
+                      final int the_bag, final int the_depth, final int the_lines)
+  {
+    final PlacementFinder finder = the_workspace.my_finders[the_ply];
+    final Grid after = the_workspace.my_grids[the_ply];
+    final int count = finder.find(the_grid, the_spawn);
+    double result = LOSS;
+    if (the_depth == 0)
+    {
+      for (int i = 0; i < count; i++)
+      {
+        after.copyFrom(the_grid);
+        final int more = after.place(finder.placement(i));
+        if (!after.overflows())
+        {
+          result = Math.max(result, my_evaluator.evaluate(after, the_lines + more));
+        }
+      }
+    }
+    else if (System.nanoTime() < the_search.my_deadline)
+    {
+      final double[] scores = the_workspace.my_scores[the_ply];
+      for (int i = 0; i < count; i++)
+      {
+        after.copyFrom(the_grid);
+        final int more = after.place(finder.placement(i));
+        scores[i] = LOSS;
+        if (!after.overflows())
+        {
+          scores[i] = my_evaluator.evaluate(after, the_lines + more);
+        }
+      }
+      final int[] beam = the_workspace.my_beams[the_ply];
+      final int width = select(scores, count, beam, my_beam);
+      for (int i = 0; i < width; i++)
+      {
+        after.copyFrom(the_grid);
+        final int more = after.place(finder.placement(beam[i]));
+        result =
+            Math.max(result, expected(the_search, the_workspace, the_ply + 1, after, the_bag,
+                                      the_depth, the_lines + more));
+      }
+    }
+    else
+    {
+      the_search.my_expired = true;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_search The search.
+   * @param the_workspace The workspace of the calling thread.
+   * @param the_ply The number of pieces placed before the next one.
+   * @param the_grid The grid before the next piece is placed.
+   * @param the_bag The type mask of the bag the next piece is dealt from.
+   * @param the_depth The number of pieces still to search, the next one
+   *          included.
+   * @param the_lines The number of rows removed before the next piece.
+   * @return the average, over the types the next piece can have, of the value
+   *         of its best placement.
+   */
+  private double expected(final Search the_search, final Workspace the_workspace,
+                          final int the_ply, final Grid the_grid, final int the_bag,
+                          final int the_depth, final int the_lines)
+  {
+    final double share = 1.0 / Integer.bitCount(the_bag);
+    double result = 0;
+    int types = the_bag;
+    while (types != 0)
+    {
+      final int type = Integer.numberOfTrailingZeros(types);
+      int rest = the_bag & ~(1 << type);
+      if (rest == 0)
+      {
+        rest = PieceStates.ALL_TYPES;
+      }
+      // LOSS is scaled down before it is summed so the sum cannot overflow
+      result =
+          result + share * best(the_search, the_workspace, the_ply, the_grid,
+                                the_search.spawn(type), rest, the_depth - 1, the_lines);
+      types = types & types - 1;
+    }
+    return result;
+  }
+
+  /**
+   * Writes the indices of the highest scores, best first, skipping LOSS.
+   *
+   * @param the_scores The scores.
+   * @param the_count The number of scores.
+   * @param the_out Receives the indices.
+   * @param the_width The most indices to write.
+   * @return the number of indices written.
+   */
+  private static int select(final double[] the_scores, final int the_count,
+                            final int[] the_out, final int the_width)
+  {
+    int result = 0;
+    for (int i = 0; i < the_count; i++)
+    {
+      final double score = the_scores[i];
+      if (score != LOSS &&
+          (result < the_width || the_scores[the_out[the_width - 1]] < score))
+      {
+        int j = Math.min(result, the_width - 1);
+        while (0 < j && the_scores[the_out[j - 1]] < score)
+        {
+          the_out[j] = the_out[j - 1];
+          j = j - 1;
+        }
+        the_out[j] = i;
+        result = Math.min(result + 1, the_width);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param the_board A board.
+   * @return the workspace of the calling thread for boards the size of
+   *         the_board.
+   */
+  private Workspace workspace(final Board the_board)
+  {
+    Workspace result = WORKSPACES.get();
+    if (result == null || result.my_root.width() != the_board.width() ||
+        result.my_root.height() != the_board.height() || result.my_grids.length < plies())
+    {
+      result = new Workspace(new Grid(the_board), plies());
+      WORKSPACES.set(result);
+    }
+    return result;
+  }
+
+  /**
+   * @param the_grid A grid.
+   * @return the workspace of the calling thread for grids the size of
+   *         the_grid.
+   */
+  private Workspace workspace(final Grid the_grid)
+  {
+    Workspace result = WORKSPACES.get();
+    if (result == null || result.my_root.width() != the_grid.width() ||
+        result.my_root.height() != the_grid.height() ||
+        result.my_root.rowCount() != the_grid.rowCount() || result.my_grids.length < plies())
+    {
+      result = new Workspace(new Grid(the_grid.width(), the_grid.height(),
+                                      the_grid.rowCount()), plies());
+      WORKSPACES.set(result);
+    }
+    return result;
+  }
+
+  /**
+   * @return How many pieces does the deepest search place?
+   */
+  private int plies()
+  {
+    // the current piece, the next piece and my_depth more
+    return my_depth + 2;
+  }
+
+  /**
+   * One iteration of the search of a move: its root, its depth and whether it
+   * ran out of time.
+   */
+  private static final class Search
+  {
+    /**
+     * The grid before the current piece is placed.
+     */
+    private final Grid my_root;
+
+    /**
+     * The finder holding the placements of the current piece.
+     */
+    private final PlacementFinder my_candidates;
+
+    /**
+     * The state of the next piece where it appears.
+     */
+    private final int my_next;
+
+    /**
+     * The type mask of the bag the piece after the next is dealt from.
+     */
+    private final int my_upcoming;
+
+    /**
+     * The number of pieces after the next piece searched.
+     */
+    private final int my_depth;
+
+    /**
+     * The System.nanoTime() at which the search is abandoned.
+     */
+    private final long my_deadline;
+
+    /**
+     * Was the search abandoned?
+     */
+    private volatile boolean my_expired;
+
+    /**
+     * Constructs a new search.
+     *
+     * @param the_root The grid before the current piece is placed.
+     * @param the_candidates The finder holding the placements of the current
+     *          piece.
+     * @param the_next The state of the next piece where it appears.
+     * @param the_upcoming The type mask of the bag the piece after the next
+     *          is dealt from.
+     * @param the_depth The number of pieces after the next piece to search.
+     * @param the_deadline The System.nanoTime() at which to abandon the
+     *          search.
+     */
+    Search(final Grid the_root, final PlacementFinder the_candidates, final int the_next,
+           final int the_upcoming, final int the_depth, final long the_deadline)
+    {
+      my_root = the_root;
+      my_candidates = the_candidates;
+      my_next = the_next;
+      my_upcoming = the_upcoming;
+      my_depth = the_depth;
+      my_deadline = the_deadline;
+    }
+
+    /**
+     * @param the_type A piece type.
+     * @return the state in which a piece of the_type appears.
+     */
+    int spawn(final int the_type)
+    {
+      return PieceStates.state(the_type, 0, my_root.width() / 2, my_root.height());
+    }
+  }
+
+  /**
+   * Finds the values of a range of the placements of the current piece,
+   * splitting the range down to single placements, each of which is a whole
+   * subtree.
+   */
+  @SuppressWarnings("serial")
+  private class SearchTask extends RecursiveAction
+  {
+    /**
+     * The search.
+     */
+    private final Search my_search;
+
+    /**
+     * The values, by placement.
+     */
+    private final double[] my_values;
+
+    /**
+     * The first placement of the range.
+     */
+    private final int my_low;
+
+    /**
+     * The placement after the last of the range.
+     */
+    private final int my_high;
+
+    /**
+     * Constructs a new task.
+     *
+     * @param the_search The search.
+     * @param the_values The values, by placement.
+     * @param the_low The first placement of the range.
+     * @param the_high The placement after the last of the range.
+     */
+    SearchTask(final Search the_search, final double[] the_values, final int the_low,
+               final int the_high)
+    {
+      super();
+      my_search = the_search;
+      my_values = the_values;
+      my_low = the_low;
+      my_high = the_high;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void compute()
+    {
+      if (my_high - my_low <= 1 || my_pool == null)
+      {
+        final Workspace workspace = workspace(my_search.my_root);
+        for (int i = my_low; i < my_high && !my_search.my_expired; i++)
+        {
+          my_values[i] = value(my_search, my_search.my_candidates.placement(i), workspace);
+        }
+      }
+      else
+      {
+        final int middle = (my_low + my_high) >>> 1;
+        invokeAll(new SearchTask(my_search, my_values, my_low, middle),
+                  new SearchTask(my_search, my_values, middle, my_high));
+      }
+    }
+  }
+
+  /**
+   * The scratch space one thread needs to search boards of one size. The root
+   * fields serve choose() and the others, one of each per ply, serve the
+   * subtrees, so a thread can search subtrees while its own choose() waits.
+   */
+  private static final class Workspace
+  {
+    /**
+     * The grid of the board being searched.
+     */
+    private final Grid my_root;
+
+    /**
+     * The placements of the current piece.
+     */
+    private final PlacementFinder my_root_finder;
+
+    /**
+     * The values of the placements of the current piece.
+     */
+    private final double[] my_root_values;
+
+    /**
+     * The path to the chosen placement.
+     */
+    private final int[] my_path;
+
+    /**
+     * The grid after the piece of each ply is placed.
+     */
+    private final Grid[] my_grids;
+
+    /**
+     * The placements of the piece of each ply.
+     */
+    private final PlacementFinder[] my_finders;
+
+    /**
+     * The scores of the placements of the piece of each ply.
+     */
+    private final double[][] my_scores;
+
+    /**
+     * The beam of the piece of each ply.
+     */
+    private final int[][] my_beams;
+
+    /**
+     * Constructs a new workspace for grids the size of the_root.
+     *
+     * @param the_root An empty grid, which becomes the root grid.
+     * @param the_plies The number of pieces placed by the deepest search.
+     */
+    Workspace(final Grid the_root, final int the_plies)
+    {
+      my_root = the_root;
+      my_root_finder = new PlacementFinder(the_root);
+      my_root_values = new double[my_root_finder.maxCount()];
+      my_path = new int[my_root_finder.maxPathLength()];
+      my_grids = new Grid[the_plies];
+      my_finders = new PlacementFinder[the_plies];
+      my_scores = new double[the_plies][];
+      my_beams = new int[the_plies][];
+      for (int i = 0; i < the_plies; i++)
+      {
+        my_grids[i] = new Grid(the_root.width(), the_root.height(), the_root.rowCount());
+        my_finders[i] = new PlacementFinder(the_root);
+        my_scores[i] = new double[my_finders[i].maxCount()];
+        my_beams[i] = new int[my_finders[i].maxCount()];
+      }
+    }
+  }
+}
@@ -0,0 +1,443 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import tetris.entities.Board;
+import tetris.entities.Zobrist;
+import tetris.entities.pieces.PieceStates;
+
+/**
+ * A scratch copy of the frozen blocks of a board, one int mask per row, for
+ * trying out placements. Placing a piece and measuring the result touch only
+ * the int arrays, so a search can try thousands of placements per millisecond
+ * without allocating; a grid is reused by loading or copying into it. A grid
+ * keeps the same Zobrist hash of its blocks as a Board, so the positions a
+ * search reaches can be looked up in a TranspositionTable.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class Grid
+{
+  /**
+   * The widest grid there can be.
+   */
+  public static final int MAX_WIDTH = Integer.SIZE;
+
+  /**
+   * The width.
+   */
+  private final int my_width;
+
+  /**
+   * The height of the visible part; blocks above it end the game.
+   */
+  private final int my_height;
+
+  /**
+   * The mask of a full row.
+   */
+  private final int my_full_row;
+
+  /**
+   * The rows, bottom first; bit x is set if column x is occupied.
+   */
+  private final int[] my_rows;
+
+  /**
+   * The Zobrist hash of the blocks.
+   */
+  private long my_hash;
+
+  /**
+   * The column heights, valid when my_columns_valid is set.
+   */
+  private final int[] my_heights;
+
+  /**
+   * The number of empty cells below the column tops, valid when
+   * my_columns_valid is set.
+   */
+  private int my_holes;
+
+  /**
+   * Are my_heights and my_holes up to date?
+   */
+  private boolean my_columns_valid;
+
+  /**
+   * Constructs a new empty grid the size of the_board.
+   *
+   * @param the_board The board.
+   * @throws IllegalArgumentException if the_board is wider than MAX_WIDTH.
+   */
+  public Grid(final/* @ non_null @ */Board the_board)
+  {
+    this(the_board.width(), the_board.height(), the_board.height() + Board.ROWS_ABOVE_BOARD);
+  }
+
+  /**
+   * Constructs a new empty grid.
+   *
+   * @param the_width The width.
+   * @param the_height The height of the visible part.
+   * @param the_row_count The number of rows, including those above the
+   *          visible part.
+   * @throws IllegalArgumentException if the_width is not between 1 and
+   *           MAX_WIDTH.
+   */
+  public Grid(final int the_width, final int the_height, final int the_row_count)
+  {
+    if (the_width < 1 || MAX_WIDTH < the_width)
+    {
+      throw new IllegalArgumentException("width must be between 1 and " + MAX_WIDTH);
+    }
+    my_width = the_width;
+    my_height = the_height;
+    my_full_row = (int) ((1L << the_width) - 1);
+    my_rows = new int[the_row_count];
+    my_heights = new int[the_width];
+    my_columns_valid = true;
+  }
+
+  /**
+   * Makes this grid a copy of the frozen blocks of the_board, which must be
+   * the same size. The column heights and hole count are taken from the
+   * board, which keeps them up to date, so they need no pass over the rows.
+   *
+   * @param the_board The board.
+   */
+  public void load(final/* @ non_null @ */Board the_board)
+  {
+    for (int y = 0; y < my_rows.length; y++)
+    {
+      my_rows[y] = the_board.rowMask(y);
+    }
+    for (int x = 0; x < my_width; x++)
+    {
+      my_heights[x] = the_board.columnHeight(x);
+    }
+    my_holes = the_board.holeCount();
+    my_hash = the_board.hash();
+    my_columns_valid = true;
+  }
+
+  /**
+   * Makes this grid a copy of the_other, which must be the same size.
+   *
+   * @param the_other The other grid.
+   */
+  public void copyFrom(final/* @ non_null @ */Grid the_other)
+  {
+    System.arraycopy(the_other.my_rows, 0, my_rows, 0, my_rows.length);
+    my_hash = the_other.my_hash;
+    my_columns_valid = false;
+  }
+
+  /**
+   * @return What is the width?
+   */
+  public int width()
+  {
+    return my_width;
+  }
+
+  /**
+   * @return What is the height of the visible part?
+   */
+  public int height()
+  {
+    return my_height;
+  }
+
+  /**
+   * @return How many rows are there, including those above the visible part?
+   */
+  public int rowCount()
+  {
+    return my_rows.length;
+  }
+
+  /**
+   * @param the_y The row position.
+   * @return What is the mask of the row at position the_y?
+   */
+  public int rowMask(final int the_y)
+  {
+    return my_rows[the_y];
+  }
+
+  /**
+   * @return What is the Zobrist hash of the blocks?
+   * @see Zobrist
+   */
+  public long hash()
+  {
+    return my_hash;
+  }
+
+  /**
+   * @param the_state A piece state.
+   * @return Would a piece in the_state overlap a block or stick out of the
+   *         grid?
+   */
+  public boolean collides(final int the_state)
+  {
+    final int shape = PieceStates.shape(the_state);
+    final int x = PieceStates.x(the_state);
+    final int y = PieceStates.y(the_state);
+    boolean result =
+        x + PieceStates.minX(shape) < 0 || my_width <= x + PieceStates.maxX(shape) ||
+            y + PieceStates.minY(shape) < 0 || my_rows.length <= y + PieceStates.maxY(shape);
+    for (int dy = PieceStates.minY(shape); !result && dy <= PieceStates.maxY(shape); dy++)
+    {
+      result = (my_rows[y + dy] & shift(PieceStates.rowMask(shape, dy), x)) != 0;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_state A piece state that does not collide.
+   * @return the state the piece comes to rest in when dropped from the_state.
+   */
+  public int drop(final int the_state)
+  {
+    updateColumns();
+    final int shape = PieceStates.shape(the_state);
+    final int x = PieceStates.x(the_state);
+    int landing = -PieceStates.minY(shape);
+    for (int dx = PieceStates.minX(shape); dx <= PieceStates.maxX(shape); dx++)
+    {
+      landing = Math.max(landing, my_heights[x + dx] - PieceStates.bottom(shape, dx));
+    }
+    int result = the_state;
+    if (landing <= PieceStates.y(the_state))
+    {
+      // the piece is above the top of every column it covers, so it lands on
+      // the highest of them
+      result = PieceStates.moveToRow(the_state, landing);
+    }
+    else
+    {
+      int below = PieceStates.moveDown(result);
+      while (!collides(below))
+      {
+        result = below;
+        below = PieceStates.moveDown(result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Freezes a piece in the_state, which must not collide, into the grid and
+   * removes the rows it fills.
+   *
+   * @param the_state The piece state.
+   * @return the number of rows removed.
+   */
+  public int place(final int the_state)
+  {
+    final int shape = PieceStates.shape(the_state);
+    final int x = PieceStates.x(the_state);
+    final int y = PieceStates.y(the_state);
+    final int low = y + PieceStates.minY(shape);
+    final int high = y + PieceStates.maxY(shape);
+    int result = 0;
+    for (int dy = PieceStates.minY(shape); dy <= PieceStates.maxY(shape); dy++)
+    {
+      final int blocks = shift(PieceStates.rowMask(shape, dy), x);
+      my_rows[y + dy] = my_rows[y + dy] | blocks;
+      my_hash = my_hash ^ Zobrist.row(y + dy, blocks);
+      if (my_rows[y + dy] == my_full_row)
+      {
+        result = result + 1;
+      }
+    }
+    if (0 < result)
+    {
+      int to = low;
+      for (int from = low; from < my_rows.length; from++)
+      {
+        final int row = my_rows[from];
+        if (from > high || row != my_full_row)
+        {
+          if (from != to && row != 0)
+          {
+            my_hash = my_hash ^ Zobrist.row(from, row) ^ Zobrist.row(to, row);
+          }
+          my_rows[to] = row;
+          to = to + 1;
+        }
+        else
+        {
+          my_hash = my_hash ^ Zobrist.row(from, row);
+        }
+      }
+      while (to < my_rows.length)
+      {
+        my_rows[to] = 0;
+        to = to + 1;
+      }
+    }
+    my_columns_valid = false;
+    return result;
+  }
+
+  /**
+   * @return Is there a block above the visible part, which ends the game?
+   */
+  public boolean overflows()
+  {
+    boolean result = false;
+    for (int y = my_height; !result && y < my_rows.length; y++)
+    {
+      result = my_rows[y] != 0;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_x The column position.
+   * @return How high is column the_x?
+   */
+  public int columnHeight(final int the_x)
+  {
+    updateColumns();
+    return my_heights[the_x];
+  }
+
+  /**
+   * @return What is the sum of the column heights?
+   */
+  public int aggregateHeight()
+  {
+    updateColumns();
+    int result = 0;
+    for (int x = 0; x < my_width; x++)
+    {
+      result = result + my_heights[x];
+    }
+    return result;
+  }
+
+  /**
+   * @return How high is the tallest column?
+   */
+  public int maxHeight()
+  {
+    updateColumns();
+    int result = 0;
+    for (int x = 0; x < my_width; x++)
+    {
+      result = Math.max(result, my_heights[x]);
+    }
+    return result;
+  }
+
+  /**
+   * @return How many empty cells are below the top of their column?
+   */
+  public int holeCount()
+  {
+    updateColumns();
+    return my_holes;
+  }
+
+  /**
+   * @return What is the sum of the height differences of neighboring columns?
+   */
+  public int bumpiness()
+  {
+    updateColumns();
+    int result = 0;
+    for (int x = 1; x < my_width; x++)
+    {
+      result = result + Math.abs(my_heights[x] - my_heights[x - 1]);
+    }
+    return result;
+  }
+
+  /**
+   * @return What is the sum of the well depths, the depth of a column being
+   *         how far it is below the lower of its neighbors (a wall counts as
+   *         infinitely high)?
+   */
+  public int wellDepths()
+  {
+    updateColumns();
+    int result = 0;
+    for (int x = 0; x < my_width; x++)
+    {
+      int neighbor = Integer.MAX_VALUE;
+      if (0 < x)
+      {
+        neighbor = my_heights[x - 1];
+      }
+      if (x < my_width - 1)
+      {
+        neighbor = Math.min(neighbor, my_heights[x + 1]);
+      }
+      if (my_heights[x] < neighbor && neighbor != Integer.MAX_VALUE)
+      {
+        result = result + neighbor - my_heights[x];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Recomputes the column heights and the hole count, if they are out of
+   * date, in one pass from the top row down.
+   */
+  private void updateColumns()
+  {
+    if (!my_columns_valid)
+    {
+      int covered = 0;
+      int holes = 0;
+      for (int y = my_rows.length - 1; 0 <= y; y--)
+      {
+        final int row = my_rows[y];
+        holes = holes + Integer.bitCount(covered & ~row);
+        int tops = row & ~covered;
+        while (tops != 0)
+        {
+          my_heights[Integer.numberOfTrailingZeros(tops)] = y + 1;
+          tops = tops & tops - 1;
+        }
+        covered = covered | row;
+      }
+      int empty = ~covered & my_full_row;
+      while (empty != 0)
+      {
+        my_heights[Integer.numberOfTrailingZeros(empty)] = 0;
+        empty = empty & empty - 1;
+      }
+      my_holes = holes;
+      my_columns_valid = true;
+    }
+  }
+
+  /**
+   * @param the_mask A row mask relative to a piece origin.
+   * @param the_x The x-coordinate of the origin.
+   * @return the_mask moved to column the_x.
+   */
+  private static int shift(final int the_mask, final int the_x)
+  {
+    int result = the_mask >>> -the_x;
+    if (0 <= the_x)
+    {
+      result = the_mask << the_x;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import java.util.Arrays;
+
+/**
+ * An evaluator that scores a grid as a weighted sum of its aggregate height,
+ * hole count, bumpiness and well depths and of the rows cleared. It keeps no
+ * state besides its weights, so it is thread safe.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class LinearEvaluator implements Evaluator
+{
+  /**
+   * The index of the aggregate height weight.
+   */
+  public static final int HEIGHT = 0;
+
+  /**
+   * The index of the hole count weight.
+   */
+  public static final int HOLES = 1;
+
+  /**
+   * The index of the bumpiness weight.
+   */
+  public static final int BUMPINESS = 2;
+
+  /**
+   * The index of the well depth weight.
+   */
+  public static final int WELLS = 3;
+
+  /**
+   * The index of the cleared rows weight.
+   */
+  public static final int LINES = 4;
+
+  /**
+   * The number of weights.
+   */
+  public static final int FEATURES = 5;
+
+  /**
+   * Weights that play a long game on a standard board.
+   */
+  public static final LinearEvaluator DEFAULT =
+      new LinearEvaluator(new double[] {-0.510066, -0.35663, -0.184483, -0.05, 0.760666});
+
+  /**
+   * The weights, by feature index.
+   */
+  private final double[] my_weights;
+
+  /**
+   * Constructs a new evaluator.
+   *
+   * @param the_weights The weights, indexed by HEIGHT, HOLES, BUMPINESS,
+   *          WELLS and LINES.
+   * @throws IllegalArgumentException if there are not FEATURES weights.
+   */
+  public LinearEvaluator(final/* @ non_null @ */double[] the_weights)
+  {
+    if (the_weights.length != FEATURES)
+    {
+      throw new IllegalArgumentException("there must be " + FEATURES + " weights");
+    }
+    my_weights = the_weights.clone();
+  }
+
+  /**
+   * @return What are the weights, by feature index?
+   */
+  public/* @ non_null @ */double[] weights()
+  {
+    return my_weights.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public double evaluate(final Grid the_grid, final int the_lines)
+  {
+    return my_weights[HEIGHT] * the_grid.aggregateHeight() +
+           my_weights[HOLES] * the_grid.holeCount() +
+           my_weights[BUMPINESS] * the_grid.bumpiness() +
+           my_weights[WELLS] * the_grid.wellDepths() + my_weights[LINES] * the_lines;
+  }
+
+  /**
+   * @return What is your printable representation?
+   */
+  public String toString()
+  {
+    return getClass().getSimpleName() + Arrays.toString(my_weights);
+  }
+}
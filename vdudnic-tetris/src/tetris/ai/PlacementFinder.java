@@ -0,0 +1,367 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import java.util.Arrays;
+
+import tetris.entities.Command;
+import tetris.entities.pieces.PieceStates;
+
+/**
+ * Finds every placement a piece can reach from where it appears, tucks under
+ * overhangs and turns in tight spots included, by a breadth-first search over
+ * its states using the moves a board allows: left, right, both rotations and
+ * down. A placement is a state from which the piece cannot move down, and for
+ * each one the finder can give the shortest list of commands that gets there.
+ *
+ * <p>Each (rotation, x, y) is numbered by a small int, so the visited set is a
+ * bitset and the search tree is two arrays indexed by that number. Pieces with
+ * fewer distinct rotations have fewer states to visit. All arrays are made
+ * when the finder is constructed and reused by every search, so a search does
+ * not allocate; in turn, a finder must be used by one thread at a time.
+ *
+ * <p>While a piece is wholly above the stack, every rotation and column is
+ * open to it, so the search starts at the lowest row where that is still so
+ * rather than where the piece appears. On a low stack that leaves only a few
+ * rows to search.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class PlacementFinder
+{
+  /**
+   * The largest block offset from a piece origin; origins can be this far
+   * outside the grid with the piece still inside it.
+   */
+  private static final int MARGIN = 3;
+
+  /**
+   * The most rotations a piece can have.
+   */
+  private static final int MAX_ROTATIONS = 4;
+
+  /**
+   * The number of bits in a word of the visited set.
+   */
+  private static final int WORD_BITS = Long.SIZE;
+
+  /**
+   * The log to base 2 of WORD_BITS.
+   */
+  private static final int WORD_SHIFT = 6;
+
+  /**
+   * The parent of the state the search starts from.
+   */
+  private static final int ROOT = -1;
+
+  /**
+   * The number of rows of the grids searched.
+   */
+  private final int my_row_count;
+
+  /**
+   * The number of possible origin rows.
+   */
+  private final int my_origin_rows;
+
+  /**
+   * The number of possible origins for each rotation.
+   */
+  private final int my_origins;
+
+  /**
+   * The states visited, as a bitset indexed by state number.
+   */
+  private final long[] my_visited;
+
+  /**
+   * The queue of states to expand; every state enters it at most once.
+   */
+  private final int[] my_queue;
+
+  /**
+   * The number of the state each visited state was reached from, by state
+   * number.
+   */
+  private final int[] my_parent;
+
+  /**
+   * The command that reached each visited state, by state number.
+   */
+  private final byte[] my_move;
+
+  /**
+   * The placements found by the last search.
+   */
+  private final int[] my_placements;
+
+  /**
+   * The number of placements found by the last search.
+   */
+  private int my_count;
+
+  /**
+   * The number of rows the piece was moved down from where it appeared
+   * before the last search began.
+   */
+  private int my_descent;
+
+  /**
+   * Constructs a new finder for grids of the specified size.
+   *
+   * @param the_width The width.
+   * @param the_row_count The number of rows, including those above the
+   *          visible part.
+   */
+  public PlacementFinder(final int the_width, final int the_row_count)
+  {
+    my_row_count = the_row_count;
+    my_origin_rows = the_row_count + MARGIN;
+    my_origins = (the_width + MARGIN) * my_origin_rows;
+    final int states = MAX_ROTATIONS * my_origins;
+    my_visited = new long[(states + WORD_BITS - 1) >>> WORD_SHIFT];
+    my_queue = new int[states];
+    my_parent = new int[states];
+    my_move = new byte[states];
+    my_placements = new int[states];
+  }
+
+  /**
+   * Constructs a new finder for grids the size of the_grid.
+   *
+   * @param the_grid The grid.
+   */
+  public PlacementFinder(final/* @ non_null @ */Grid the_grid)
+  {
+    this(the_grid.width(), the_grid.rowCount());
+  }
+
+  /**
+   * Finds the placements of a piece on the_grid, which must be the size this
+   * finder was made for.
+   *
+   * @param the_grid The grid.
+   * @param the_spawn The state of the piece where it appears.
+   * @return the number of placements found, 0 if the piece does not fit
+   *         where it appears.
+   */
+  public int find(final/* @ non_null @ */Grid the_grid, final int the_spawn)
+  {
+    Arrays.fill(my_visited, 0L);
+    my_count = 0;
+    my_descent = 0;
+    if (!the_grid.collides(the_spawn))
+    {
+      int start = the_spawn;
+      final int open = the_grid.maxHeight() - lowestOffset(PieceStates.type(the_spawn));
+      while (open < PieceStates.y(start))
+      {
+        start = PieceStates.moveDown(start);
+        my_descent = my_descent + 1;
+      }
+      int tail = 0;
+      my_queue[tail] = start;
+      tail = tail + 1;
+      mark(index(start), ROOT, 0);
+      for (int head = 0; head < tail; head++)
+      {
+        final int state = my_queue[head];
+        final int parent = index(state);
+        final int below = PieceStates.moveDown(state);
+        if (the_grid.collides(below))
+        {
+          my_placements[my_count] = state;
+          my_count = my_count + 1;
+        }
+        else
+        {
+          tail = visit(below, parent, Command.MOVE_DOWN, tail);
+        }
+        tail = visit(the_grid, PieceStates.moveLeft(state), parent, Command.MOVE_LEFT, tail);
+        tail = visit(the_grid, PieceStates.moveRight(state), parent, Command.MOVE_RIGHT, tail);
+        tail = visit(the_grid, PieceStates.rotateClockwise(state), parent,
+                     Command.ROTATE_CLOCKWISE, tail);
+        tail = visit(the_grid, PieceStates.rotateCounterclockwise(state), parent,
+                     Command.ROTATE_COUNTERCLOCKWISE, tail);
+      }
+    }
+    return my_count;
+  }
+
+  /**
+   * @return How many placements did the last search find?
+   */
+  public int count()
+  {
+    return my_count;
+  }
+
+  /**
+   * @param the_index The index of a placement, less than count().
+   * @return What is the state of placement the_index of the last search?
+   */
+  public int placement(final int the_index)
+  {
+    return my_placements[the_index];
+  }
+
+  /**
+   * @return How many placements can a search find at most?
+   */
+  public int maxCount()
+  {
+    return my_placements.length;
+  }
+
+  /**
+   * @return How many commands can a path take at most?
+   */
+  public int maxPathLength()
+  {
+    return my_row_count + my_queue.length + 1;
+  }
+
+  /**
+   * Writes the commands that take the piece of the last search from where it
+   * appeared to the_placement and freeze it there. A closing run of moves
+   * down is written as a single drop.
+   *
+   * @param the_placement The state of a placement found by the last search.
+   * @param the_out Receives the commands; it must have room for
+   *          maxPathLength() of them.
+   * @return the number of commands.
+   * @throws IllegalArgumentException if the last search did not reach
+   *           the_placement.
+   */
+  public int path(final int the_placement, final/* @ non_null @ */int[] the_out)
+  {
+    final int last = index(the_placement);
+    if (last < 0 || my_queue.length <= last || !isVisited(last))
+    {
+      throw new IllegalArgumentException("not reached: " + the_placement);
+    }
+    int length = my_descent;
+    for (int i = last; my_parent[i] != ROOT; i = my_parent[i])
+    {
+      length = length + 1;
+    }
+    int position = length;
+    for (int i = last; my_parent[i] != ROOT; i = my_parent[i])
+    {
+      position = position - 1;
+      the_out[position] = my_move[i];
+    }
+    Arrays.fill(the_out, 0, my_descent, Command.MOVE_DOWN);
+    // the moves down at the end, and the one that freezes the piece, are a drop
+    while (0 < length && the_out[length - 1] == Command.MOVE_DOWN)
+    {
+      length = length - 1;
+    }
+    the_out[length] = Command.DROP;
+    return length + 1;
+  }
+
+  /**
+   * Visits the_state if it fits and has not been visited.
+   *
+   * @param the_grid The grid.
+   * @param the_state The state.
+   * @param the_parent The number of the state it is reached from.
+   * @param the_move The command that reaches it.
+   * @param the_tail The end of the queue.
+   * @return the new end of the queue.
+   */
+  private int visit(final Grid the_grid, final int the_state, final int the_parent,
+                    final int the_move, final int the_tail)
+  {
+    int result = the_tail;
+    final int index = index(the_state);
+    if (!isVisited(index) && !the_grid.collides(the_state))
+    {
+      result = visit(the_state, the_parent, the_move, the_tail);
+    }
+    return result;
+  }
+
+  /**
+   * Visits the_state, which is known to fit, if it has not been visited.
+   *
+   * @param the_state The state.
+   * @param the_parent The number of the state it is reached from.
+   * @param the_move The command that reaches it.
+   * @param the_tail The end of the queue.
+   * @return the new end of the queue.
+   */
+  private int visit(final int the_state, final int the_parent, final int the_move,
+                    final int the_tail)
+  {
+    int result = the_tail;
+    final int index = index(the_state);
+    if (!isVisited(index))
+    {
+      mark(index, the_parent, the_move);
+      my_queue[result] = the_state;
+      result = result + 1;
+    }
+    return result;
+  }
+
+  /**
+   * Marks state number the_index as visited.
+   *
+   * @param the_index The state number.
+   * @param the_parent The number of the state it is reached from.
+   * @param the_move The command that reaches it.
+   */
+  private void mark(final int the_index, final int the_parent, final int the_move)
+  {
+    my_visited[the_index >>> WORD_SHIFT] |= 1L << the_index;
+    my_parent[the_index] = the_parent;
+    my_move[the_index] = (byte) the_move;
+  }
+
+  /**
+   * @param the_index The state number.
+   * @return Has state number the_index been visited by the last search?
+   */
+  private boolean isVisited(final int the_index)
+  {
+    return (my_visited[the_index >>> WORD_SHIFT] & 1L << the_index) != 0;
+  }
+
+  /**
+   * @param the_state A state of a piece inside the grid.
+   * @return the number of the_state.
+   */
+  private int index(final int the_state)
+  {
+    return PieceStates.rotation(the_state) * my_origins +
+           (PieceStates.x(the_state) + MARGIN) * my_origin_rows + PieceStates.y(the_state) +
+           MARGIN;
+  }
+
+  /**
+   * @param the_type A piece type.
+   * @return What is the smallest y offset of a block of any rotation of
+   *         the_type?
+   */
+  private static int lowestOffset(final int the_type)
+  {
+    int result = Integer.MAX_VALUE;
+    for (int r = 0; r < PieceStates.rotations(the_type); r++)
+    {
+      result = Math.min(result, PieceStates.minY(PieceStates.shape(
+          PieceStates.state(the_type, r, 0, 0))));
+    }
+    return result;
+  }
+}
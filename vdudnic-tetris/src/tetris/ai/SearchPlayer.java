@@ -0,0 +1,600 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.Zobrist;
+import tetris.sim.InputPolicy;
+import tetris.sim.SimulationReport;
+import tetris.sim.Simulator;
+
+/**
+ * A player that tries every placement of the current piece, and with
+ * lookahead every placement of the next piece after it, scores the grids they
+ * leave with an evaluator and plays the best. Placements are found by a
+ * PlacementFinder, so tucks and turns under overhangs are tried too. The
+ * placements of the current piece are scored in parallel on a fork/join pool.
+ *
+ * <p>A move has a time budget. The placements of the current piece are first
+ * all scored without lookahead, then all scored again with it; if the budget
+ * is spent before the second pass is done, the move is chosen by the first,
+ * so scores with and without lookahead are never compared, and a move takes
+ * little more than its budget however crowded the board. Whether the second
+ * pass is done in time depends on the speed of the machine, so two runs of
+ * the same games can play differently; with the budget UNLIMITED every move
+ * is chosen with lookahead and the moves depend on the board alone.
+ *
+ * <p>A player can be given a TranspositionTable to remember the scores of the
+ * grids it evaluates, since the same grid is often reached by placing the
+ * same pieces in a different order, within a move or across games.
+ *
+ * <p>A player keeps no state between moves other than the table, so one
+ * instance can play any number of games at once, for instance all the games
+ * of a Simulator.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class SearchPlayer implements InputPolicy
+{
+  /**
+   * The default time budget of a move, in nanoseconds.
+   */
+  public static final long DEFAULT_BUDGET = 1000000L;
+
+  /**
+   * A time budget that never runs out.
+   */
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  /**
+   * The score of a placement that ends the game.
+   */
+  private static final double LOSS = -Double.MAX_VALUE;
+
+  /**
+   * The most placements of the current piece scored by one task.
+   */
+  private static final int LEAF_SIZE = 4;
+
+  /**
+   * The number of games played by main().
+   */
+  private static final int GAMES = 16;
+
+  /**
+   * The piece limit per game played by main().
+   */
+  private static final int MAX_PIECES = 500;
+
+  /**
+   * The number of nanoseconds in a microsecond.
+   */
+  private static final double NANOS_PER_MICRO = 1e3;
+
+  /**
+   * The number of entries of the table used by main().
+   */
+  private static final int TABLE_CAPACITY = 1 << 20;
+
+  /**
+   * The scratch space of each thread, so that a search does not allocate
+   * once a thread has searched a board of the same size.
+   */
+  private static final ThreadLocal<Workspace> WORKSPACES = new ThreadLocal<Workspace>();
+
+  /**
+   * Scores the grids.
+   */
+  private final/* @ non_null @ */Evaluator my_evaluator;
+
+  /**
+   * Whether the next piece is looked at.
+   */
+  private final boolean my_lookahead;
+
+  /**
+   * The time budget of a move, in nanoseconds.
+   */
+  private final long my_budget;
+
+  /**
+   * The pool the placements are scored on, or null to score them on the
+   * calling thread.
+   */
+  private final/* @ nullable @ */ForkJoinPool my_pool;
+
+  /**
+   * The scores of the grids evaluated so far, or null to keep none.
+   */
+  private final/* @ nullable @ */TranspositionTable my_table;
+
+  /**
+   * Constructs a new player with lookahead and the default budget that scores
+   * placements on the common pool.
+   *
+   * @param the_evaluator The evaluator.
+   */
+  public SearchPlayer(final/* @ non_null @ */Evaluator the_evaluator)
+  {
+    this(the_evaluator, true, DEFAULT_BUDGET, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs a new player.
+   *
+   * @param the_evaluator The evaluator.
+   * @param the_lookahead Whether the next piece is looked at.
+   * @param the_budget The time budget of a move, in nanoseconds.
+   * @param the_pool The pool to score placements on, or null to score them on
+   *          the calling thread, which is best when many games are played at
+   *          once.
+   */
+  public SearchPlayer(final/* @ non_null @ */Evaluator the_evaluator,
+                      final boolean the_lookahead, final long the_budget,
+                      final/* @ nullable @ */ForkJoinPool the_pool)
+  {
+    this(the_evaluator, the_lookahead, the_budget, the_pool, null);
+  }
+
+  /**
+   * Constructs a new player that remembers scores in a table, which can be
+   * shared with other players using the same evaluator.
+   *
+   * @param the_evaluator The evaluator.
+   * @param the_lookahead Whether the next piece is looked at.
+   * @param the_budget The time budget of a move, in nanoseconds.
+   * @param the_pool The pool to score placements on, or null to score them on
+   *          the calling thread.
+   * @param the_table The table to remember scores in, or null to remember
+   *          none.
+   */
+  public SearchPlayer(final/* @ non_null @ */Evaluator the_evaluator,
+                      final boolean the_lookahead, final long the_budget,
+                      final/* @ nullable @ */ForkJoinPool the_pool,
+                      final/* @ nullable @ */TranspositionTable the_table)
+  {
+    my_evaluator = the_evaluator;
+    my_lookahead = the_lookahead;
+    my_budget = the_budget;
+    my_pool = the_pool;
+    my_table = the_table;
+  }
+
+  /**
+   * Moves the current piece of the_board to the best placement and freezes it
+   * there.
+   *
+   * @param the_board The board.
+   * @param the_random Unused; the player is deterministic.
+   */
+  public void playPiece(final Board the_board, final Random the_random)
+  {
+    final int target = choose(the_board);
+    if (0 <= target)
+    {
+      // choose() left the search of the current piece in this thread's
+      // workspace
+      final Workspace workspace = workspace(the_board);
+      final int length = workspace.my_root_finder.path(target, workspace.my_path);
+      for (int i = 0; i < length; i++)
+      {
+        Command.apply(the_board, workspace.my_path[i]);
+      }
+    }
+  }
+
+  /**
+   * @param the_board The board.
+   * @return the state at rest of the best placement of the current piece of
+   *         the_board, or -1 if it has none.
+   */
+  public int choose(final/* @ non_null @ */Board the_board)
+  {
+    final long deadline = System.nanoTime() + my_budget;
+    final Workspace workspace = workspace(the_board);
+    workspace.my_root.load(the_board);
+    final PlacementFinder finder = workspace.my_root_finder;
+    final int count = finder.find(workspace.my_root, the_board.currentState());
+    final int next = the_board.nextPiece().state();
+    final double[] scores = workspace.my_scores;
+    // the pass without lookahead always finishes, so there is a result
+    // whatever the budget
+    run(new ScoreTask(workspace.my_root, finder, scores, 0, count, next, false, deadline));
+    int result = best(finder, scores, count);
+    // compared by difference, so that an UNLIMITED deadline that wrapped
+    // around is still in the future
+    if (my_lookahead && System.nanoTime() - deadline < 0)
+    {
+      final double[] deep_scores = workspace.my_deep_scores;
+      run(new ScoreTask(workspace.my_root, finder, deep_scores, 0, count, next, true,
+                        deadline));
+      boolean finished = true;
+      for (int i = 0; i < count; i++)
+      {
+        finished = finished && !Double.isNaN(deep_scores[i]);
+      }
+      if (finished)
+      {
+        result = best(finder, deep_scores, count);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs a task on the pool, or on the calling thread if there is none.
+   *
+   * @param the_task The task.
+   */
+  private void run(final ScoreTask the_task)
+  {
+    if (my_pool == null)
+    {
+      the_task.compute();
+    }
+    else
+    {
+      my_pool.invoke(the_task);
+    }
+  }
+
+  /**
+   * @param the_finder The finder holding the placements.
+   * @param the_scores The scores, by placement.
+   * @param the_count The number of placements.
+   * @return the state at rest of the first placement with the best score, or
+   *         -1 if there is none.
+   */
+  private static int best(final PlacementFinder the_finder, final double[] the_scores,
+                          final int the_count)
+  {
+    int result = -1;
+    double best = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < the_count; i++)
+    {
+      if (best < the_scores[i])
+      {
+        best = the_scores[i];
+        result = the_finder.placement(i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Plays games with a sequential searcher on all processors and prints the
+   * totals, once without a table and once with one table shared by all the
+   * games, then plays one game with a parallel searcher and prints the
+   * average and longest time per move. The games are played with an
+   * UNLIMITED budget, so that both runs play the same moves and differ only
+   * in speed; main() checks that they clear the same lines.
+   *
+   * @param the_args Ignored.
+   * @throws IllegalStateException if the runs clear different lines.
+   */
+  public static void main(final String[] the_args)
+  {
+    System.setProperty("java.awt.headless", "true");
+    final Simulator simulator =
+        new Simulator(Simulator.DEFAULT_HEIGHT, Simulator.DEFAULT_WIDTH,
+                      new SearchPlayer(LinearEvaluator.DEFAULT, true, UNLIMITED, null));
+    final SimulationReport alone = simulator.run(0, GAMES, MAX_PIECES);
+    System.out.println(alone);
+    final Simulator shared =
+        new Simulator(Simulator.DEFAULT_HEIGHT, Simulator.DEFAULT_WIDTH,
+                      new SearchPlayer(LinearEvaluator.DEFAULT, true, UNLIMITED, null,
+                                       new TranspositionTable(TABLE_CAPACITY)));
+    final SimulationReport cached = shared.run(0, GAMES, MAX_PIECES);
+    System.out.println(cached);
+    if (alone.pieces() != cached.pieces() || alone.lines() != cached.lines())
+    {
+      throw new IllegalStateException("the table changed the moves");
+    }
+
+    final SearchPlayer player = new SearchPlayer(LinearEvaluator.DEFAULT);
+    final Board board = new Board(Simulator.DEFAULT_HEIGHT, Simulator.DEFAULT_WIDTH, 0);
+    final Random random = new Random(0);
+    long total = 0;
+    long longest = 0;
+    int moves = 0;
+    while (!board.isFull() && moves < MAX_PIECES)
+    {
+      final long start = System.nanoTime();
+      player.playPiece(board, random);
+      final long elapsed = System.nanoTime() - start;
+      total = total + elapsed;
+      longest = Math.max(longest, elapsed);
+      moves = moves + 1;
+    }
+    System.out.printf("%d moves, %.1f us/move on average, %.1f us longest%n", moves,
+                      total / NANOS_PER_MICRO / moves, longest / NANOS_PER_MICRO);
+  }
+
+  /**
+   * @param the_root The grid before the placement.
+   * @param the_candidate The state at rest of a placement of the current
+   *          piece.
+   * @param the_next The state of the next piece where it appears.
+   * @param the_lookahead Whether to look at the next piece.
+   * @param the_workspace The workspace of the calling thread.
+   * @return the score of the placement.
+   */
+  private double score(final Grid the_root, final int the_candidate, final int the_next,
+                       final boolean the_lookahead, final Workspace the_workspace)
+  {
+    final Grid the_after = the_workspace.my_after;
+    final Grid the_after_next = the_workspace.my_after_next;
+    the_after.copyFrom(the_root);
+    final int lines = the_after.place(the_candidate);
+    double result = LOSS;
+    if (!the_after.overflows())
+    {
+      if (the_lookahead)
+      {
+        final PlacementFinder finder = the_workspace.my_next_finder;
+        final int count = finder.find(the_after, the_next);
+        for (int i = 0; i < count; i++)
+        {
+          the_after_next.copyFrom(the_after);
+          final int more = the_after_next.place(finder.placement(i));
+          if (!the_after_next.overflows())
+          {
+            result = Math.max(result, evaluate(the_after_next, lines + more));
+          }
+        }
+      }
+      else
+      {
+        result = evaluate(the_after, lines);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param the_grid A grid.
+   * @param the_lines The number of rows removed on the way to the_grid.
+   * @return the score of the_grid, from the table if it is there.
+   */
+  private double evaluate(final Grid the_grid, final int the_lines)
+  {
+    double result;
+    if (my_table == null)
+    {
+      result = my_evaluator.evaluate(the_grid, the_lines);
+    }
+    else
+    {
+      final long key = the_grid.hash() ^ Zobrist.count(the_lines);
+      result = my_table.getScore(key);
+      if (Double.isNaN(result))
+      {
+        result = my_evaluator.evaluate(the_grid, the_lines);
+        my_table.putScore(key, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param the_board A board.
+   * @return the workspace of the calling thread for boards the size of
+   *         the_board.
+   */
+  private static Workspace workspace(final Board the_board)
+  {
+    Workspace result = WORKSPACES.get();
+    if (result == null || result.my_root.width() != the_board.width() ||
+        result.my_root.height() != the_board.height())
+    {
+      result = new Workspace(new Grid(the_board));
+      WORKSPACES.set(result);
+    }
+    return result;
+  }
+
+  /**
+   * @param the_grid A grid.
+   * @return the workspace of the calling thread for grids the size of
+   *         the_grid.
+   */
+  private static Workspace workspace(final Grid the_grid)
+  {
+    Workspace result = WORKSPACES.get();
+    if (result == null || result.my_root.width() != the_grid.width() ||
+        result.my_root.height() != the_grid.height() ||
+        result.my_root.rowCount() != the_grid.rowCount())
+    {
+      result = new Workspace(new Grid(the_grid.width(), the_grid.height(),
+                                      the_grid.rowCount()));
+      WORKSPACES.set(result);
+    }
+    return result;
+  }
+
+  /**
+   * Scores a range of the placements of the current piece, splitting the
+   * range until it is small enough that scoring it outweighs forking.
+   */
+  @SuppressWarnings("serial")
+  private class ScoreTask extends RecursiveAction
+  {
+    /**
+     * The grid before the placement.
+     */
+    private final Grid my_root;
+
+    /**
+     * The finder holding the placements of the current piece.
+     */
+    private final PlacementFinder my_candidates;
+
+    /**
+     * The scores, by placement.
+     */
+    private final double[] my_scores;
+
+    /**
+     * The first placement of the range.
+     */
+    private final int my_low;
+
+    /**
+     * The placement after the last of the range.
+     */
+    private final int my_high;
+
+    /**
+     * The state of the next piece where it appears.
+     */
+    private final int my_next;
+
+    /**
+     * Whether the next piece is looked at.
+     */
+    private final boolean my_deep;
+
+    /**
+     * The System.nanoTime() after which a pass with lookahead stops.
+     */
+    private final long my_deadline;
+
+    /**
+     * Constructs a new task.
+     *
+     * @param the_root The grid before the placement.
+     * @param the_candidates The finder holding the placements of the current
+     *          piece.
+     * @param the_scores The scores, by placement.
+     * @param the_low The first placement of the range.
+     * @param the_high The placement after the last of the range.
+     * @param the_next The state of the next piece where it appears.
+     * @param the_deep Whether the next piece is looked at.
+     * @param the_deadline The System.nanoTime() after which a pass with
+     *          lookahead stops, leaving the placements not yet scored NaN.
+     */
+    ScoreTask(final Grid the_root, final PlacementFinder the_candidates,
+              final double[] the_scores,
+              final int the_low, final int the_high, final int the_next,
+              final boolean the_deep, final long the_deadline)
+    {
+      super();
+      my_root = the_root;
+      my_candidates = the_candidates;
+      my_scores = the_scores;
+      my_low = the_low;
+      my_high = the_high;
+      my_next = the_next;
+      my_deep = the_deep;
+      my_deadline = the_deadline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void compute()
+    {
+      if (my_high - my_low <= LEAF_SIZE || my_pool == null)
+      {
+        final Workspace workspace = workspace(my_root);
+        for (int i = my_low; i < my_high; i++)
+        {
+          my_scores[i] = Double.NaN;
+          // compared by difference, so that an UNLIMITED deadline that wrapped
+          // around is still in the future
+          if (!my_deep || System.nanoTime() - my_deadline < 0)
+          {
+            my_scores[i] =
+                score(my_root, my_candidates.placement(i), my_next, my_deep, workspace);
+          }
+        }
+      }
+      else
+      {
+        final int middle = (my_low + my_high) >>> 1;
+        invokeAll(new ScoreTask(my_root, my_candidates, my_scores, my_low, middle, my_next,
+                                my_deep, my_deadline),
+                  new ScoreTask(my_root, my_candidates, my_scores, middle, my_high, my_next,
+                                my_deep, my_deadline));
+      }
+    }
+  }
+
+  /**
+   * The scratch space one thread needs to search boards of one size. The root
+   * fields serve choose() and the others serve score(), so a thread can score
+   * placements while its own choose() waits for the result.
+   */
+  private static final class Workspace
+  {
+    /**
+     * The grid of the board being searched.
+     */
+    private final Grid my_root;
+
+    /**
+     * The placements of the current piece.
+     */
+    private final PlacementFinder my_root_finder;
+
+    /**
+     * The scores of the placements of the current piece without lookahead.
+     */
+    private final double[] my_scores;
+
+    /**
+     * The scores of the placements of the current piece with lookahead.
+     */
+    private final double[] my_deep_scores;
+
+    /**
+     * The path to the chosen placement.
+     */
+    private final int[] my_path;
+
+    /**
+     * The grid after a placement of the current piece.
+     */
+    private final Grid my_after;
+
+    /**
+     * The grid after a placement of the next piece.
+     */
+    private final Grid my_after_next;
+
+    /**
+     * The placements of the next piece.
+     */
+    private final PlacementFinder my_next_finder;
+
+    /**
+     * Constructs a new workspace for grids the size of the_root.
+     *
+     * @param the_root An empty grid, which becomes the root grid.
+     */
+    Workspace(final Grid the_root)
+    {
+      my_root = the_root;
+      my_root_finder = new PlacementFinder(the_root);
+      my_scores = new double[my_root_finder.maxCount()];
+      my_deep_scores = new double[my_root_finder.maxCount()];
+      my_path = new int[my_root_finder.maxPathLength()];
+      my_after = new Grid(the_root.width(), the_root.height(), the_root.rowCount());
+      my_after_next = new Grid(the_root.width(), the_root.height(), the_root.rowCount());
+      my_next_finder = new PlacementFinder(the_root);
+    }
+  }
+}
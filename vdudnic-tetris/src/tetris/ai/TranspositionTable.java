@@ -0,0 +1,144 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size cache from 64-bit position hashes to 64-bit values that any
+ * number of threads can read and write at once without locking, so parallel
+ * searchers can share the positions they have evaluated.
+ *
+ * <p>Each entry is two longs of one AtomicLongArray: the value, and the key
+ * xored with the value. Writers store both without coordinating; a reader
+ * accepts an entry only if the two longs it reads xor back to its key, so an
+ * entry torn by racing writers reads as a miss rather than as a wrong value.
+ * An entry is indexed by the low bits of its key and always replaces whatever
+ * was there, so the table never grows and never blocks; a lost entry only
+ * costs a second evaluation.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class TranspositionTable
+{
+  /**
+   * The largest number of entries a table can have.
+   */
+  public static final int MAX_CAPACITY = 1 << 29;
+
+  /**
+   * Scrambles the stored checks, so that an empty entry does not match the
+   * key 0, which is the hash of an empty board.
+   */
+  private static final long SALT = 0x5DEECE66DA3B1F27L;
+
+  /**
+   * The entries; entry i is the value at 2i + 1 and the key xored with the
+   * value and SALT at 2i.
+   */
+  private final AtomicLongArray my_entries;
+
+  /**
+   * The number of entries less one; a power of two less one.
+   */
+  private final int my_mask;
+
+  /**
+   * Constructs a new empty table.
+   *
+   * @param the_capacity The least number of entries; it is rounded up to a
+   *          power of two.
+   * @throws IllegalArgumentException if the_capacity is not between 1 and
+   *           MAX_CAPACITY.
+   */
+  public TranspositionTable(final int the_capacity)
+  {
+    if (the_capacity < 1 || MAX_CAPACITY < the_capacity)
+    {
+      throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+    }
+    final int capacity = Integer.highestOneBit(the_capacity - 1) << 1;
+    my_mask = Math.max(capacity, 1) - 1;
+    my_entries = new AtomicLongArray(2 * (my_mask + 1));
+  }
+
+  /**
+   * @return How many entries does the table have?
+   */
+  public int capacity()
+  {
+    return my_mask + 1;
+  }
+
+  /**
+   * @param the_key A position hash.
+   * @param the_absent The value to return if the table has no entry for
+   *          the_key.
+   * @return the value stored with the_key, or the_absent.
+   */
+  public long get(final long the_key, final long the_absent)
+  {
+    final int slot = 2 * ((int) the_key & my_mask);
+    final long value = my_entries.get(slot + 1);
+    long result = the_absent;
+    if ((my_entries.get(slot) ^ value ^ SALT) == the_key)
+    {
+      result = value;
+    }
+    return result;
+  }
+
+  /**
+   * Stores the_value with the_key, replacing the entry it shares a slot with.
+   *
+   * @param the_key A position hash.
+   * @param the_value The value.
+   */
+  public void put(final long the_key, final long the_value)
+  {
+    final int slot = 2 * ((int) the_key & my_mask);
+    my_entries.lazySet(slot + 1, the_value);
+    my_entries.lazySet(slot, the_key ^ the_value ^ SALT);
+  }
+
+  /**
+   * @param the_key A position hash.
+   * @return the score stored with the_key by putScore(), or NaN if there is
+   *         none.
+   */
+  public double getScore(final long the_key)
+  {
+    return Double.longBitsToDouble(get(the_key, Double.doubleToRawLongBits(Double.NaN)));
+  }
+
+  /**
+   * Stores the_score with the_key.
+   *
+   * @param the_key A position hash.
+   * @param the_score The score.
+   */
+  public void putScore(final long the_key, final double the_score)
+  {
+    put(the_key, Double.doubleToRawLongBits(the_score));
+  }
+
+  /**
+   * Empties the table. Entries stored by other threads while it runs may or
+   * may not survive.
+   */
+  public void clear()
+  {
+    for (int i = 0; i < my_entries.length(); i++)
+    {
+      my_entries.lazySet(i, 0L);
+    }
+  }
+}
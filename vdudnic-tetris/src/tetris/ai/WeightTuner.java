@@ -0,0 +1,580 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import tetris.sim.SimulationReport;
+import tetris.sim.Simulator;
+
+/**
+ * A genetic algorithm that tunes the weights of a LinearEvaluator by playing
+ * games with them. Each generation, every weight vector of the population
+ * plays the same seeded games with a SearchPlayer without lookahead, all the
+ * games of all the vectors in parallel on a fork/join pool, and its fitness
+ * is the number of lines it removes. Then the least fit vectors are replaced
+ * by children of tournament winners: the fitness-weighted average of two
+ * parents, sometimes mutated in one weight. Weight vectors are kept at unit
+ * length, since scaling a vector does not change the moves it chooses.
+ *
+ * <p>The population and the generation number can be saved to a checkpoint
+ * file after every generation and loaded again, so a long run can be stopped
+ * and resumed. The random numbers of a generation come from the seed and the
+ * generation number only, so a resumed run goes on exactly as the first run
+ * would have.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class WeightTuner
+{
+  /**
+   * The default number of weight vectors.
+   */
+  public static final int DEFAULT_POPULATION = 32;
+
+  /**
+   * The default number of games each weight vector plays per generation.
+   */
+  public static final int DEFAULT_GAMES = 8;
+
+  /**
+   * The default piece limit per game.
+   */
+  public static final int DEFAULT_MAX_PIECES = 500;
+
+  /**
+   * The first line of a checkpoint file.
+   */
+  private static final String MAGIC = "# WeightTuner checkpoint";
+
+  /**
+   * The fraction of the population replaced each generation.
+   */
+  private static final double REPLACED = 0.3;
+
+  /**
+   * The fraction of the population that enters a tournament.
+   */
+  private static final double TOURNAMENT = 0.1;
+
+  /**
+   * The chance that a child is mutated.
+   */
+  private static final double MUTATION_RATE = 0.05;
+
+  /**
+   * The largest change a mutation makes to a weight.
+   */
+  private static final double MUTATION_STEP = 0.2;
+
+  /**
+   * The odd constant generation numbers are spread by to seed each
+   * generation's random numbers.
+   */
+  private static final long GENERATION_GAMMA = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The number of generations run by main() when none is given.
+   */
+  private static final int DEFAULT_GENERATIONS = 10;
+
+  /**
+   * The number of games each weight vector plays per generation.
+   */
+  private final int my_games;
+
+  /**
+   * The piece limit per game.
+   */
+  private final int my_max_pieces;
+
+  /**
+   * The seed all the random numbers and games come from.
+   */
+  private final long my_seed;
+
+  /**
+   * The weight vectors.
+   */
+  private final double[][] my_population;
+
+  /**
+   * The fitness of each weight vector in the last generation played, or -1 if
+   * it has not played since it was made.
+   */
+  private final long[] my_fitness;
+
+  /**
+   * The number of generations played.
+   */
+  private int my_generation;
+
+  /**
+   * Constructs a new tuner with a random population.
+   *
+   * @param the_population The number of weight vectors, at least 2.
+   * @param the_games The number of games each weight vector plays per
+   *          generation.
+   * @param the_max_pieces The piece limit per game.
+   * @param the_seed The seed all the random numbers and games come from.
+   * @throws IllegalArgumentException if the_population is less than 2 or
+   *           the_games is not positive.
+   */
+  public WeightTuner(final int the_population, final int the_games, final int the_max_pieces,
+                     final long the_seed)
+  {
+    this(new double[the_population][LinearEvaluator.FEATURES], the_games, the_max_pieces,
+         the_seed, 0);
+    final Random random = random(-1);
+    for (double[] weights : my_population)
+    {
+      for (int i = 0; i < weights.length; i++)
+      {
+        weights[i] = random.nextDouble() - 0.5;
+      }
+      normalize(weights);
+    }
+  }
+
+  /**
+   * Constructs a new tuner with the specified population.
+   *
+   * @param the_population The weight vectors, which become the tuner's.
+   * @param the_games The number of games each weight vector plays per
+   *          generation.
+   * @param the_max_pieces The piece limit per game.
+   * @param the_seed The seed all the random numbers and games come from.
+   * @param the_generation The number of generations played.
+   * @throws IllegalArgumentException if there are fewer than 2 weight
+   *           vectors or the_games is not positive.
+   */
+  private WeightTuner(final double[][] the_population, final int the_games,
+                      final int the_max_pieces, final long the_seed,
+                      final int the_generation)
+  {
+    if (the_population.length < 2 || the_games < 1)
+    {
+      throw new IllegalArgumentException("need at least 2 weight vectors and 1 game");
+    }
+    my_population = the_population;
+    my_fitness = new long[the_population.length];
+    Arrays.fill(my_fitness, -1);
+    my_games = the_games;
+    my_max_pieces = the_max_pieces;
+    my_seed = the_seed;
+    my_generation = the_generation;
+  }
+
+  /**
+   * Loads a tuner from a checkpoint file written by save().
+   *
+   * @param the_path The checkpoint file.
+   * @return the tuner.
+   * @throws IOException if the file cannot be read or is not a checkpoint.
+   */
+  public static WeightTuner load(final Path the_path) throws IOException
+  {
+    final BufferedReader reader = Files.newBufferedReader(the_path, StandardCharsets.UTF_8);
+    final WeightTuner result;
+    try
+    {
+      if (!MAGIC.equals(reader.readLine()))
+      {
+        throw new IOException("not a checkpoint: " + the_path);
+      }
+      final String[] header = reader.readLine().trim().split("\\s+");
+      final int generation = Integer.parseInt(header[0]);
+      final int size = Integer.parseInt(header[1]);
+      final int games = Integer.parseInt(header[2]);
+      final int max_pieces = Integer.parseInt(header[3]);
+      final long seed = Long.parseLong(header[4]);
+      final double[][] population = new double[size][LinearEvaluator.FEATURES];
+      for (double[] weights : population)
+      {
+        final String[] fields = reader.readLine().trim().split("\\s+");
+        for (int i = 0; i < weights.length; i++)
+        {
+          weights[i] = Double.parseDouble(fields[i]);
+        }
+      }
+      result = new WeightTuner(population, games, max_pieces, seed, generation);
+    }
+    catch (final RuntimeException e)
+    {
+      throw new IOException("corrupt checkpoint: " + the_path, e);
+    }
+    finally
+    {
+      reader.close();
+    }
+    return result;
+  }
+
+  /**
+   * Saves the tuner to a checkpoint file. The file is written beside the_path
+   * and then moved over it, so a crash leaves the last checkpoint intact.
+   *
+   * @param the_path The checkpoint file.
+   * @throws IOException if the file cannot be written.
+   */
+  public void save(final Path the_path) throws IOException
+  {
+    final Path temporary = the_path.resolveSibling(the_path.getFileName() + ".tmp");
+    final BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8);
+    try
+    {
+      writer.write(MAGIC);
+      writer.newLine();
+      writer.write(my_generation + " " + my_population.length + " " + my_games + " " +
+                   my_max_pieces + " " + my_seed);
+      writer.newLine();
+      for (double[] weights : my_population)
+      {
+        final StringBuilder line = new StringBuilder();
+        for (double weight : weights)
+        {
+          line.append(weight).append(' ');
+        }
+        writer.write(line.toString().trim());
+        writer.newLine();
+      }
+    }
+    finally
+    {
+      writer.close();
+    }
+    Files.move(temporary, the_path, StandardCopyOption.REPLACE_EXISTING,
+               StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * @return How many generations have been played?
+   */
+  public int generation()
+  {
+    return my_generation;
+  }
+
+  /**
+   * @return the weights of the fittest vector of the last generation played,
+   *         or of the first vector if none has been played.
+   */
+  public/* @ non_null @ */double[] best()
+  {
+    int best = 0;
+    for (int i = 1; i < my_population.length; i++)
+    {
+      if (my_fitness[best] < my_fitness[i])
+      {
+        best = i;
+      }
+    }
+    return my_population[best].clone();
+  }
+
+  /**
+   * @return How many lines did the fittest vector of the last generation
+   *         played remove, or -1 if none has been played?
+   */
+  public long bestFitness()
+  {
+    long result = -1;
+    for (long fitness : my_fitness)
+    {
+      result = Math.max(result, fitness);
+    }
+    return result;
+  }
+
+  /**
+   * Plays one generation: every weight vector plays this generation's games
+   * on the_pool, and then the least fit are replaced.
+   *
+   * @param the_pool The pool to play the games on.
+   * @return the totals of all the games played, with the time they took.
+   */
+  public SimulationReport step(final/* @ non_null @ */ForkJoinPool the_pool)
+  {
+    final long start = System.nanoTime();
+    final SimulationReport[] reports = new SimulationReport[my_population.length * my_games];
+    final Simulator[] simulators = new Simulator[my_population.length];
+    for (int i = 0; i < simulators.length; i++)
+    {
+      simulators[i] =
+          new Simulator(Simulator.DEFAULT_HEIGHT, Simulator.DEFAULT_WIDTH,
+                        new SearchPlayer(new LinearEvaluator(my_population[i]), false,
+                                         SearchPlayer.DEFAULT_BUDGET, null));
+    }
+    the_pool.invoke(new GamesTask(simulators, my_seed + (long) my_generation * my_games,
+                                  reports, 0, reports.length));
+    SimulationReport result = new SimulationReport(0, 0, 0, 0, 0);
+    for (int i = 0; i < my_population.length; i++)
+    {
+      my_fitness[i] = 0;
+      for (int game = 0; game < my_games; game++)
+      {
+        final SimulationReport report = reports[i * my_games + game];
+        my_fitness[i] = my_fitness[i] + report.lines();
+        result = result.combine(report);
+      }
+    }
+    breed(random(my_generation));
+    my_generation = my_generation + 1;
+    return result.withElapsedNanos(System.nanoTime() - start);
+  }
+
+  /**
+   * Runs generations, printing the progress and saving a checkpoint after
+   * each one. The arguments are the checkpoint file, which is resumed from if
+   * it exists, and optionally the number of generations to run.
+   *
+   * @param the_args The arguments.
+   * @throws IOException if the checkpoint cannot be read or written.
+   */
+  public static void main(final String[] the_args) throws IOException
+  {
+    System.setProperty("java.awt.headless", "true");
+    if (the_args.length < 1)
+    {
+      System.err.println("usage: WeightTuner checkpoint [generations]");
+    }
+    else
+    {
+      final Path path = Paths.get(the_args[0]);
+      int generations = DEFAULT_GENERATIONS;
+      if (1 < the_args.length)
+      {
+        generations = Integer.parseInt(the_args[1]);
+      }
+      WeightTuner tuner =
+          new WeightTuner(DEFAULT_POPULATION, DEFAULT_GAMES, DEFAULT_MAX_PIECES, 0);
+      if (Files.exists(path))
+      {
+        tuner = load(path);
+        System.out.println("resuming at generation " + tuner.generation());
+      }
+      final ForkJoinPool pool = ForkJoinPool.commonPool();
+      for (int i = 0; i < generations; i++)
+      {
+        final SimulationReport report = tuner.step(pool);
+        tuner.save(path);
+        System.out.printf("generation %d: best %d lines %s%n  %s%n", tuner.generation(),
+                          tuner.bestFitness(), Arrays.toString(tuner.best()), report);
+      }
+    }
+  }
+
+  /**
+   * Replaces the least fit weight vectors by children of tournament winners.
+   *
+   * @param the_random The random numbers of this generation.
+   */
+  private void breed(final Random the_random)
+  {
+    final int size = my_population.length;
+    final int replaced = Math.max(1, (int) (size * REPLACED));
+    final double[][] children = new double[replaced][];
+    for (int i = 0; i < replaced; i++)
+    {
+      final int first = tournament(the_random);
+      int second = tournament(the_random);
+      while (second == first)
+      {
+        second = the_random.nextInt(size);
+      }
+      children[i] = crossover(first, second);
+      if (the_random.nextDouble() < MUTATION_RATE)
+      {
+        final int weight = the_random.nextInt(LinearEvaluator.FEATURES);
+        children[i][weight] =
+            children[i][weight] + (2 * the_random.nextDouble() - 1) * MUTATION_STEP;
+        normalize(children[i]);
+      }
+    }
+    // the children take the places of the least fit, which are at the end of
+    // the ranking
+    final Integer[] ranking = new Integer[size];
+    for (int i = 0; i < size; i++)
+    {
+      ranking[i] = i;
+    }
+    Arrays.sort(ranking, new Comparator<Integer>()
+    {
+      public int compare(final Integer the_first, final Integer the_second)
+      {
+        return Long.compare(my_fitness[the_second], my_fitness[the_first]);
+      }
+    });
+    for (int i = 0; i < replaced; i++)
+    {
+      final int place = ranking[size - 1 - i];
+      my_population[place] = children[i];
+      my_fitness[place] = -1;
+    }
+  }
+
+  /**
+   * @param the_random The random numbers of this generation.
+   * @return the index of the fittest of a random sample of the population.
+   */
+  private int tournament(final Random the_random)
+  {
+    final int entrants = Math.max(2, (int) (my_population.length * TOURNAMENT));
+    int result = the_random.nextInt(my_population.length);
+    for (int i = 1; i < entrants; i++)
+    {
+      final int entrant = the_random.nextInt(my_population.length);
+      if (my_fitness[result] < my_fitness[entrant])
+      {
+        result = entrant;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param the_first The index of a parent.
+   * @param the_second The index of the other parent.
+   * @return the average of the weights of the parents, weighted by their
+   *         fitness, at unit length.
+   */
+  private double[] crossover(final int the_first, final int the_second)
+  {
+    // one line each keeps two parents that removed none from dividing by zero
+    final double first = my_fitness[the_first] + 1;
+    final double second = my_fitness[the_second] + 1;
+    final double[] result = new double[LinearEvaluator.FEATURES];
+    for (int i = 0; i < result.length; i++)
+    {
+      result[i] = first * my_population[the_first][i] + second * my_population[the_second][i];
+    }
+    normalize(result);
+    return result;
+  }
+
+  /**
+   * @param the_generation A generation number, or -1 for the first
+   *          population.
+   * @return the random numbers of generation the_generation.
+   */
+  private Random random(final int the_generation)
+  {
+    return new Random(my_seed ^ (the_generation + 1) * GENERATION_GAMMA);
+  }
+
+  /**
+   * Scales the_weights to unit length, unless they are all zero.
+   *
+   * @param the_weights The weights.
+   */
+  private static void normalize(final double[] the_weights)
+  {
+    double sum = 0;
+    for (double weight : the_weights)
+    {
+      sum = sum + weight * weight;
+    }
+    if (0 < sum)
+    {
+      final double length = Math.sqrt(sum);
+      for (int i = 0; i < the_weights.length; i++)
+      {
+        the_weights[i] = the_weights[i] / length;
+      }
+    }
+  }
+
+  /**
+   * Plays a range of the games of a generation, game g of weight vector i
+   * being number i * my_games + g, splitting the range down to single games.
+   */
+  @SuppressWarnings("serial")
+  private class GamesTask extends RecursiveAction
+  {
+    /**
+     * The simulators, one per weight vector.
+     */
+    private final Simulator[] my_simulators;
+
+    /**
+     * The seed of the first game of every weight vector.
+     */
+    private final long my_first_seed;
+
+    /**
+     * The reports, by game number.
+     */
+    private final SimulationReport[] my_reports;
+
+    /**
+     * The first game of the range.
+     */
+    private final int my_low;
+
+    /**
+     * The game after the last of the range.
+     */
+    private final int my_high;
+
+    /**
+     * Constructs a new task.
+     *
+     * @param the_simulators The simulators, one per weight vector.
+     * @param the_first_seed The seed of the first game of every weight vector.
+     * @param the_reports The reports, by game number.
+     * @param the_low The first game of the range.
+     * @param the_high The game after the last of the range.
+     */
+    GamesTask(final Simulator[] the_simulators, final long the_first_seed,
+              final SimulationReport[] the_reports, final int the_low, final int the_high)
+    {
+      super();
+      my_simulators = the_simulators;
+      my_first_seed = the_first_seed;
+      my_reports = the_reports;
+      my_low = the_low;
+      my_high = the_high;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void compute()
+    {
+      if (my_high - my_low <= 1)
+      {
+        for (int i = my_low; i < my_high; i++)
+        {
+          my_reports[i] =
+              my_simulators[i / my_games].play(my_first_seed + i % my_games, my_max_pieces);
+        }
+      }
+      else
+      {
+        final int middle = (my_low + my_high) >>> 1;
+        invokeAll(new GamesTask(my_simulators, my_first_seed, my_reports, my_low, middle),
+                  new GamesTask(my_simulators, my_first_seed, my_reports, middle, my_high));
+      }
+    }
+  }
+}
@@ -15,15 +15,19 @@
 package tetris.entities;
 
 import java.awt.Color;
-import java.util.LinkedList;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Observable;
 
+import tetris.entities.piecegen.BagGenerator;
 import tetris.entities.piecegen.PieceGenerator;
 import tetris.entities.piecegen.RandomGenerator;
 import tetris.entities.piecegen.SequenceGenerator;
 import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+import tetris.events.BoardEvents;
+import tetris.events.EventBus;
 
 /* @ model import java.lang.reflect.Array; @ */
 
@@ -33,7 +37,7 @@ import tetris.entities.pieces.Piece;
  * @author Daniel M. Zimmerman (dmz@acm.org)
  * @version 17 November 2008
  */
-public class Board extends Observable
+public class Board extends Observable implements BoardView
 {
   // Subsumes ROW
 
@@ -72,6 +76,18 @@ public class Board extends Observable
    */
   public static final char CURRENT_PIECE_BLOCK_CHAR = '+';
 
+  /**
+   * The number of dealt pieces remembered, so that a snapshot can be restored
+   * until this many pieces have been dealt after it was taken.
+   */
+  public static final int DEALT_HISTORY = 256;
+
+  /**
+   * The number of columns the row masks hold; collisions on a wider board
+   * are tested block by block.
+   */
+  public static final int MASK_WIDTH = Integer.SIZE;
+
   // Instance Fields
 
   /**
@@ -101,17 +117,26 @@ public class Board extends Observable
    */
 
   /**
-   * The list of rows.
+   * The rows, in no particular order; a row array stays in the same slot for
+   * the life of the board and is emptied and reused when its row is cleared.
+   */
+  private final/* @ non_null @ */Color[][] my_rows;
+
+  /**
+   * The slot in my_rows of the row at each position, so that clearing rows
+   * moves slot numbers rather than rows.
    */
-  private final/* @ non_null @ */List<Color[]> my_row_list;
+  private final/* @ non_null @ */int[] my_row_index;
 
   /*
    * @ in row_list; public model non_null List row_list; in row_list; public
    * invariant row_list.size() == height + ROWS_ABOVE_BOARD; public invariant
    * (\forall int i; 0 <= i && i < row_list.size(); row_list.get(i) != null);
-   * private represents row_list = my_row_list; private invariant
-   * my_row_list.size() == height + ROWS_ABOVE_BOARD; private invariant (\forall
-   * int i; 0 <= i && i < row_list.size(); row_list.get(i) != null); @
+   * private represents row_list = (\lbl rows (\forall int i; 0 <= i && i <
+   * my_row_index.length; row_list.get(i) == my_rows[my_row_index[i]])); private
+   * invariant my_row_index.length == height + ROWS_ABOVE_BOARD; private
+   * invariant (\forall int i; 0 <= i && i < my_rows.length; my_rows[i] !=
+   * null); @
    */
 
   /**
@@ -126,9 +151,17 @@ public class Board extends Observable
    */
 
   /**
-   * The current piece.
+   * The current piece, or null if it has moved since it was last asked for;
+   * the packed state is authoritative.
+   */
+  private/* @ nullable @ */Piece my_current_piece;
+
+  /**
+   * The packed state of the current piece.
+   * 
+   * @see PieceStates
    */
-  private/* @ non_null @ */Piece my_current_piece;
+  private int my_current_state;
 
   // @constraint All blocks in the current and next pieces have valid positions.
   /*
@@ -202,6 +235,126 @@ public class Board extends Observable
    */
   private boolean my_full_flag;
 
+  /**
+   * The height of each column: one more than the y-coordinate of its highest
+   * frozen block, or 0 if it has none.
+   */
+  private final int[] my_column_heights;
+
+  /**
+   * The number of frozen blocks in each row, indexed by slot like my_rows.
+   */
+  private final int[] my_row_fills;
+
+  /**
+   * The mask of the frozen blocks in each row, indexed by slot like my_rows;
+   * bit x is set if the block in column x is frozen. Only the first
+   * MASK_WIDTH columns are included.
+   */
+  private final int[] my_row_masks;
+
+  /**
+   * Scratch space for the slots of the rows being cleared.
+   */
+  private final int[] my_cleared_slots;
+
+  /**
+   * The sum of the column heights.
+   */
+  private int my_aggregate_height;
+
+  /**
+   * The total number of frozen blocks.
+   */
+  private int my_frozen_blocks;
+
+  /**
+   * The sum of the height differences between adjacent columns.
+   */
+  private int my_bumpiness;
+
+  /**
+   * The Zobrist hash of the frozen blocks.
+   */
+  private long my_hash;
+
+  /**
+   * The version of the board state, increased each time the frozen blocks or
+   * the current piece change.
+   */
+  private long my_version;
+
+  /**
+   * The packed state of the projection of the current piece, if
+   * my_projection_version is my_version.
+   */
+  private int my_projection_state;
+
+  /**
+   * The version of the board state my_projection_state was computed for, or -1
+   * if it has not been computed.
+   */
+  private long my_projection_version;
+
+  /**
+   * The projection of the current piece, if my_projection_state is current and
+   * somebody has asked for it.
+   */
+  private/* @ nullable @ */Piece my_projection;
+
+  /**
+   * The last DEALT_HISTORY pieces taken from the piece generator, the piece
+   * taken nth at index n % DEALT_HISTORY, so that restoring a snapshot can
+   * deal them again.
+   */
+  private final/* @ non_null @ */Piece[] my_dealt;
+
+  /**
+   * The number of pieces taken from the piece generator.
+   */
+  private long my_dealt_count;
+
+  /**
+   * The bus the board publishes its events to instead of notifying its
+   * observers, or null.
+   */
+  private/* @ nullable @ */EventBus my_events;
+
+  /**
+   * The mask of the positions of the rows removed by the last freeze, bit y
+   * for row y.
+   */
+  private int my_last_cleared_rows;
+
+  /**
+   * The last change, cell by cell, overwritten by each change.
+   */
+  private final/* @ non_null @ */BoardDelta my_delta = new BoardDelta();
+
+  /**
+   * Whether each change is published through my_sequence, so that other
+   * threads can read the board with read().
+   */
+  private boolean my_publishing;
+
+  /**
+   * The sequence number of the board state: odd while a change is being
+   * made, and increased by 2 by each change, if my_publishing.
+   */
+  private volatile long my_sequence;
+
+  /**
+   * The number of pieces dealt to the board; when less than my_dealt_count,
+   * the next pieces come from my_dealt rather than the generator.
+   */
+  private long my_used_count;
+
+  /*
+   * @ private invariant my_aggregate_height - my_frozen_blocks == (\num_of int
+   * x, y; 0 <= x && x < my_width && 0 <= y && y < my_column_heights[x];
+   * rowAt(y)[x] == null); @
+   */
+
   // @constraint Once the board is full, it remains full and no
   // commands change the board state.
   /*
@@ -244,7 +397,13 @@ public class Board extends Observable
     my_height = the_height;
     my_width = the_width;
     my_piece_generator = new RandomGenerator(the_seed, new Point(the_width / 2, the_height));
-    my_row_list = new LinkedList<Color[]>();
+    my_rows = new Color[the_height + ROWS_ABOVE_BOARD][the_width];
+    my_row_index = new int[the_height + ROWS_ABOVE_BOARD];
+    my_column_heights = new int[the_width];
+    my_row_fills = new int[the_height + ROWS_ABOVE_BOARD];
+    my_row_masks = new int[the_height + ROWS_ABOVE_BOARD];
+    my_cleared_slots = new int[the_height + ROWS_ABOVE_BOARD];
+    my_dealt = new Piece[DEALT_HISTORY];
     initialize();
   }
 
@@ -279,15 +438,64 @@ public class Board extends Observable
    * @param the_height The height.
    * @param the_width The width.
    * @param the_sequence The sequence.
+   * @throws IllegalArgumentException if a piece of the_sequence is not one of
+   *           the seven standard pieces.
    */
   public Board(final int the_height, final int the_width,
                final/* @ non_null @ */List<Piece> the_sequence)
   {
     super();
+    for (final Piece piece : the_sequence)
+    {
+      // the board plays packed states, which only the standard pieces have
+      PieceStates.typeOf(piece);
+    }
     my_height = the_height;
     my_width = the_width;
     my_piece_generator = new SequenceGenerator(the_sequence);
-    my_row_list = new LinkedList<Color[]>();
+    my_rows = new Color[the_height + ROWS_ABOVE_BOARD][the_width];
+    my_row_index = new int[the_height + ROWS_ABOVE_BOARD];
+    my_column_heights = new int[the_width];
+    my_row_fills = new int[the_height + ROWS_ABOVE_BOARD];
+    my_row_masks = new int[the_height + ROWS_ABOVE_BOARD];
+    my_cleared_slots = new int[the_height + ROWS_ABOVE_BOARD];
+    my_dealt = new Piece[DEALT_HISTORY];
+    initialize();
+  }
+
+  // @ requires 0 < the_height;
+  // @ requires 0 < the_width;
+  // @ ensures height == the_height;
+  // @ ensures width == the_width;
+  // @ ensures piece_generator == the_generator;
+  // @ ensures last_lines_removed == 0;
+  // @ ensures last_blocks_placed == 0;
+  // @ ensures changed;
+  // @ ensures !full;
+  /**
+   * Constructs a new board with the specified dimensions and the specified
+   * piece generator, which should place its pieces at (the_width / 2,
+   * the_height). The generator must deal only the seven standard pieces;
+   * the move that deals any other piece throws IllegalArgumentException.
+   * 
+   * @param the_height The height.
+   * @param the_width The width.
+   * @param the_generator The piece generator.
+   */
+  public Board(final int the_height, final int the_width,
+               final/* @ non_null @ */PieceGenerator the_generator)
+  {
+    super();
+    my_height = the_height;
+    my_width = the_width;
+    my_piece_generator = the_generator;
+    my_rows = new Color[the_height + ROWS_ABOVE_BOARD][the_width];
+    my_row_index = new int[the_height + ROWS_ABOVE_BOARD];
+    my_column_heights = new int[the_width];
+    my_row_fills = new int[the_height + ROWS_ABOVE_BOARD];
+    my_row_masks = new int[the_height + ROWS_ABOVE_BOARD];
+    my_cleared_slots = new int[the_height + ROWS_ABOVE_BOARD];
+    my_dealt = new Piece[DEALT_HISTORY];
     initialize();
   }
 
@@ -324,10 +532,7 @@ public class Board extends Observable
    */
   public/* @ pure non_null @ */Color[] rowAt(final int the_y)
   {
-    /* @ assume my_row_list.get(the_y) instanceof Color[]; @ */// no generics
-    Color[] result = (Color[]) my_row_list.get(the_y);
-    result = (Color[]) result.clone();
-    return result;
+    return row(the_y).clone();
   }
 
   // @constraint Valid row positions are between 0 and
@@ -348,13 +553,9 @@ public class Board extends Observable
     boolean result = true;
     for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
     {
-      result = result && !(currentPiece().absolutePosition(i).y() == the_y);
-    }
-    for (int x = 0; x < my_width; x++)
-    {
-      result = result && rowAt(the_y)[x] == null;
+      result = result && PieceStates.blockY(my_current_state, i) != the_y;
     }
-    return result;
+    return result && my_row_fills[my_row_index[the_y]] == 0;
   }
 
   // @constraint Valid row positions are between 0 and
@@ -372,37 +573,7 @@ public class Board extends Observable
    */
   public/* @ pure @ */boolean isRowFull(final int the_y)
   {
-    final Color[] row = rowAt(the_y);
-    for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
-    {
-      final Point block_pos = currentPiece().absolutePosition(i);
-      if (block_pos.y() == the_y)
-      {
-        row[block_pos.x()] = currentPiece().color();
-      }
-    }
-    boolean result = true;
-    for (int x = 0; x < my_width; x++)
-    {
-      result = result && row[x] != null;
-    }
-    return result;
-  }
-
-  /**
-   * @param the_y The row position.
-   * @return Is the row at position the_y, not including the current piece,
-   *         full?
-   */
-  private/* @ pure @ */boolean isFrozenRowFull(final int the_y)
-  {
-    final Color[] row = rowAt(the_y);
-    boolean result = true;
-    for (int x = 0; x < my_width; x++)
-    {
-      result = result && row[x] != null;
-    }
-    return result;
+    return isRowFullWith(my_current_state, the_y);
   }
 
   // @constraint Valid row positions are between 0 and
@@ -421,25 +592,7 @@ public class Board extends Observable
    */
   public/* @ pure @ */boolean isRowFullUnderProjection(final int the_y)
   {
-    boolean result = true;
-    final Piece projection = projection();
-    for (int i = 0; i < my_width; i++)
-    {
-      if (rowAt(the_y)[i] == null)
-      {
-        boolean occupied = false;
-        for (int j = 0; j < Piece.NUMBER_OF_BLOCKS; j++)
-        {
-          final Point block_pos = projection.absolutePosition(i);
-          if (block_pos.x() == i && block_pos.y() == the_y)
-          {
-            occupied = true;
-          }
-        }
-        result = result && occupied;
-      }
-    }
-    return result;
+    return isRowFullWith(projectionState(), the_y);
   }
 
   // @constraint Valid block positions are between (0, 0) and
@@ -463,18 +616,24 @@ public class Board extends Observable
    */
   public/* @ pure nullable @ */Color color(final Point the_point)
   {
-    Color result = rowAt(the_point.y())[the_point.x()];
-    if (result == null)
+    return color(the_point.x(), the_point.y());
+  }
+
+  // @ requires isWithinBoard(new Point(the_x, the_y));
+  /**
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate.
+   * @return What color is the block at position (the_x, the_y) (including
+   *         blocks in the current piece)? Unlike color(Point), this allocates
+   *         nothing, so it can be called for every cell of every frame.
+   */
+  public/* @ pure nullable @ */Color color(final int the_x, final int the_y)
+  {
+    Color result = row(the_y)[the_x];
+    if (result == null && covers(my_current_state, the_x, the_y))
     {
-      // see if the current piece has a block there
-      for (int i = 0; i < Piece.NUMBER_OF_BLOCKS && (result == null); i++)
-      {
-        final Point p = currentPiece().absolutePosition(i);
-        if (p.equals(the_point))
-        {
-          result = currentPiece().color();
-        }
-      }
+      // the current piece has a block there
+      result = PieceStates.color(PieceStates.type(my_current_state));
     }
     return result;
   }
@@ -497,12 +656,145 @@ public class Board extends Observable
    */
   public/* @ pure @ */boolean collides(final/* @ non_null @ */Piece the_piece)
   {
-    boolean result = false;
-    for (int i = 0; !result && i < Piece.NUMBER_OF_BLOCKS; i++)
+    return collides(the_piece.state());
+  }
+
+  /**
+   * @param the_state The packed state of a piece.
+   * @return Does the piece in the_state collide with the already-frozen pieces
+   *         or the boundaries of the board?
+   * @see PieceStates
+   */
+  public/* @ pure @ */boolean collides(final int the_state)
+  {
+    final int shape = PieceStates.shape(the_state);
+    final int x = PieceStates.x(the_state);
+    final int y = PieceStates.y(the_state);
+    boolean result =
+        x + PieceStates.minX(shape) < 0 || my_width <= x + PieceStates.maxX(shape) ||
+            y + PieceStates.minY(shape) < 0 ||
+            my_row_index.length <= y + PieceStates.maxY(shape);
+    if (my_width <= MASK_WIDTH)
+    {
+      // one test per row of the piece against the row masks
+      for (int dy = PieceStates.minY(shape); !result && dy <= PieceStates.maxY(shape); dy++)
+      {
+        result = (my_row_masks[my_row_index[y + dy]] &
+                  shift(PieceStates.rowMask(shape, dy), x)) != 0;
+      }
+    }
+    for (int i = 0; !result && MASK_WIDTH < my_width && i < Piece.NUMBER_OF_BLOCKS; i++)
+    {
+      result = row(PieceStates.blockY(the_state, i))[PieceStates.blockX(the_state, i)] != null;
+    }
+    return result;
+  }
+
+  // Column and row statistics
+
+  // @ requires 0 <= the_x && the_x < width;
+  /*
+   * @ ensures (\forall int y; \result <= y && y < height + ROWS_ABOVE_BOARD;
+   * rowAt(y)[the_x] == null) && (\result == 0 || rowAt(\result - 1)[the_x] !=
+   * null); @
+   */
+  /**
+   * @param the_x The column position.
+   * @return How high is the column at position the_x, that is, one more than
+   *         the y-coordinate of its highest frozen block (or 0 if it is empty)?
+   */
+  public/* @ pure @ */int columnHeight(final int the_x)
+  {
+    return my_column_heights[the_x];
+  }
+
+  // @ requires 0 <= the_y && the_y < height + ROWS_ABOVE_BOARD;
+  /*
+   * @ ensures \result == (\num_of int x; 0 <= x && x < width; rowAt(the_y)[x]
+   * != null); @
+   */
+  /**
+   * @param the_y The row position.
+   * @return How many frozen blocks are in the row at position the_y?
+   */
+  public/* @ pure @ */int rowFill(final int the_y)
+  {
+    return my_row_fills[my_row_index[the_y]];
+  }
+
+  // @ requires 0 <= the_y && the_y < height + ROWS_ABOVE_BOARD;
+  /**
+   * @param the_y The row position.
+   * @return What is the mask of frozen blocks in the row at position the_y? Bit
+   *         x is set if the block in column x is frozen; only the first
+   *         MASK_WIDTH columns are included.
+   */
+  public/* @ pure @ */int rowMask(final int the_y)
+  {
+    return my_row_masks[my_row_index[the_y]];
+  }
+
+  /**
+   * @return What is the sum of the column heights?
+   */
+  public/* @ pure @ */int aggregateHeight()
+  {
+    return my_aggregate_height;
+  }
+
+  /**
+   * @return How many holes are there, that is, empty blocks below the top of
+   *         their column?
+   */
+  public/* @ pure @ */int holeCount()
+  {
+    return my_aggregate_height - my_frozen_blocks;
+  }
+
+  /**
+   * @return What is the sum of the absolute height differences between
+   *         adjacent columns?
+   */
+  public/* @ pure @ */int bumpiness()
+  {
+    return my_bumpiness;
+  }
+
+  /**
+   * @return What is the Zobrist hash of the frozen blocks? Boards with the
+   *         same frozen blocks have the same hash, and so does a Grid loaded
+   *         from them.
+   * @see Zobrist
+   */
+  public/* @ pure @ */long hash()
+  {
+    return my_hash;
+  }
+
+  // @ requires 0 <= the_x && the_x < width;
+  /**
+   * @param the_x The column position.
+   * @return How deep is the well at column the_x, that is, how far below the
+   *         lower of its neighbors (a wall counts as infinitely high) is it, or
+   *         0 if it is not below both?
+   */
+  public/* @ pure @ */int wellDepth(final int the_x)
+  {
+    int left = Integer.MAX_VALUE;
+    if (0 < the_x)
+    {
+      left = my_column_heights[the_x - 1];
+    }
+    int right = Integer.MAX_VALUE;
+    if (the_x < my_width - 1)
+    {
+      right = my_column_heights[the_x + 1];
+    }
+    final int depth = Math.min(left, right) - my_column_heights[the_x];
+    int result = 0;
+    if (0 < depth && depth < Integer.MAX_VALUE - my_height)
     {
-      final Point block_pos = the_piece.absolutePosition(i);
-      result = result || !isWithinBoard(block_pos);
-      result = result || rowAt(block_pos.y())[block_pos.x()] != null;
+      result = depth;
     }
     return result;
   }
@@ -540,9 +832,23 @@ public class Board extends Observable
   // @ ensures \result == current_piece;
   public/* @ pure non_null @ */Piece currentPiece()
   {
+    if (my_current_piece == null)
+    {
+      my_current_piece = PieceStates.toPiece(my_current_state);
+    }
     return my_current_piece;
   }
 
+  /**
+   * @return What is the packed state of the current piece?
+   * @see PieceStates
+   */
+  // @ ensures \result == current_piece.state();
+  public/* @ pure @ */int currentState()
+  {
+    return my_current_state;
+  }
+
   /*
    * @ ensures (\forall int i; 0 <= i && i < Piece.NUMBER_OF_BLOCKS;
    * isWithinBoard(\result.absolutePosition(i))); @
@@ -552,12 +858,83 @@ public class Board extends Observable
    */
   public/* @ pure non_null @ */Piece projection()
   {
-    Piece projection = my_current_piece;
-    Piece next_move = projection.moveDown();
+    final int projection = projectionState();
+    if (my_projection == null)
+    {
+      my_projection = PieceStates.toPiece(projection);
+    }
+    return my_projection;
+  }
+
+  /**
+   * @return What is the packed state of the projection of the current piece?
+   *         It is computed once per version and remembered until the next
+   *         change.
+   * @see PieceStates
+   */
+  // @ ensures \result == projection().state();
+  public/* @ pure @ */int projectionState()
+  {
+    if (my_projection_version != my_version)
+    {
+      my_projection_state = computeProjection();
+      my_projection = null;
+      my_projection_version = my_version;
+    }
+    return my_projection_state;
+  }
+
+  /**
+   * @return What is the version of the board state? It increases each time the
+   *         frozen blocks or the current piece change, so anything derived from
+   *         the board (such as a drawn projection) is still valid as long as
+   *         the version is the same.
+   */
+  // @ ensures \old(version()) <= \result;
+  public/* @ pure @ */long version()
+  {
+    return my_version;
+  }
+
+  /**
+   * @return What did the last change do, cell by cell? The delta is the
+   *         board's own and is overwritten by the next change, so it is to be
+   *         read by the thread that changes the board, between changes; it
+   *         can be copied to keep it. A change that is no change, such as a
+   *         move into a wall, leaves it as it was.
+   * @see BoardDelta
+   */
+  public/* @ pure non_null @ */BoardDelta lastDelta()
+  {
+    return my_delta;
+  }
+
+  /**
+   * @return What is the packed state of the projection of the current piece,
+   *         computed from scratch?
+   */
+  private/* @ pure @ */int computeProjection()
+  {
+    // every block above its column's height is empty, so unless the piece is
+    // tucked under an overhang it lands where its lowest block in some column
+    // rests on that column
+    final int shape = PieceStates.shape(my_current_state);
+    final int x = PieceStates.x(my_current_state);
+    int landing = Integer.MIN_VALUE;
+    for (int dx = PieceStates.minX(shape); dx <= PieceStates.maxX(shape); dx++)
+    {
+      landing = Math.max(landing, my_column_heights[x + dx] - PieceStates.bottom(shape, dx));
+    }
+    int projection = my_current_state;
+    if (landing <= PieceStates.y(my_current_state))
+    {
+      projection = PieceStates.moveToRow(my_current_state, landing);
+    }
+    int next_move = PieceStates.moveDown(projection);
     while (!collides(next_move))
     {
       projection = next_move;
-      next_move = projection.moveDown();
+      next_move = PieceStates.moveDown(projection);
     }
     return projection;
   }
@@ -571,6 +948,27 @@ public class Board extends Observable
     return my_next_piece;
   }
 
+  /**
+   * @return What types can the piece after the next piece have, as a type
+   *         mask? It has one type if that piece was dealt before a snapshot
+   *         was restored, the types left in the bag if the piece generator is
+   *         a BagGenerator, and every type otherwise.
+   * @see PieceStates#ALL_TYPES
+   */
+  public/* @ pure @ */int upcomingTypes()
+  {
+    int result = PieceStates.ALL_TYPES;
+    if (my_used_count < my_dealt_count)
+    {
+      result = 1 << PieceStates.typeOf(my_dealt[(int) (my_used_count % DEALT_HISTORY)]);
+    }
+    else if (my_piece_generator instanceof BagGenerator)
+    {
+      result = ((BagGenerator) my_piece_generator).remainingTypes();
+    }
+    return result;
+  }
+
   /**
    * @return Is the board full?
    */
@@ -603,17 +1001,23 @@ public class Board extends Observable
    */
   public void moveLeft()
   {
+    beginWrite();
     my_last_lines_removed = 0;
     my_last_blocks_placed = 0;
     my_changed_flag = false;
-    final Piece moved = currentPiece().moveLeft();
+    final int from = my_current_state;
+    final int moved = PieceStates.moveLeft(from);
     if (!collides(moved))
     {
-      my_current_piece = moved;
+      my_current_state = moved;
+      my_current_piece = null;
+      my_version = my_version + 1;
       my_changed_flag = true;
-      setChanged();
+      recordMove(from);
+      publish(BoardEvents.MOVED, from, moved);
     }
-    notifyObservers();
+    endWrite();
+    announce();
   }
 
   // @constraint A rotate, move left, or move right that would cause the
@@ -637,17 +1041,23 @@ public class Board extends Observable
    */
   public void moveRight()
   {
+    beginWrite();
     my_last_lines_removed = 0;
     my_last_blocks_placed = 0;
     my_changed_flag = false;
-    final Piece moved = currentPiece().moveRight();
+    final int from = my_current_state;
+    final int moved = PieceStates.moveRight(from);
     if (!collides(moved))
     {
-      my_current_piece = moved;
+      my_current_state = moved;
+      my_current_piece = null;
+      my_version = my_version + 1;
       my_changed_flag = true;
-      setChanged();
+      recordMove(from);
+      publish(BoardEvents.MOVED, from, moved);
     }
-    notifyObservers();
+    endWrite();
+    announce();
   }
 
   /*
@@ -690,47 +1100,90 @@ public class Board extends Observable
    */
   public void moveDown()
   {
-    final Piece moved = currentPiece().moveDown();
+    beginWrite();
+    lower(my_current_state);
+    endWrite();
+    announce();
+  }
+
+  /**
+   * Moves the current piece down a row, or freezes it if it cannot move, as
+   * one change; the writing of the change must have begun.
+   * 
+   * @param the_from The packed state of the current piece when the change
+   *          began, which drop() has since moved to its projection.
+   */
+  private/* @ helper @ */void lower(final int the_from)
+  {
+    final int from = my_current_state;
+    final boolean was_full = my_full_flag;
+    final int moved = PieceStates.moveDown(from);
     my_last_lines_removed = 0;
+    my_delta.begin(my_version, the_from);
     if (collides(moved))
     {
       // freeze the current piece
+      final Color color = PieceStates.color(PieceStates.type(my_current_state));
       for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
       {
-        final Point block_pos = currentPiece().absolutePosition(i);
-        ((Color[]) my_row_list.get(block_pos.y()))[block_pos.x()] = currentPiece().color();
+        final int x = PieceStates.blockX(my_current_state, i);
+        final int y = PieceStates.blockY(my_current_state, i);
+        freezeBlock(x, y, color);
+        my_delta.addCell(x, y, color);
       }
-
-      // clear all full rows
-      clearFullRows();
-
-      // check for end of game
-      for (int y = height(); !my_full_flag && y < my_row_list.size(); y++)
+      my_delta.markLocked();
+
+      // clear all full rows; the cleared rows are emptied and reused as the
+      // empty rows at the top
+      clearFullRows(PieceStates.y(my_current_state) +
+                    PieceStates.minY(PieceStates.shape(my_current_state)),
+                    PieceStates.y(my_current_state) +
+                    PieceStates.maxY(PieceStates.shape(my_current_state)));
+
+      // check for end of game, below the reused rows
+      for (int y = height(); !my_full_flag &&
+                             y < my_row_index.length - my_last_lines_removed; y++)
       {
         my_full_flag = !isRowEmpty(y);
       }
 
-      // add empty rows at the top
-      for (int i = 0; i < my_last_lines_removed; i++)
-      {
-        my_row_list.add(new Color[my_width]);
-      }
-
       // replace the current piece with the next piece, and adjust
       // my_last_blocks_placed
       my_current_piece = my_next_piece;
-      my_next_piece = my_piece_generator.next();
+      my_current_state = my_next_piece.state();
+      my_next_piece = deal();
       my_last_blocks_placed = Piece.NUMBER_OF_BLOCKS;
     }
     else
     {
       // we actually just move the piece down if it doesn't collide
-      my_current_piece = moved;
+      my_current_state = moved;
+      my_current_piece = null;
       my_last_blocks_placed = 0;
     }
+    my_version = my_version + 1;
     my_changed_flag = true;
-    setChanged();
-    notifyObservers();
+    my_delta.end(my_version, my_current_state, my_full_flag);
+    if (my_last_blocks_placed == 0)
+    {
+      publish(BoardEvents.MOVED, from, my_current_state);
+    }
+    else
+    {
+      if (the_from != from)
+      {
+        publish(BoardEvents.MOVED, the_from, from);
+      }
+      publish(BoardEvents.LOCKED, from, my_current_state);
+      if (0 < my_last_lines_removed)
+      {
+        publish(BoardEvents.LINES_CLEARED, my_last_lines_removed, my_last_cleared_rows);
+      }
+      if (my_full_flag && !was_full)
+      {
+        publish(BoardEvents.GAME_OVER, from, 0);
+      }
+    }
   }
 
   // @constraint A rotate, move left, or move right that would cause the
@@ -754,17 +1207,23 @@ public class Board extends Observable
    */
   public void rotateClockwise()
   {
+    beginWrite();
     my_last_lines_removed = 0;
     my_last_blocks_placed = 0;
     my_changed_flag = false;
-    final Piece moved = currentPiece().rotateClockwise();
+    final int from = my_current_state;
+    final int moved = PieceStates.rotateClockwise(from);
     if (!collides(moved))
     {
-      my_current_piece = moved;
+      my_current_state = moved;
+      my_current_piece = null;
+      my_version = my_version + 1;
       my_changed_flag = true;
-      setChanged();
+      recordMove(from);
+      publish(BoardEvents.ROTATED, from, moved);
     }
-    notifyObservers();
+    endWrite();
+    announce();
   }
 
   // @constraint A rotate, move left, or move right that would cause the
@@ -790,17 +1249,23 @@ public class Board extends Observable
    */
   public void rotateCounterclockwise()
   {
+    beginWrite();
     my_last_lines_removed = 0;
     my_last_blocks_placed = 0;
     my_changed_flag = false;
-    final Piece moved = currentPiece().rotateCounterclockwise();
+    final int from = my_current_state;
+    final int moved = PieceStates.rotateCounterclockwise(from);
     if (!collides(moved))
     {
-      my_current_piece = moved;
+      my_current_state = moved;
+      my_current_piece = null;
+      my_version = my_version + 1;
       my_changed_flag = true;
-      setChanged();
+      recordMove(from);
+      publish(BoardEvents.ROTATED, from, moved);
     }
-    notifyObservers();
+    endWrite();
+    announce();
   }
 
   // @constraint When a row is removed, the position of each row above it is
@@ -837,9 +1302,234 @@ public class Board extends Observable
   public void drop()
   {
     // replace the current piece with its projection to the bottom, then it's
-    // just a normal moveDown.
-    my_current_piece = projection();
-    moveDown();
+    // just a normal moveDown; the two are one change, so a copy of the board
+    // can follow a drop with a single delta
+    final int projection = projectionState();
+    beginWrite();
+    final int from = my_current_state;
+    if (projection != from)
+    {
+      my_current_state = projection;
+      my_current_piece = my_projection;
+    }
+    lower(from);
+    endWrite();
+    announce();
+  }
+
+  /**
+   * @return a new snapshot of the board.
+   * @see #restore(Snapshot)
+   */
+  public/* @ pure non_null @ */Snapshot snapshot()
+  {
+    final Snapshot result = new Snapshot(my_row_index.length, my_width);
+    save(result);
+    return result;
+  }
+
+  /**
+   * Saves the board into the_snapshot, which must have been made by
+   * snapshot() on a board of the same size, so that a searcher can reuse one
+   * snapshot for every move it tries without allocating. Only the rows up to
+   * the tallest column are copied.
+   * 
+   * @param the_snapshot The snapshot to overwrite.
+   */
+  public void save(final/* @ non_null @ */Snapshot the_snapshot)
+  {
+    int rows = 0;
+    for (int x = 0; x < my_width; x++)
+    {
+      rows = Math.max(rows, my_column_heights[x]);
+    }
+    for (int y = 0; y < rows; y++)
+    {
+      System.arraycopy(row(y), 0, the_snapshot.my_cells, y * my_width, my_width);
+      the_snapshot.my_row_fills[y] = my_row_fills[my_row_index[y]];
+      the_snapshot.my_row_masks[y] = my_row_masks[my_row_index[y]];
+    }
+    System.arraycopy(my_column_heights, 0, the_snapshot.my_column_heights, 0, my_width);
+    the_snapshot.my_rows = rows;
+    the_snapshot.my_aggregate_height = my_aggregate_height;
+    the_snapshot.my_frozen_blocks = my_frozen_blocks;
+    the_snapshot.my_bumpiness = my_bumpiness;
+    the_snapshot.my_hash = my_hash;
+    the_snapshot.my_current_state = my_current_state;
+    the_snapshot.my_current_piece = my_current_piece;
+    the_snapshot.my_next_piece = my_next_piece;
+    the_snapshot.my_last_lines_removed = my_last_lines_removed;
+    the_snapshot.my_last_blocks_placed = my_last_blocks_placed;
+    the_snapshot.my_full_flag = my_full_flag;
+    the_snapshot.my_used_count = my_used_count;
+  }
+
+  /**
+   * Puts the board back the way it was when the_snapshot was saved from it.
+   * The pieces dealt since then are dealt again in the same order.
+   * 
+   * @param the_snapshot The snapshot.
+   * @throws IllegalArgumentException if more than DEALT_HISTORY pieces have
+   *           been dealt since the_snapshot was saved, or it is of a board of
+   *           another size.
+   */
+  public void restore(final/* @ non_null @ */Snapshot the_snapshot)
+  {
+    if (the_snapshot.my_cells.length != my_rows.length * my_width ||
+        my_dealt_count - the_snapshot.my_used_count > DEALT_HISTORY ||
+        my_dealt_count < the_snapshot.my_used_count)
+    {
+      throw new IllegalArgumentException("snapshot not of this board or too old");
+    }
+    beginWrite();
+    final int from = my_current_state;
+    final int rows = the_snapshot.my_rows;
+    for (int slot = rows; slot < my_rows.length; slot++)
+    {
+      if (my_row_fills[slot] != 0)
+      {
+        Arrays.fill(my_rows[slot], null);
+        my_row_fills[slot] = 0;
+        my_row_masks[slot] = 0;
+      }
+    }
+    for (int y = 0; y < rows; y++)
+    {
+      System.arraycopy(the_snapshot.my_cells, y * my_width, my_rows[y], 0, my_width);
+      my_row_fills[y] = the_snapshot.my_row_fills[y];
+      my_row_masks[y] = the_snapshot.my_row_masks[y];
+    }
+    for (int y = 0; y < my_row_index.length; y++)
+    {
+      my_row_index[y] = y;
+    }
+    System.arraycopy(the_snapshot.my_column_heights, 0, my_column_heights, 0, my_width);
+    my_aggregate_height = the_snapshot.my_aggregate_height;
+    my_frozen_blocks = the_snapshot.my_frozen_blocks;
+    my_bumpiness = the_snapshot.my_bumpiness;
+    my_hash = the_snapshot.my_hash;
+    my_current_state = the_snapshot.my_current_state;
+    my_current_piece = the_snapshot.my_current_piece;
+    my_next_piece = the_snapshot.my_next_piece;
+    my_last_lines_removed = the_snapshot.my_last_lines_removed;
+    my_last_blocks_placed = the_snapshot.my_last_blocks_placed;
+    my_full_flag = the_snapshot.my_full_flag;
+    my_used_count = the_snapshot.my_used_count;
+    recordReset(from);
+    my_changed_flag = true;
+    publish(BoardEvents.RESET, my_current_state, 0);
+    endWrite();
+    announce();
+  }
+
+  /**
+   * Sends the board's events to the_events rather than notifying its
+   * observers, or goes back to notifying them if the_events is null.
+   * Observable synchronizes on every notification, and observers run on the
+   * playing thread; a bus delivers the events in batches, once flushed, on
+   * threads of the subscribers' own.
+   * 
+   * @param the_events The bus, or null.
+   */
+  public void setEventBus(final/* @ nullable @ */EventBus the_events)
+  {
+    my_events = the_events;
+  }
+
+  /**
+   * @return the bus the board publishes its events to, or null.
+   */
+  public/* @ pure nullable @ */EventBus eventBus()
+  {
+    return my_events;
+  }
+
+  /**
+   * Turns publishing on or off; to be called by the thread that changes the
+   * board, between changes. While publishing is on, each change is
+   * bracketed by a sequence number, so other threads can take consistent
+   * copies of the board with read() while it changes, without ever making
+   * the changing thread wait. Publishing is off until it is turned on, as a
+   * board read only by the thread that changes it needs no sequence.
+   * 
+   * @param the_publishing Whether to publish the changes.
+   */
+  public void setPublishing(final boolean the_publishing)
+  {
+    my_publishing = the_publishing;
+    // publishes the state so far
+    my_sequence = my_sequence + 2;
+  }
+
+  /**
+   * @return Are the changes published for read()?
+   */
+  public/* @ pure @ */boolean isPublishing()
+  {
+    return my_publishing;
+  }
+
+  /**
+   * Copies the board into the_frame, once, without waiting. The copy is
+   * consistent if the board did not change while it was made; a thread
+   * other than the one changing the board may only call this while
+   * publishing is on.
+   * 
+   * @param the_frame The frame to overwrite; it must have been made for a
+   *          board of this size.
+   * @return true if the copy is consistent, false if the board changed and
+   *         the_frame holds nothing useful.
+   * @throws IllegalArgumentException if the_frame is for a board of another
+   *           size.
+   */
+  public boolean tryRead(final/* @ non_null @ */BoardFrame the_frame)
+  {
+    if (the_frame.width() != my_width || the_frame.height() != my_height)
+    {
+      throw new IllegalArgumentException("frame not of this board's size");
+    }
+    final long start = my_sequence;
+    boolean result = (start & 1) == 0;
+    if (result)
+    {
+      // the reads may see a change half made; the sequence number tells
+      for (int y = 0; y < my_height; y++)
+      {
+        System.arraycopy(row(y), 0, the_frame.my_cells, y * my_width, my_width);
+      }
+      the_frame.my_current_state = my_current_state;
+      the_frame.my_next_type = PieceStates.typeOf(my_next_piece);
+      the_frame.my_version = my_version;
+      the_frame.my_last_lines_removed = my_last_lines_removed;
+      the_frame.my_full_flag = my_full_flag;
+      VarHandle.loadLoadFence();
+      result = my_sequence == start;
+    }
+    if (result)
+    {
+      the_frame.my_sequence = start;
+      the_frame.addCurrentPiece();
+    }
+    return result;
+  }
+
+  /**
+   * Copies the board into the_frame, trying again until the copy is
+   * consistent. Only the reader retries; the thread changing the board never
+   * waits for it.
+   * 
+   * @param the_frame The frame to overwrite; it must have been made for a
+   *          board of this size.
+   * @throws IllegalArgumentException if the_frame is for a board of another
+   *           size.
+   * @see #tryRead(BoardFrame)
+   */
+  public void read(final/* @ non_null @ */BoardFrame the_frame)
+  {
+    while (!tryRead(the_frame))
+    {
+      Thread.onSpinWait();
+    }
   }
 
   /**
@@ -896,44 +1586,345 @@ public class Board extends Observable
            the_point.y() < height() + ROWS_ABOVE_BOARD;
   }
 
+  /**
+   * @param the_state The packed state of a piece.
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate.
+   * @return Does the piece in the_state have a block at (the_x, the_y)?
+   */
+  private/* @ pure @ */boolean covers(final int the_state, final int the_x, final int the_y)
+  {
+    boolean result = false;
+    for (int i = 0; !result && i < Piece.NUMBER_OF_BLOCKS; i++)
+    {
+      result = PieceStates.blockX(the_state, i) == the_x &&
+               PieceStates.blockY(the_state, i) == the_y;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_state The packed state of a piece.
+   * @param the_y The row position.
+   * @return Is the row at position the_y, including the piece in the_state,
+   *         full?
+   */
+  private/* @ pure @ */boolean isRowFullWith(final int the_state, final int the_y)
+  {
+    final Color[] row = row(the_y);
+    boolean result = true;
+    for (int x = 0; result && x < my_width; x++)
+    {
+      result = row[x] != null || covers(the_state, x, the_y);
+    }
+    return result;
+  }
+
+  /**
+   * Publishes an event of the change just made to the bus, if there is one.
+   * 
+   * @param the_type The event type.
+   * @param the_a The first payload.
+   * @param the_b The second payload.
+   */
+  private/* @ helper @ */void publish(final int the_type, final int the_a, final int the_b)
+  {
+    if (my_events != null)
+    {
+      my_events.publish(the_type, the_a, the_b, my_version);
+    }
+  }
+
+  /**
+   * Notifies the observers of the change just made, if there is no bus.
+   */
+  private/* @ helper @ */void announce()
+  {
+    if (my_events == null)
+    {
+      if (my_changed_flag)
+      {
+        setChanged();
+      }
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Starts a change: makes the sequence number odd, if publishing, before
+   * anything is written.
+   */
+  private/* @ helper @ */void beginWrite()
+  {
+    if (my_publishing)
+    {
+      my_sequence = my_sequence + 1;
+      // keeps the writes of the change after the odd sequence number
+      VarHandle.storeStoreFence();
+    }
+  }
+
+  /**
+   * Ends a change: makes the sequence number even again, if publishing,
+   * after everything is written.
+   */
+  private/* @ helper @ */void endWrite()
+  {
+    if (my_publishing)
+    {
+      my_sequence = my_sequence + 1;
+    }
+  }
+
   /**
    * Initializes some of the data structures.
    */
   private/* @ helper @ */void initialize()
   {
-    my_current_piece = my_piece_generator.next();
-    my_next_piece = my_piece_generator.next();
+    final int from = my_current_state;
+    my_current_piece = deal();
+    my_current_state = my_current_piece.state();
+    my_next_piece = deal();
+    my_projection_version = -1;
     my_last_lines_removed = 0;
     my_last_blocks_placed = 0;
     my_changed_flag = true;
     my_full_flag = false;
-    my_row_list.clear();
-    for (int i = 0; i < my_height + ROWS_ABOVE_BOARD; i++)
+    Arrays.fill(my_column_heights, 0);
+    Arrays.fill(my_row_fills, 0);
+    Arrays.fill(my_row_masks, 0);
+    my_aggregate_height = 0;
+    my_frozen_blocks = 0;
+    my_bumpiness = 0;
+    my_hash = 0;
+    for (int i = 0; i < my_rows.length; i++)
+    {
+      Arrays.fill(my_rows[i], null);
+      my_row_index[i] = i;
+    }
+    recordReset(from);
+  }
+
+  /**
+   * Records the change just made as a move of the current piece, the version
+   * having been increased.
+   * 
+   * @param the_from The packed state of the current piece before it.
+   */
+  private/* @ helper @ */void recordMove(final int the_from)
+  {
+    my_delta.begin(my_version - 1, the_from);
+    my_delta.end(my_version, my_current_state, my_full_flag);
+  }
+
+  /**
+   * Increases the version and records the change just made as a reset.
+   * 
+   * @param the_from The packed state of the current piece before it.
+   */
+  private/* @ helper @ */void recordReset(final int the_from)
+  {
+    my_delta.begin(my_version, the_from);
+    my_delta.markReset();
+    my_version = my_version + 1;
+    my_delta.end(my_version, my_current_state, my_full_flag);
+  }
+
+  /**
+   * @return the next piece, taken from the piece generator unless a snapshot
+   *         was restored and the piece was taken before.
+   * @throws IllegalArgumentException if the piece generator deals a piece
+   *           that is not one of the seven standard pieces.
+   */
+  private/* @ helper non_null @ */Piece deal()
+  {
+    if (my_used_count == my_dealt_count)
+    {
+      final Piece piece = my_piece_generator.next();
+      PieceStates.typeOf(piece);
+      my_dealt[(int) (my_dealt_count % DEALT_HISTORY)] = piece;
+      my_dealt_count = my_dealt_count + 1;
+    }
+    final Piece result = my_dealt[(int) (my_used_count % DEALT_HISTORY)];
+    my_used_count = my_used_count + 1;
+    return result;
+  }
+
+  /*
+   * @ private behavior assignable my_last_lines_removed, my_row_index, my_rows,
+   * my_row_fills, my_row_masks, my_frozen_blocks, my_column_heights,
+   * my_aggregate_height, my_bumpiness, my_hash;
+   */
+  /**
+   * Clears all full rows between the_low and the_high inclusive, which are the
+   * only rows the last frozen piece can have filled. The rows above a cleared
+   * row move down by renumbering slots, and the cleared rows are emptied and
+   * reused at the top, so no row is copied or allocated. The keys of the
+   * blocks in the rows that move are rehashed at their new positions.
+   * 
+   * @param the_low The lowest row to check.
+   * @param the_high The highest row to check.
+   */
+  private/* @ helper @ */void clearFullRows(final int the_low, final int the_high)
+  {
+    int cleared = 0;
+    int mask = 0;
+    int to = the_low;
+    for (int from = the_low; from < my_row_index.length; from++)
+    {
+      final int slot = my_row_index[from];
+      if (from <= the_high && my_row_fills[slot] == my_width)
+      {
+        my_hash = my_hash ^ rowHash(slot, from);
+        Arrays.fill(my_rows[slot], null);
+        my_row_fills[slot] = 0;
+        my_row_masks[slot] = 0;
+        my_cleared_slots[cleared] = slot;
+        cleared = cleared + 1;
+        my_delta.addRemovedRow(from);
+        if (from < Integer.SIZE)
+        {
+          mask = mask | 1 << from;
+        }
+      }
+      else
+      {
+        if (from != to && 0 < my_row_fills[slot])
+        {
+          my_hash = my_hash ^ rowHash(slot, from) ^ rowHash(slot, to);
+        }
+        my_row_index[to] = slot;
+        to = to + 1;
+      }
+    }
+    my_last_cleared_rows = mask;
+    if (0 < cleared)
+    {
+      System.arraycopy(my_cleared_slots, 0, my_row_index, to, cleared);
+      my_last_lines_removed = cleared;
+      my_frozen_blocks = my_frozen_blocks - cleared * my_width;
+      lowerColumns();
+    }
+  }
+
+  /**
+   * @param the_slot The slot of a row.
+   * @param the_y A y-coordinate.
+   * @return the exclusive or of the Zobrist keys of the blocks of the row in
+   *         the_slot, were it at position the_y.
+   */
+  private/* @ helper pure @ */long rowHash(final int the_slot, final int the_y)
+  {
+    final Color[] row = my_rows[the_slot];
+    long result = 0;
+    for (int x = 0; x < my_width; x++)
+    {
+      if (row[x] != null)
+      {
+        result = result ^ Zobrist.cell(x, the_y);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param the_mask A row mask relative to a piece's origin.
+   * @param the_x The x-coordinate of the origin, which may be negative.
+   * @return the_mask moved to the_x.
+   */
+  private static int shift(final int the_mask, final int the_x)
+  {
+    int result = the_mask >>> -the_x;
+    if (0 <= the_x)
     {
-      my_row_list.add(new Color[my_width]);
+      result = the_mask << the_x;
     }
+    return result;
+  }
+
+  /**
+   * @param the_y The y-coordinate.
+   * @return the row at position the_y itself, not a copy.
+   */
+  private/* @ helper pure @ */Color[] row(final int the_y)
+  {
+    return my_rows[my_row_index[the_y]];
   }
 
   /*
-   * @ private behavior assignable my_last_lines_removed, my_row_list;
+   * @ private behavior assignable my_rows, my_row_fills, my_row_masks,
+   * my_frozen_blocks, my_column_heights, my_aggregate_height, my_bumpiness,
+   * my_hash; @
+   */
+  /**
+   * Freezes a block of the_color at position (the_x, the_y), updating the
+   * column and row statistics and the hash.
+   * 
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate.
+   * @param the_color The color.
    */
+  private/* @ helper @ */void freezeBlock(final int the_x, final int the_y,
+                                          final Color the_color)
+  {
+    final int slot = my_row_index[the_y];
+    my_rows[slot][the_x] = the_color;
+    my_row_fills[slot] = my_row_fills[slot] + 1;
+    if (the_x < MASK_WIDTH)
+    {
+      my_row_masks[slot] = my_row_masks[slot] | 1 << the_x;
+    }
+    my_frozen_blocks = my_frozen_blocks + 1;
+    my_hash = my_hash ^ Zobrist.cell(the_x, the_y);
+    if (my_column_heights[the_x] <= the_y)
+    {
+      setColumnHeight(the_x, the_y + 1);
+    }
+  }
+
   /**
-   * Clears all full rows.
+   * Recomputes the column heights after rows have been removed. Every column
+   * had a block in each removed row, so each column is lowered by the number
+   * of removed rows, and then further if its top block was in a removed row.
    */
-  private/* @ helper @ */void clearFullRows()
+  private/* @ helper @ */void lowerColumns()
   {
-    final ListIterator<Color[]> iterator = my_row_list.listIterator();
-    while (iterator.hasNext())
+    for (int x = 0; x < my_width; x++)
     {
-      iterator.next();
-      if (isFrozenRowFull(iterator.previousIndex()))
+      int height = my_column_heights[x] - my_last_lines_removed;
+      while (0 < height && row(height - 1)[x] == null)
       {
-        iterator.remove();
-        my_last_lines_removed = my_last_lines_removed + 1;
+        height = height - 1;
       }
+      setColumnHeight(x, height);
     }
   }
 
+  /**
+   * Sets the height of column the_x, keeping the aggregate height and the
+   * bumpiness up to date.
+   * 
+   * @param the_x The column position.
+   * @param the_height The new height.
+   */
+  private/* @ helper @ */void setColumnHeight(final int the_x, final int the_height)
+  {
+    final int old_height = my_column_heights[the_x];
+    my_aggregate_height = my_aggregate_height + the_height - old_height;
+    if (0 < the_x)
+    {
+      final int left = my_column_heights[the_x - 1];
+      my_bumpiness = my_bumpiness - Math.abs(left - old_height) + Math.abs(left - the_height);
+    }
+    if (the_x < my_width - 1)
+    {
+      final int right = my_column_heights[the_x + 1];
+      my_bumpiness =
+          my_bumpiness - Math.abs(right - old_height) + Math.abs(right - the_height);
+    }
+    my_column_heights[the_x] = the_height;
+  }
+
   // Constraints (that are not in method contracts)
 
   // @constraint All rows have length equal to the board width.
@@ -947,4 +1938,112 @@ public class Board extends Observable
    * @ invariant (\forall int i; 0 <= i && i < height() + ROWS_ABOVE_BOARD;
    * (\exists int j; 0 <= j && j < width(); color(new Point(i, j)) == null)); @
    */
+
+  // Nested Classes
+
+  /**
+   * The state of a board at one moment, stored in flat arrays that are
+   * overwritten rather than reallocated by each save.
+   * 
+   * @author Vladimir Dudnic
+   * @version 1.0
+   */
+  public static final class Snapshot
+  {
+    /**
+     * The frozen blocks of the saved rows, bottom row first; shared Color
+     * objects are immutable, so copying the references copies the blocks.
+     */
+    private final/* @ non_null @ */Color[] my_cells;
+
+    /**
+     * The number of frozen blocks in each saved row.
+     */
+    private final/* @ non_null @ */int[] my_row_fills;
+
+    /**
+     * The mask of the frozen blocks in each saved row.
+     */
+    private final/* @ non_null @ */int[] my_row_masks;
+
+    /**
+     * The column heights.
+     */
+    private final/* @ non_null @ */int[] my_column_heights;
+
+    /**
+     * The number of rows saved; the rows above them are empty.
+     */
+    private int my_rows;
+
+    /**
+     * The sum of the column heights.
+     */
+    private int my_aggregate_height;
+
+    /**
+     * The total number of frozen blocks.
+     */
+    private int my_frozen_blocks;
+
+    /**
+     * The sum of the height differences between adjacent columns.
+     */
+    private int my_bumpiness;
+
+    /**
+     * The Zobrist hash of the frozen blocks.
+     */
+    private long my_hash;
+
+    /**
+     * The packed state of the current piece.
+     */
+    private int my_current_state;
+
+    /**
+     * The current piece, if the board had made it.
+     */
+    private/* @ nullable @ */Piece my_current_piece;
+
+    /**
+     * The next piece.
+     */
+    private/* @ nullable @ */Piece my_next_piece;
+
+    /**
+     * The number of lines removed by the last move.
+     */
+    private int my_last_lines_removed;
+
+    /**
+     * The number of blocks placed by the last move.
+     */
+    private int my_last_blocks_placed;
+
+    /**
+     * Was the board full?
+     */
+    private boolean my_full_flag;
+
+    /**
+     * The number of pieces dealt to the board.
+     */
+    private long my_used_count;
+
+    /**
+     * Constructs a new snapshot for boards of the specified size.
+     * 
+     * @param the_row_count The number of rows, including those above the
+     *          visible part.
+     * @param the_width The width.
+     */
+    private Snapshot(final int the_row_count, final int the_width)
+    {
+      my_cells = new Color[the_row_count * the_width];
+      my_row_fills = new int[the_row_count];
+      my_row_masks = new int[the_row_count];
+      my_column_heights = new int[the_width];
+    }
+  }
 }
@@ -0,0 +1,324 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import java.awt.Color;
+
+import tetris.entities.pieces.Piece;
+
+/**
+ * What the last change to a board did, cell by cell: the blocks it froze,
+ * the rows it removed and where it moved the current piece. Applying a delta
+ * to a copy of the board at its base version gives the board at its version,
+ * in three steps: set the cells, then remove the rows, highest first, each
+ * moving the rows above it down by one, then move the current piece from
+ * its old state to its new one. A copy at another version has missed a
+ * change and must be read again in full, and so must any copy when the
+ * delta is a reset.
+ *
+ * <p>The board keeps one delta and overwrites it with each change, so
+ * keeping track costs a few writes and no allocation.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class BoardDelta
+{
+  /**
+   * The x-coordinates of the cells set.
+   */
+  private final/* @ non_null @ */int[] my_set_xs = new int[Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The y-coordinates of the cells set, before the rows were removed.
+   */
+  private final/* @ non_null @ */int[] my_set_ys = new int[Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The colors of the cells set.
+   */
+  private final/* @ non_null @ */Color[] my_set_colors = new Color[Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The y-coordinates of the rows removed, lowest first, before any of them
+   * were removed.
+   */
+  private final/* @ non_null @ */int[] my_removed_rows = new int[Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The number of cells set.
+   */
+  private int my_set_count;
+
+  /**
+   * The number of rows removed.
+   */
+  private int my_removed_count;
+
+  /**
+   * The version of the board state before the change.
+   */
+  private long my_base_version;
+
+  /**
+   * The version of the board state after the change.
+   */
+  private long my_version;
+
+  /**
+   * The packed state of the current piece before the change.
+   */
+  private int my_from_state;
+
+  /**
+   * The packed state of the current piece after the change.
+   */
+  private int my_to_state;
+
+  /**
+   * Whether the change replaced the whole board.
+   */
+  private boolean my_reset;
+
+  /**
+   * Whether the change froze the current piece and dealt the next one.
+   */
+  private boolean my_locked;
+
+  /**
+   * Whether the board was full after the change.
+   */
+  private boolean my_full_flag;
+
+  /**
+   * @return What was the version of the board state before the change? The
+   *         delta applies only to a copy at this version.
+   */
+  public/* @ pure @ */long baseVersion()
+  {
+    return my_base_version;
+  }
+
+  /**
+   * @return What is the version of the board state after the change?
+   */
+  public/* @ pure @ */long version()
+  {
+    return my_version;
+  }
+
+  /**
+   * @param the_version The version of a copy of the board.
+   * @return Does the delta bring a copy at the_version up to date? It does
+   *         not if the copy missed a change, or if the change was a reset.
+   */
+  public/* @ pure @ */boolean appliesTo(final long the_version)
+  {
+    return !my_reset && my_base_version == the_version;
+  }
+
+  /**
+   * @return Did the change replace the whole board, so that copies must be
+   *         read again in full?
+   */
+  public/* @ pure @ */boolean isReset()
+  {
+    return my_reset;
+  }
+
+  /**
+   * @return Did the change freeze the current piece and deal the next one?
+   */
+  public/* @ pure @ */boolean isLocked()
+  {
+    return my_locked;
+  }
+
+  /**
+   * @return Was the board full after the change?
+   */
+  public/* @ pure @ */boolean isFull()
+  {
+    return my_full_flag;
+  }
+
+  /**
+   * @return What was the packed state of the current piece before the
+   *         change? If the change locked it, its blocks are the cells set,
+   *         unless it was a drop, which moved the piece down first.
+   * @see tetris.entities.pieces.PieceStates
+   */
+  public/* @ pure @ */int fromState()
+  {
+    return my_from_state;
+  }
+
+  /**
+   * @return What is the packed state of the current piece after the change?
+   * @see tetris.entities.pieces.PieceStates
+   */
+  public/* @ pure @ */int toState()
+  {
+    return my_to_state;
+  }
+
+  /**
+   * @return How many cells did the change set?
+   */
+  public/* @ pure @ */int setCount()
+  {
+    return my_set_count;
+  }
+
+  /**
+   * @param the_index The index of a cell set, below setCount().
+   * @return What is the x-coordinate of the cell?
+   */
+  public/* @ pure @ */int setX(final int the_index)
+  {
+    return my_set_xs[the_index];
+  }
+
+  /**
+   * @param the_index The index of a cell set, below setCount().
+   * @return What is the y-coordinate of the cell, before the rows were
+   *         removed?
+   */
+  public/* @ pure @ */int setY(final int the_index)
+  {
+    return my_set_ys[the_index];
+  }
+
+  /**
+   * @param the_index The index of a cell set, below setCount().
+   * @return What color was the cell set to?
+   */
+  public/* @ pure non_null @ */Color setColor(final int the_index)
+  {
+    return my_set_colors[the_index];
+  }
+
+  /**
+   * @return How many rows did the change remove?
+   */
+  public/* @ pure @ */int removedCount()
+  {
+    return my_removed_count;
+  }
+
+  /**
+   * @param the_index The index of a row removed, below removedCount(); the
+   *          rows are in increasing order.
+   * @return What was the y-coordinate of the row, before any rows were
+   *         removed?
+   */
+  public/* @ pure @ */int removedRow(final int the_index)
+  {
+    return my_removed_rows[the_index];
+  }
+
+  /**
+   * Overwrites the delta with the_delta, so that a consumer can keep a delta
+   * past the next change without allocating.
+   *
+   * @param the_delta The delta to copy.
+   */
+  public void copy(final/* @ non_null @ */BoardDelta the_delta)
+  {
+    System.arraycopy(the_delta.my_set_xs, 0, my_set_xs, 0, the_delta.my_set_count);
+    System.arraycopy(the_delta.my_set_ys, 0, my_set_ys, 0, the_delta.my_set_count);
+    System.arraycopy(the_delta.my_set_colors, 0, my_set_colors, 0, the_delta.my_set_count);
+    System.arraycopy(the_delta.my_removed_rows, 0, my_removed_rows, 0,
+                     the_delta.my_removed_count);
+    my_set_count = the_delta.my_set_count;
+    my_removed_count = the_delta.my_removed_count;
+    my_base_version = the_delta.my_base_version;
+    my_version = the_delta.my_version;
+    my_from_state = the_delta.my_from_state;
+    my_to_state = the_delta.my_to_state;
+    my_reset = the_delta.my_reset;
+    my_locked = the_delta.my_locked;
+    my_full_flag = the_delta.my_full_flag;
+  }
+
+  /**
+   * Starts recording a change to a board.
+   *
+   * @param the_base_version The version of the board state before it.
+   * @param the_from_state The packed state of the current piece before it.
+   */
+  void begin(final long the_base_version, final int the_from_state)
+  {
+    my_base_version = the_base_version;
+    my_from_state = the_from_state;
+    my_set_count = 0;
+    my_removed_count = 0;
+    my_reset = false;
+    my_locked = false;
+  }
+
+  /**
+   * Records a cell set by the change.
+   *
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate.
+   * @param the_color The color.
+   */
+  void addCell(final int the_x, final int the_y, final Color the_color)
+  {
+    final int index = my_set_count;
+    my_set_xs[index] = the_x;
+    my_set_ys[index] = the_y;
+    my_set_colors[index] = the_color;
+    my_set_count = index + 1;
+  }
+
+  /**
+   * Records a row removed by the change; rows are to be recorded in
+   * increasing order.
+   *
+   * @param the_y The y-coordinate of the row, before any rows were removed.
+   */
+  void addRemovedRow(final int the_y)
+  {
+    my_removed_rows[my_removed_count] = the_y;
+    my_removed_count = my_removed_count + 1;
+  }
+
+  /**
+   * Records that the change froze the current piece and dealt the next one.
+   */
+  void markLocked()
+  {
+    my_locked = true;
+  }
+
+  /**
+   * Records that the change replaced the whole board.
+   */
+  void markReset()
+  {
+    my_reset = true;
+  }
+
+  /**
+   * Finishes recording a change.
+   *
+   * @param the_version The version of the board state after it.
+   * @param the_to_state The packed state of the current piece after it.
+   * @param the_full Whether the board is full after it.
+   */
+  void end(final long the_version, final int the_to_state, final boolean the_full)
+  {
+    my_version = the_version;
+    my_to_state = the_to_state;
+    my_full_flag = the_full;
+  }
+}
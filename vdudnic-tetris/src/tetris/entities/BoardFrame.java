@@ -0,0 +1,180 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import java.awt.Color;
+
+import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+
+/**
+ * A copy of the visible part of a board at one moment, filled by
+ * Board.read() so that a thread other than the one playing the board can
+ * look at it. A frame is meant to be made once per reader and overwritten by
+ * each read, so reading allocates nothing.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class BoardFrame implements BoardView
+{
+  /**
+   * The blocks of the visible rows, bottom row first, including the blocks
+   * of the current piece.
+   */
+  final/* @ non_null @ */Color[] my_cells;
+
+  /**
+   * The packed state of the current piece.
+   */
+  int my_current_state;
+
+  /**
+   * The type of the next piece.
+   */
+  int my_next_type;
+
+  /**
+   * The version of the board state.
+   */
+  long my_version;
+
+  /**
+   * The sequence number of the board state.
+   */
+  long my_sequence;
+
+  /**
+   * The number of lines removed by the last change.
+   */
+  int my_last_lines_removed;
+
+  /**
+   * Whether the board was full.
+   */
+  boolean my_full_flag;
+
+  /**
+   * The width of the board.
+   */
+  private final int my_width;
+
+  /**
+   * The height of the board.
+   */
+  private final int my_height;
+
+  /**
+   * Constructs a new empty frame.
+   * 
+   * @param the_height The height of the boards it is for.
+   * @param the_width The width of the boards it is for.
+   */
+  public BoardFrame(final int the_height, final int the_width)
+  {
+    my_height = the_height;
+    my_width = the_width;
+    my_cells = new Color[the_height * the_width];
+  }
+
+  /**
+   * @return What is the width of the board?
+   */
+  public/* @ pure @ */int width()
+  {
+    return my_width;
+  }
+
+  /**
+   * @return What is the height of the board?
+   */
+  public/* @ pure @ */int height()
+  {
+    return my_height;
+  }
+
+  /**
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate, below the height.
+   * @return What color was the block at position (the_x, the_y), including
+   *         blocks in the current piece, or null if there was none?
+   */
+  public/* @ pure nullable @ */Color color(final int the_x, final int the_y)
+  {
+    return my_cells[the_y * my_width + the_x];
+  }
+
+  /**
+   * @return What was the packed state of the current piece?
+   */
+  public/* @ pure @ */int currentState()
+  {
+    return my_current_state;
+  }
+
+  /**
+   * @return What was the type of the next piece?
+   */
+  public/* @ pure @ */int nextType()
+  {
+    return my_next_type;
+  }
+
+  /**
+   * @return What was the version of the board state?
+   */
+  public/* @ pure @ */long version()
+  {
+    return my_version;
+  }
+
+  /**
+   * @return What was the sequence number of the board state? Two frames read
+   *         from the same board show the same state if their sequence numbers
+   *         are equal.
+   */
+  public/* @ pure @ */long sequence()
+  {
+    return my_sequence;
+  }
+
+  /**
+   * @return How many lines did the last change remove?
+   */
+  public/* @ pure @ */int lastLinesRemoved()
+  {
+    return my_last_lines_removed;
+  }
+
+  /**
+   * @return Was the board full?
+   */
+  public/* @ pure @ */boolean isFull()
+  {
+    return my_full_flag;
+  }
+
+  /**
+   * Adds the blocks of the current piece that are in the visible rows.
+   */
+  void addCurrentPiece()
+  {
+    final Color color = PieceStates.color(PieceStates.type(my_current_state));
+    for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
+    {
+      final int x = PieceStates.blockX(my_current_state, i);
+      final int y = PieceStates.blockY(my_current_state, i);
+      if (0 <= y && y < my_height && 0 <= x && x < my_width)
+      {
+        my_cells[y * my_width + x] = color;
+      }
+    }
+  }
+}
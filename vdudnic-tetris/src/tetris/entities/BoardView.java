@@ -0,0 +1,55 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import java.awt.Color;
+
+/**
+ * A read-only view of a board: what a renderer needs to draw it, and nothing
+ * that changes it. A view is read where the board is, and so sees the board
+ * as it is now; it is only consistent if it is read by the thread that
+ * changes the board, or while the board does not change.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface BoardView
+{
+  /**
+   * @return What is the width of the board?
+   */
+  int width();
+
+  /**
+   * @return What is the height of the board, not including the rows above
+   *         it?
+   */
+  int height();
+
+  /**
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate.
+   * @return What color is the block at position (the_x, the_y), including
+   *         blocks in the current piece, or null if there is none?
+   */
+  Color color(int the_x, int the_y);
+
+  /**
+   * @return What is the packed state of the current piece?
+   * @see tetris.entities.pieces.PieceStates
+   */
+  int currentState();
+
+  /**
+   * @return What is the version of the board state? It increases each time
+   *         the frozen blocks or the current piece change.
+   */
+  long version();
+}
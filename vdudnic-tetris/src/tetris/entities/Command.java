@@ -0,0 +1,132 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+/**
+ * The commands a player can give a Board, as small int codes so that they can
+ * be stored and sent without boxing. Every code fits in three bits.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class Command
+{
+  /**
+   * Move the current piece left.
+   */
+  public static final int MOVE_LEFT = 0;
+
+  /**
+   * Move the current piece right.
+   */
+  public static final int MOVE_RIGHT = 1;
+
+  /**
+   * Rotate the current piece clockwise.
+   */
+  public static final int ROTATE_CLOCKWISE = 2;
+
+  /**
+   * Rotate the current piece counterclockwise.
+   */
+  public static final int ROTATE_COUNTERCLOCKWISE = 3;
+
+  /**
+   * Move the current piece down.
+   */
+  public static final int MOVE_DOWN = 4;
+
+  /**
+   * Drop the current piece.
+   */
+  public static final int DROP = 5;
+
+  /**
+   * The number of commands.
+   */
+  public static final int COMMANDS = 6;
+
+  /**
+   * The number of bits needed to store a command.
+   */
+  public static final int BITS = 3;
+
+  /**
+   * The names of the commands, by code.
+   */
+  private static final String[] NAMES =
+  {"MOVE_LEFT", "MOVE_RIGHT", "ROTATE_CLOCKWISE", "ROTATE_COUNTERCLOCKWISE", "MOVE_DOWN",
+   "DROP"};
+
+  /**
+   * There are no command objects.
+   */
+  private Command()
+  {
+    // do nothing
+  }
+
+  /**
+   * Gives the_command to the_board.
+   *
+   * @param the_board The board.
+   * @param the_command The command.
+   * @throws IllegalArgumentException if the_command is not a command.
+   */
+  public static void apply(final/* @ non_null @ */Board the_board, final int the_command)
+  {
+    switch (the_command)
+    {
+      case MOVE_LEFT:
+        the_board.moveLeft();
+        break;
+      case MOVE_RIGHT:
+        the_board.moveRight();
+        break;
+      case ROTATE_CLOCKWISE:
+        the_board.rotateClockwise();
+        break;
+      case ROTATE_COUNTERCLOCKWISE:
+        the_board.rotateCounterclockwise();
+        break;
+      case MOVE_DOWN:
+        the_board.moveDown();
+        break;
+      case DROP:
+        the_board.drop();
+        break;
+      default:
+        throw new IllegalArgumentException("no such command: " + the_command);
+    }
+  }
+
+  /**
+   * @param the_command The command.
+   * @return Is the_command a command?
+   */
+  public static boolean isCommand(final int the_command)
+  {
+    return 0 <= the_command && the_command < COMMANDS;
+  }
+
+  /**
+   * @param the_command The command.
+   * @return What is the name of the_command?
+   * @throws IllegalArgumentException if the_command is not a command.
+   */
+  public static/* @ non_null @ */String name(final int the_command)
+  {
+    if (!isCommand(the_command))
+    {
+      throw new IllegalArgumentException("no such command: " + the_command);
+    }
+    return NAMES[the_command];
+  }
+}
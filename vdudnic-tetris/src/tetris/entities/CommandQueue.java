@@ -0,0 +1,185 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of timestamped commands from one producer thread to one
+ * consumer thread, such as from the event thread, where keys are pressed, to
+ * the game thread, which alone changes the board. Neither side locks or
+ * allocates: the commands and times live in two ring arrays, and each side
+ * publishes how far it has got with a lazy set of its own counter, which the
+ * other side reads only when the ring looks full or empty.
+ *
+ * <p>The commands are ints, so a caller can queue codes of its own alongside
+ * the Command codes.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class CommandQueue
+{
+  /**
+   * The largest capacity a queue can have.
+   */
+  public static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * The commands, the nth offered at index n & my_mask.
+   */
+  private final int[] my_commands;
+
+  /**
+   * The times of the commands, indexed like my_commands.
+   */
+  private final long[] my_times;
+
+  /**
+   * The capacity less one; a power of two less one.
+   */
+  private final int my_mask;
+
+  /**
+   * The number of commands offered; written by the producer only.
+   */
+  private final AtomicLong my_tail = new AtomicLong();
+
+  /**
+   * The number of commands taken; written by the consumer only.
+   */
+  private final AtomicLong my_head = new AtomicLong();
+
+  /**
+   * The producer's last reading of my_head.
+   */
+  private long my_cached_head;
+
+  /**
+   * The consumer's last reading of my_tail.
+   */
+  private long my_cached_tail;
+
+  /**
+   * Constructs a new empty queue.
+   *
+   * @param the_capacity The least number of commands it can hold; it is
+   *          rounded up to a power of two.
+   * @throws IllegalArgumentException if the_capacity is not between 1 and
+   *           MAX_CAPACITY.
+   */
+  public CommandQueue(final int the_capacity)
+  {
+    if (the_capacity < 1 || MAX_CAPACITY < the_capacity)
+    {
+      throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+    }
+    final int capacity = roundCapacity(the_capacity);
+    my_mask = capacity - 1;
+    my_commands = new int[capacity];
+    my_times = new long[capacity];
+  }
+
+  /**
+   * Adds a command at the end of the queue; to be called by the producer
+   * only.
+   *
+   * @param the_command The command.
+   * @param the_time The time of the command, for instance its
+   *          System.nanoTime().
+   * @return true if the command was added, false if the queue was full.
+   */
+  public boolean offer(final int the_command, final long the_time)
+  {
+    final long tail = my_tail.get();
+    if (tail - my_cached_head > my_mask)
+    {
+      my_cached_head = my_head.get();
+    }
+    final boolean result = tail - my_cached_head <= my_mask;
+    if (result)
+    {
+      final int index = (int) tail & my_mask;
+      my_commands[index] = the_command;
+      my_times[index] = the_time;
+      // publishes the slot written above
+      my_tail.lazySet(tail + 1);
+    }
+    return result;
+  }
+
+  /**
+   * Passes the commands at the front of the queue to the_handler, oldest
+   * first, and removes them; to be called by the consumer only. The commands
+   * offered while it runs may or may not be passed.
+   *
+   * @param the_handler The handler.
+   * @param the_limit The most commands to pass.
+   * @return the number of commands passed.
+   */
+  public int drain(final/* @ non_null @ */Handler the_handler, final int the_limit)
+  {
+    final long head = my_head.get();
+    if (my_cached_tail - head < the_limit)
+    {
+      my_cached_tail = my_tail.get();
+    }
+    final int result = (int) Math.min(my_cached_tail - head, the_limit);
+    for (int i = 0; i < result; i++)
+    {
+      final int index = (int) (head + i) & my_mask;
+      the_handler.handle(my_commands[index], my_times[index]);
+    }
+    // frees the slots read above
+    my_head.lazySet(head + result);
+    return result;
+  }
+
+  /**
+   * @return How many commands can the queue hold?
+   */
+  public int capacity()
+  {
+    return my_mask + 1;
+  }
+
+  /**
+   * @param the_capacity A capacity between 1 and MAX_CAPACITY.
+   * @return the least power of two no less than the_capacity.
+   */
+  static int roundCapacity(final int the_capacity)
+  {
+    return Math.max(1, Integer.highestOneBit(the_capacity - 1) << 1);
+  }
+
+  /**
+   * @return How many commands are in the queue? The answer may be out of
+   *         date by the time it is used.
+   */
+  public int size()
+  {
+    final long head = my_head.get();
+    return (int) (my_tail.get() - head);
+  }
+
+  /**
+   * Receives the commands drained from a queue.
+   */
+  public interface Handler
+  {
+    /**
+     * Handles a command.
+     *
+     * @param the_command The command.
+     * @param the_time The time it was offered with.
+     */
+    void handle(int the_command, long the_time);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+/**
+ * The Zobrist keys of board cells and piece states. The hash of a set of
+ * frozen blocks is the exclusive or of the keys of their cells, so it can be
+ * kept up to date as blocks are frozen and rows cleared by xoring keys in and
+ * out, and two boards with the same blocks have the same hash however they
+ * got them.
+ *
+ * <p>The keys are not kept in a table but computed by scrambling the cell
+ * position with the SplitMix64 finalizer, so there is a key for every cell of
+ * every board size, and the keys are the same in every run.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class Zobrist
+{
+  /**
+   * The odd constant the cell positions are spread by before scrambling.
+   */
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The first multiplier of the SplitMix64 finalizer.
+   */
+  private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+
+  /**
+   * The second multiplier of the SplitMix64 finalizer.
+   */
+  private static final long MIX_2 = 0x94D049BB133111EBL;
+
+  /**
+   * The bit that keeps the keys of piece states apart from those of cells.
+   */
+  private static final long PIECE_TAG = 1L << 62;
+
+  /**
+   * The bit that keeps the keys of counts apart from those of cells and piece
+   * states.
+   */
+  private static final long COUNT_TAG = 1L << 61;
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private Zobrist()
+  {
+    // do nothing
+  }
+
+  /**
+   * @param the_x The x-coordinate.
+   * @param the_y The y-coordinate.
+   * @return the key of a frozen block at (the_x, the_y).
+   */
+  public static long cell(final int the_x, final int the_y)
+  {
+    return mix(((long) the_y << Integer.SIZE) | (the_x & 0xFFFFFFFFL));
+  }
+
+  /**
+   * @param the_y The y-coordinate.
+   * @param the_mask A row mask; bit x is set if column x is occupied.
+   * @return the exclusive or of the keys of the occupied cells of the row at
+   *         position the_y.
+   */
+  public static long row(final int the_y, final int the_mask)
+  {
+    long result = 0;
+    int cells = the_mask;
+    while (cells != 0)
+    {
+      result = result ^ cell(Integer.numberOfTrailingZeros(cells), the_y);
+      cells = cells & cells - 1;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_state A packed piece state.
+   * @return the key of a piece in the_state, to be xored into the hash of
+   *         the frozen blocks when the falling piece matters too.
+   */
+  public static long piece(final int the_state)
+  {
+    return mix(PIECE_TAG | (the_state & 0xFFFFFFFFL));
+  }
+
+  /**
+   * @param the_count A count, such as a number of rows removed.
+   * @return the key of the_count, to be xored into the hash of a position
+   *         whose value depends on it.
+   */
+  public static long count(final int the_count)
+  {
+    return mix(COUNT_TAG | (the_count & 0xFFFFFFFFL));
+  }
+
+  /**
+   * @param the_value A value.
+   * @return the_value scrambled so that every input bit affects every output
+   *         bit.
+   */
+  private static long mix(final long the_value)
+  {
+    long result = (the_value + 1) * GOLDEN_GAMMA;
+    result = (result ^ (result >>> 30)) * MIX_1;
+    result = (result ^ (result >>> 27)) * MIX_2;
+    return result ^ (result >>> 31);
+  }
+}
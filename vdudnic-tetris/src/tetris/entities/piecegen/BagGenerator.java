@@ -0,0 +1,28 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities.piecegen;
+
+/**
+ * A piece generator that deals the pieces from a bag, and so can tell which
+ * piece types the next piece can have.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface BagGenerator extends PieceGenerator
+{
+  /**
+   * @return the type mask of the pieces left in the bag, one of which the
+   *         next call to next() returns; bit t is set if a piece of type t is
+   *         left.
+   * @see tetris.entities.pieces.PieceStates#ALL_TYPES
+   */
+  int remainingTypes();
+}
@@ -24,6 +24,7 @@ import tetris.entities.pieces.JPiece;
 import tetris.entities.pieces.LPiece;
 import tetris.entities.pieces.OPiece;
 import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
 import tetris.entities.pieces.SPiece;
 import tetris.entities.pieces.TPiece;
 import tetris.entities.pieces.ZPiece;
@@ -36,7 +37,7 @@ import tetris.entities.pieces.ZPiece;
  * @author Daniel M. Zimmerman (dmz@acm.org)
  * @version 17 November 2008
  */
-public class RandomGenerator implements PieceGenerator
+public class RandomGenerator implements BagGenerator
 {
   // Static Fields
 
@@ -121,6 +122,19 @@ public class RandomGenerator implements PieceGenerator
     return result;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public int remainingTypes()
+  {
+    int result = 0;
+    for (Piece p : my_piece_list)
+    {
+      result = result | 1 << PieceStates.typeOf(p);
+    }
+    return result;
+  }
+
   /*
    * @ private behavior requires my_piece_list.isEmpty(); assignable piece_list;
    * ensures my_piece_list.size() == NUMBER_OF_PIECES; @
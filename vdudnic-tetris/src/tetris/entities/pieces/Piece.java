@@ -192,8 +192,20 @@ public abstract class Piece implements Cloneable
   // @ ensures \result.y == origin.y + blocks[the_index].y;
   public/* @ pure non_null */Point absolutePosition(final int the_index)
   {
-    return new Point(origin().x() + blocks()[the_index].x(), origin().y() +
-                                                             blocks()[the_index].y());
+    final Point block = rotations().get(my_current_rotation).block(the_index);
+    return new Point(my_origin.x() + block.x(), my_origin.y() + block.y());
+  }
+
+  /**
+   * @return What is your packed state (type, rotation and origin)?
+   * @throws IllegalArgumentException if you are not one of the seven standard
+   *           pieces.
+   * @see PieceStates
+   */
+  public/* @ pure @ */int state()
+  {
+    return PieceStates.state(PieceStates.typeOf(this), my_current_rotation, my_origin.x(),
+                             my_origin.y());
   }
 
   /**
@@ -350,6 +362,25 @@ public abstract class Piece implements Cloneable
     return result;
   }
 
+  // @ requires 0 <= the_rotation && the_rotation < rotations.size();
+  // @ ensures \result.equalsExceptOrigin(this) || \result.equalsExceptRotation(this);
+  // @ ensures \result.current_rotation == the_rotation;
+  // @ ensures \result.origin == the_origin;
+  /**
+   * @return What piece results from setting your rotation to the_rotation and
+   *         your origin to the_origin?
+   * 
+   * @param the_rotation The new rotation index.
+   * @param the_origin The new origin.
+   */
+  /* @ pure non_null @ */Piece atState(final int the_rotation,
+                                       final/* @ non_null */Point the_origin)
+  {
+    final Piece result = setOrigin(the_origin);
+    result.my_current_rotation = the_rotation;
+    return result;
+  }
+
   // Comparison Methods
 
   /*
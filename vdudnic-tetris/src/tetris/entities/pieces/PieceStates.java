@@ -0,0 +1,492 @@
+/*
+ * An implementation of the classic game "Tetris". Class PieceStates.
+ *
+ * @author "Vladimir Dudnic"
+ *
+ * @module "TCSS 305"
+ *
+ * @creation_date "October 2026"
+ *
+ * @last_updated_date "October 2026"
+ *
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities.pieces;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+
+import tetris.entities.Point;
+
+/**
+ * Piece states packed into a single int: the piece type, the rotation index and
+ * the x- and y-coordinates of the origin. A state is an immutable value, so
+ * moving, rotating and locating the blocks of a piece in this form creates no
+ * objects. The block offsets of every rotation of every piece are computed once
+ * from the piece classes themselves.
+ *
+ * <p>Bits 0-11 hold the x-coordinate and bits 12-23 the y-coordinate, both
+ * offset by 2048; bits 24-25 hold the rotation index and bits 26-28 the type.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class PieceStates
+{
+  // Static Fields
+
+  /**
+   * The type of an I piece.
+   */
+  public static final int I_TYPE = 0;
+
+  /**
+   * The type of a J piece.
+   */
+  public static final int J_TYPE = 1;
+
+  /**
+   * The type of an L piece.
+   */
+  public static final int L_TYPE = 2;
+
+  /**
+   * The type of an O piece.
+   */
+  public static final int O_TYPE = 3;
+
+  /**
+   * The type of an S piece.
+   */
+  public static final int S_TYPE = 4;
+
+  /**
+   * The type of a T piece.
+   */
+  public static final int T_TYPE = 5;
+
+  /**
+   * The type of a Z piece.
+   */
+  public static final int Z_TYPE = 6;
+
+  /**
+   * The number of piece types.
+   */
+  public static final int TYPES = 7;
+
+  /**
+   * The type mask with every piece type in it; bit t of a type mask is set if
+   * type t is in it.
+   */
+  public static final int ALL_TYPES = (1 << TYPES) - 1;
+
+  /**
+   * The number of distinct (type, rotation) shapes; shape numbers are
+   * (type * NUMBER_OF_BLOCKS + rotation).
+   */
+  public static final int SHAPES = TYPES * Piece.NUMBER_OF_BLOCKS;
+
+  /**
+   * The number of bits used for each coordinate.
+   */
+  private static final int COORDINATE_BITS = 12;
+
+  /**
+   * The mask of a single coordinate.
+   */
+  private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+
+  /**
+   * The offset added to each coordinate so that negative values can be packed.
+   */
+  private static final int BIAS = 1 << (COORDINATE_BITS - 1);
+
+  /**
+   * The position of the y-coordinate.
+   */
+  private static final int Y_SHIFT = COORDINATE_BITS;
+
+  /**
+   * The position of the shape (type and rotation) bits.
+   */
+  private static final int SHAPE_SHIFT = 2 * COORDINATE_BITS;
+
+  /**
+   * The number of bits used for the rotation index.
+   */
+  private static final int ROTATION_BITS = 2;
+
+  /**
+   * The mask of the rotation index.
+   */
+  private static final int ROTATION_MASK = (1 << ROTATION_BITS) - 1;
+
+  /**
+   * One row down, as a difference between two states.
+   */
+  private static final int ONE_ROW = 1 << Y_SHIFT;
+
+  /**
+   * A fresh piece of each type, in type order.
+   */
+  private static final Piece[] PROTOTYPES =
+      new Piece[] {new IPiece(), new JPiece(), new LPiece(), new OPiece(), new SPiece(),
+        new TPiece(), new ZPiece()};
+
+  /**
+   * The number of rotations of each type.
+   */
+  private static final int[] ROTATIONS = new int[TYPES];
+
+  /**
+   * The x offset of each block of each shape, indexed by (shape *
+   * NUMBER_OF_BLOCKS + block).
+   */
+  private static final int[] OFFSET_X = new int[SHAPES * Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The y offset of each block of each shape, indexed like OFFSET_X.
+   */
+  private static final int[] OFFSET_Y = new int[SHAPES * Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The bit mask of the blocks in each row of each shape, indexed by (shape *
+   * NUMBER_OF_BLOCKS + row).
+   */
+  private static final int[] ROW_MASK = new int[SHAPES * Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The smallest y offset of a block in each column of each shape, indexed by
+   * (shape * NUMBER_OF_BLOCKS + column), or NUMBER_OF_BLOCKS if the column has
+   * no block.
+   */
+  private static final int[] BOTTOM = new int[SHAPES * Piece.NUMBER_OF_BLOCKS];
+
+  /**
+   * The smallest x offset of each shape.
+   */
+  private static final int[] MIN_X = new int[SHAPES];
+
+  /**
+   * The largest x offset of each shape.
+   */
+  private static final int[] MAX_X = new int[SHAPES];
+
+  /**
+   * The smallest y offset of each shape.
+   */
+  private static final int[] MIN_Y = new int[SHAPES];
+
+  /**
+   * The largest y offset of each shape.
+   */
+  private static final int[] MAX_Y = new int[SHAPES];
+
+  static
+  {
+    Arrays.fill(BOTTOM, Piece.NUMBER_OF_BLOCKS);
+    for (int type = 0; type < TYPES; type++)
+    {
+      final List<Rotation> rotations = PROTOTYPES[type].rotations();
+      ROTATIONS[type] = rotations.size();
+      for (int r = 0; r < rotations.size(); r++)
+      {
+        final int shape = type * Piece.NUMBER_OF_BLOCKS + r;
+        MIN_X[shape] = Integer.MAX_VALUE;
+        MAX_X[shape] = Integer.MIN_VALUE;
+        MIN_Y[shape] = Integer.MAX_VALUE;
+        MAX_Y[shape] = Integer.MIN_VALUE;
+        for (int i = 0; i < Piece.NUMBER_OF_BLOCKS; i++)
+        {
+          final Point block = rotations.get(r).block(i);
+          final int index = shape * Piece.NUMBER_OF_BLOCKS;
+          OFFSET_X[index + i] = block.x();
+          OFFSET_Y[index + i] = block.y();
+          ROW_MASK[index + block.y()] |= 1 << block.x();
+          BOTTOM[index + block.x()] = Math.min(BOTTOM[index + block.x()], block.y());
+          MIN_X[shape] = Math.min(MIN_X[shape], block.x());
+          MAX_X[shape] = Math.max(MAX_X[shape], block.x());
+          MIN_Y[shape] = Math.min(MIN_Y[shape], block.y());
+          MAX_Y[shape] = Math.max(MAX_Y[shape], block.y());
+        }
+      }
+    }
+  }
+
+  // Constructor
+
+  /**
+   * There are no piece state objects.
+   */
+  private PieceStates()
+  {
+    // do nothing
+  }
+
+  // Packing
+
+  /**
+   * @param the_type The piece type.
+   * @param the_rotation The rotation index.
+   * @param the_x The x-coordinate of the origin.
+   * @param the_y The y-coordinate of the origin.
+   * @return What is the packed state of a the_type piece in the_rotation at
+   *         (the_x, the_y)?
+   */
+  public static int state(final int the_type, final int the_rotation, final int the_x,
+                          final int the_y)
+  {
+    return (the_type * Piece.NUMBER_OF_BLOCKS + the_rotation) << SHAPE_SHIFT |
+           (the_y + BIAS) << Y_SHIFT | (the_x + BIAS);
+  }
+
+  /**
+   * @param the_piece The piece.
+   * @return What is the type of the_piece?
+   * @throws IllegalArgumentException if the_piece is not one of the seven
+   *           standard pieces.
+   */
+  public static int typeOf(final Piece the_piece)
+  {
+    int result = 0;
+    while (result < TYPES && PROTOTYPES[result].getClass() != the_piece.getClass())
+    {
+      result = result + 1;
+    }
+    if (result == TYPES)
+    {
+      throw new IllegalArgumentException("not a standard piece: " + the_piece.getClass());
+    }
+    return result;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What is the piece, with its rotation and origin, described by
+   *         the_state?
+   */
+  public static Piece toPiece(final int the_state)
+  {
+    return PROTOTYPES[type(the_state)].atState(rotation(the_state),
+                                               new Point(x(the_state), y(the_state)));
+  }
+
+  // Queries
+
+  /**
+   * @param the_state The state.
+   * @return What is the piece type of the_state?
+   */
+  public static int type(final int the_state)
+  {
+    return shape(the_state) / Piece.NUMBER_OF_BLOCKS;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What is the rotation index of the_state?
+   */
+  public static int rotation(final int the_state)
+  {
+    return shape(the_state) & ROTATION_MASK;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What is the shape number (type and rotation) of the_state?
+   */
+  public static int shape(final int the_state)
+  {
+    return the_state >>> SHAPE_SHIFT;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What is the x-coordinate of the origin of the_state?
+   */
+  public static int x(final int the_state)
+  {
+    return (the_state & COORDINATE_MASK) - BIAS;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What is the y-coordinate of the origin of the_state?
+   */
+  public static int y(final int the_state)
+  {
+    return ((the_state >>> Y_SHIFT) & COORDINATE_MASK) - BIAS;
+  }
+
+  /**
+   * @param the_type The piece type.
+   * @return How many rotations does a the_type piece have?
+   */
+  public static int rotations(final int the_type)
+  {
+    return ROTATIONS[the_type];
+  }
+
+  /**
+   * @param the_type The piece type.
+   * @return What is the color of a the_type piece?
+   */
+  public static Color color(final int the_type)
+  {
+    return PROTOTYPES[the_type].color();
+  }
+
+  /**
+   * @param the_state The state.
+   * @param the_index The block number.
+   * @return What is the absolute x-coordinate of block number the_index?
+   */
+  public static int blockX(final int the_state, final int the_index)
+  {
+    return x(the_state) + OFFSET_X[shape(the_state) * Piece.NUMBER_OF_BLOCKS + the_index];
+  }
+
+  /**
+   * @param the_state The state.
+   * @param the_index The block number.
+   * @return What is the absolute y-coordinate of block number the_index?
+   */
+  public static int blockY(final int the_state, final int the_index)
+  {
+    return y(the_state) + OFFSET_Y[shape(the_state) * Piece.NUMBER_OF_BLOCKS + the_index];
+  }
+
+  /**
+   * @param the_shape The shape number.
+   * @param the_row The row offset from the origin, between 0 and 3.
+   * @return What is the mask of the blocks of the_shape in the_row, relative to
+   *         the origin? Bit k is set if there is a block at x offset k.
+   */
+  public static int rowMask(final int the_shape, final int the_row)
+  {
+    return ROW_MASK[the_shape * Piece.NUMBER_OF_BLOCKS + the_row];
+  }
+
+  /**
+   * @param the_shape The shape number.
+   * @param the_column The column offset from the origin, between 0 and 3.
+   * @return What is the smallest y offset of a block of the_shape in
+   *         the_column, or NUMBER_OF_BLOCKS if there is none?
+   */
+  public static int bottom(final int the_shape, final int the_column)
+  {
+    return BOTTOM[the_shape * Piece.NUMBER_OF_BLOCKS + the_column];
+  }
+
+  /**
+   * @param the_shape The shape number.
+   * @return What is the smallest x offset of a block of the_shape?
+   */
+  public static int minX(final int the_shape)
+  {
+    return MIN_X[the_shape];
+  }
+
+  /**
+   * @param the_shape The shape number.
+   * @return What is the largest x offset of a block of the_shape?
+   */
+  public static int maxX(final int the_shape)
+  {
+    return MAX_X[the_shape];
+  }
+
+  /**
+   * @param the_shape The shape number.
+   * @return What is the smallest y offset of a block of the_shape?
+   */
+  public static int minY(final int the_shape)
+  {
+    return MIN_Y[the_shape];
+  }
+
+  /**
+   * @param the_shape The shape number.
+   * @return What is the largest y offset of a block of the_shape?
+   */
+  public static int maxY(final int the_shape)
+  {
+    return MAX_Y[the_shape];
+  }
+
+  // Moves
+
+  /**
+   * @param the_state The state.
+   * @return What state results from moving the_state left?
+   */
+  public static int moveLeft(final int the_state)
+  {
+    return the_state - 1;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What state results from moving the_state right?
+   */
+  public static int moveRight(final int the_state)
+  {
+    return the_state + 1;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What state results from moving the_state down?
+   */
+  public static int moveDown(final int the_state)
+  {
+    return the_state - ONE_ROW;
+  }
+
+  /**
+   * @param the_state The state.
+   * @param the_y The new y-coordinate of the origin.
+   * @return What state results from moving the_state to row the_y?
+   */
+  public static int moveToRow(final int the_state, final int the_y)
+  {
+    return the_state + (the_y - y(the_state)) * ONE_ROW;
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What state results from rotating the_state clockwise?
+   */
+  public static int rotateClockwise(final int the_state)
+  {
+    final int type = type(the_state);
+    return withRotation(the_state, type, (rotation(the_state) + 1) % ROTATIONS[type]);
+  }
+
+  /**
+   * @param the_state The state.
+   * @return What state results from rotating the_state counterclockwise?
+   */
+  public static int rotateCounterclockwise(final int the_state)
+  {
+    final int type = type(the_state);
+    return withRotation(the_state, type, (rotation(the_state) + ROTATIONS[type] - 1) %
+                                         ROTATIONS[type]);
+  }
+
+  /**
+   * @param the_state The state.
+   * @param the_type The type of the_state.
+   * @param the_rotation The new rotation index.
+   * @return the_state with its rotation index replaced by the_rotation.
+   */
+  private static int withRotation(final int the_state, final int the_type,
+                                  final int the_rotation)
+  {
+    final int coordinates = the_state & ((1 << SHAPE_SHIFT) - 1);
+    return (the_type * Piece.NUMBER_OF_BLOCKS + the_rotation) << SHAPE_SHIFT | coordinates;
+  }
+}
@@ -87,6 +87,18 @@ public class Rotation
     return result;
   }
 
+  /**
+   * @param the_index The block number.
+   * @return What is block number the_index? (unlike blocks(), this does not
+   *         copy the array of blocks)
+   */
+  // @ requires 0 <= the_index && the_index < blocks.length;
+  // @ ensures \result == blocks[the_index];
+  /* @ pure non_null @ */Point block(final int the_index)
+  {
+    return my_blocks[the_index];
+  }
+
   // Object Methods
 
   /*
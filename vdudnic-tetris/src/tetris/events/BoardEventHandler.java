@@ -0,0 +1,32 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.events;
+
+/**
+ * Receives board events from an EventBus, in batches, on the subscriber's
+ * own thread.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface BoardEventHandler
+{
+  /**
+   * Handles an event.
+   *
+   * @param the_type The event type.
+   * @param the_a The first payload.
+   * @param the_b The second payload.
+   * @param the_version The version of the board after the event.
+   * @param the_last Is this the last event of its batch?
+   * @see BoardEvents
+   */
+  void handle(int the_type, int the_a, int the_b, long the_version, boolean the_last);
+}
@@ -0,0 +1,111 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.events;
+
+/**
+ * The types of board events, and what their two int payloads mean. Events
+ * are passed as primitives, never as objects, so publishing one allocates
+ * nothing.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class BoardEvents
+{
+  /**
+   * The current piece moved left, right or down without freezing; the
+   * payloads are the packed states before and after. Consecutive moves are
+   * coalesced into one, from the first state to the last.
+   */
+  public static final int MOVED = 0;
+
+  /**
+   * The current piece rotated; the payloads are the packed states before and
+   * after. Consecutive rotations are coalesced into one.
+   */
+  public static final int ROTATED = 1;
+
+  /**
+   * The current piece froze; the payloads are its packed state and the
+   * packed state of the piece that replaced it.
+   */
+  public static final int LOCKED = 2;
+
+  /**
+   * Full rows were removed; the payloads are the number of rows and the mask
+   * of their positions before removal, bit y for row y.
+   */
+  public static final int LINES_CLEARED = 3;
+
+  /**
+   * The board became full; the payloads are the packed state of the piece
+   * that filled it and 0.
+   */
+  public static final int GAME_OVER = 4;
+
+  /**
+   * The board was put back to an earlier state; the payloads are the packed
+   * state of the current piece and 0. Subscribers that track the board must
+   * read it again.
+   */
+  public static final int RESET = 5;
+
+  /**
+   * The number of event types.
+   */
+  public static final int TYPES = 6;
+
+  /**
+   * The names of the event types, by type.
+   */
+  private static final String[] NAMES =
+  {"MOVED", "ROTATED", "LOCKED", "LINES_CLEARED", "GAME_OVER", "RESET"};
+
+  /**
+   * There are no event objects.
+   */
+  private BoardEvents()
+  {
+    // do nothing
+  }
+
+  /**
+   * @param the_type An event type.
+   * @return Can events of the_type be coalesced with the one before them if
+   *         it is of the same type?
+   */
+  public static boolean isCoalescing(final int the_type)
+  {
+    return the_type == MOVED || the_type == ROTATED;
+  }
+
+  /**
+   * @param the_type An event type.
+   * @return Is the_type an event type?
+   */
+  public static boolean isType(final int the_type)
+  {
+    return 0 <= the_type && the_type < TYPES;
+  }
+
+  /**
+   * @param the_type An event type.
+   * @return What is the name of the_type?
+   * @throws IllegalArgumentException if the_type is not an event type.
+   */
+  public static/* @ non_null @ */String name(final int the_type)
+  {
+    if (!isType(the_type))
+    {
+      throw new IllegalArgumentException("no such event type: " + the_type);
+    }
+    return NAMES[the_type];
+  }
+}
@@ -0,0 +1,424 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.events;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carries board events from the one thread that plays a board to any number
+ * of subscribers, each with a thread of its own, without ever making the
+ * playing thread wait.
+ *
+ * <p>The playing thread publishes events into a pending batch, where a move
+ * or rotation is coalesced with the one before it, and flushes the batch
+ * once a frame into a ring shared by all subscribers. Each subscriber keeps
+ * its own place in the ring, copies out whatever was flushed since and hands
+ * it to its handler as one batch. A subscriber that falls a whole ring behind
+ * loses the oldest events rather than holding the publisher up; it counts
+ * them, and can read the board again to catch up.
+ *
+ * <p>The ring holds each event as primitives in parallel arrays, so neither
+ * publishing nor delivering allocates.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class EventBus
+{
+  /**
+   * The largest capacity a bus can have.
+   */
+  public static final int MAX_CAPACITY = 1 << 24;
+
+  /**
+   * The longest a subscriber waits before looking for events again, in
+   * nanoseconds, in case a wakeup is missed.
+   */
+  private static final long WAIT = 100000000L;
+
+  /**
+   * The event types; the nth event flushed is at index n & my_mask.
+   */
+  private final int[] my_types;
+
+  /**
+   * The first payloads, indexed like my_types.
+   */
+  private final int[] my_as;
+
+  /**
+   * The second payloads, indexed like my_types.
+   */
+  private final int[] my_bs;
+
+  /**
+   * The board versions, indexed like my_types.
+   */
+  private final long[] my_versions;
+
+  /**
+   * The capacity less one; a power of two less one.
+   */
+  private final int my_mask;
+
+  /**
+   * The number of events flushed or being flushed; the slots of the events
+   * before this less the capacity may be overwritten.
+   */
+  private final AtomicLong my_claimed = new AtomicLong();
+
+  /**
+   * The number of events flushed; those before it can be read.
+   */
+  private final AtomicLong my_published = new AtomicLong();
+
+  /**
+   * The subscriptions.
+   */
+  private final CopyOnWriteArrayList<Subscription> my_subscriptions =
+      new CopyOnWriteArrayList<Subscription>();
+
+  /**
+   * The event types of the pending batch.
+   */
+  private final int[] my_pending_types;
+
+  /**
+   * The first payloads of the pending batch.
+   */
+  private final int[] my_pending_as;
+
+  /**
+   * The second payloads of the pending batch.
+   */
+  private final int[] my_pending_bs;
+
+  /**
+   * The board versions of the pending batch.
+   */
+  private final long[] my_pending_versions;
+
+  /**
+   * The number of events in the pending batch.
+   */
+  private int my_pending_count;
+
+  /**
+   * The number of events coalesced.
+   */
+  private long my_coalesced;
+
+  /**
+   * Constructs a new bus.
+   *
+   * @param the_capacity The least number of events the ring holds, and the
+   *          most a batch can hold; it is rounded up to a power of two.
+   * @throws IllegalArgumentException if the_capacity is not between 1 and
+   *           MAX_CAPACITY.
+   */
+  public EventBus(final int the_capacity)
+  {
+    if (the_capacity < 1 || MAX_CAPACITY < the_capacity)
+    {
+      throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY);
+    }
+    final int capacity = Math.max(1, Integer.highestOneBit(the_capacity - 1) << 1);
+    my_mask = capacity - 1;
+    my_types = new int[capacity];
+    my_as = new int[capacity];
+    my_bs = new int[capacity];
+    my_versions = new long[capacity];
+    my_pending_types = new int[capacity];
+    my_pending_as = new int[capacity];
+    my_pending_bs = new int[capacity];
+    my_pending_versions = new long[capacity];
+  }
+
+  /**
+   * @return How many events does the ring hold?
+   */
+  public int capacity()
+  {
+    return my_mask + 1;
+  }
+
+  /**
+   * @return How many events have been coalesced into the one before them?
+   */
+  public long coalesced()
+  {
+    return my_coalesced;
+  }
+
+  /**
+   * Adds an event to the pending batch; to be called by the playing thread
+   * only. A move or rotation that continues a move or rotation of the same
+   * type at the end of the batch is merged into it. A full batch is flushed.
+   *
+   * @param the_type The event type.
+   * @param the_a The first payload.
+   * @param the_b The second payload.
+   * @param the_version The version of the board after the event.
+   * @see BoardEvents
+   */
+  public void publish(final int the_type, final int the_a, final int the_b,
+                      final long the_version)
+  {
+    final int last = my_pending_count - 1;
+    if (0 <= last && BoardEvents.isCoalescing(the_type) &&
+        my_pending_types[last] == the_type && my_pending_bs[last] == the_a)
+    {
+      my_pending_bs[last] = the_b;
+      my_pending_versions[last] = the_version;
+      my_coalesced = my_coalesced + 1;
+    }
+    else
+    {
+      if (my_pending_count == my_pending_types.length)
+      {
+        flush();
+      }
+      final int index = my_pending_count;
+      my_pending_types[index] = the_type;
+      my_pending_as[index] = the_a;
+      my_pending_bs[index] = the_b;
+      my_pending_versions[index] = the_version;
+      my_pending_count = index + 1;
+    }
+  }
+
+  /**
+   * Makes the pending batch visible to the subscribers and wakes those that
+   * wait for it; to be called by the playing thread only, once a frame.
+   */
+  public void flush()
+  {
+    if (0 < my_pending_count)
+    {
+      final long start = my_published.get();
+      final long end = start + my_pending_count;
+      my_claimed.set(end);
+      // keeps the slot writes after the claim, so readers see the overwrite
+      VarHandle.storeStoreFence();
+      for (int i = 0; i < my_pending_count; i++)
+      {
+        final int index = (int) (start + i) & my_mask;
+        my_types[index] = my_pending_types[i];
+        my_as[index] = my_pending_as[i];
+        my_bs[index] = my_pending_bs[i];
+        my_versions[index] = my_pending_versions[i];
+      }
+      my_published.set(end);
+      my_pending_count = 0;
+      for (final Subscription subscription : my_subscriptions)
+      {
+        if (subscription.my_waiting)
+        {
+          LockSupport.unpark(subscription.my_thread);
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts delivering the events flushed from now on to the_handler, on a
+   * new daemon thread.
+   *
+   * @param the_handler The handler.
+   * @return the subscription.
+   */
+  public/* @ non_null @ */Subscription subscribe(final/* @ non_null @ */BoardEventHandler
+                                                 the_handler)
+  {
+    final Subscription result = new Subscription(this, the_handler);
+    my_subscriptions.add(result);
+    result.my_thread.start();
+    return result;
+  }
+
+  /**
+   * One subscriber's place in the ring, and the thread that delivers its
+   * events.
+   *
+   * @author Vladimir Dudnic
+   * @version 1.0
+   */
+  public static final class Subscription implements Runnable
+  {
+    /**
+     * The bus.
+     */
+    private final/* @ non_null @ */EventBus my_bus;
+
+    /**
+     * The handler.
+     */
+    private final/* @ non_null @ */BoardEventHandler my_handler;
+
+    /**
+     * The thread that delivers the events.
+     */
+    private final/* @ non_null @ */Thread my_thread;
+
+    /**
+     * The event types of the batch being delivered.
+     */
+    private final int[] my_types;
+
+    /**
+     * The first payloads of the batch being delivered.
+     */
+    private final int[] my_as;
+
+    /**
+     * The second payloads of the batch being delivered.
+     */
+    private final int[] my_bs;
+
+    /**
+     * The board versions of the batch being delivered.
+     */
+    private final long[] my_versions;
+
+    /**
+     * The number of the next event to deliver.
+     */
+    private long my_next;
+
+    /**
+     * The number of events lost by falling behind.
+     */
+    private volatile long my_dropped;
+
+    /**
+     * The number of events delivered.
+     */
+    private volatile long my_delivered;
+
+    /**
+     * Whether the thread is waiting, or about to, for events to be flushed.
+     */
+    private volatile boolean my_waiting;
+
+    /**
+     * Whether the subscription has been closed.
+     */
+    private volatile boolean my_closed;
+
+    /**
+     * Constructs a new subscription starting at the next event flushed.
+     *
+     * @param the_bus The bus.
+     * @param the_handler The handler.
+     */
+    private Subscription(final EventBus the_bus, final BoardEventHandler the_handler)
+    {
+      my_bus = the_bus;
+      my_handler = the_handler;
+      my_types = new int[the_bus.capacity()];
+      my_as = new int[the_bus.capacity()];
+      my_bs = new int[the_bus.capacity()];
+      my_versions = new long[the_bus.capacity()];
+      my_next = the_bus.my_published.get();
+      my_thread = new Thread(this, "board-events");
+      my_thread.setDaemon(true);
+    }
+
+    /**
+     * @return How many events has the subscriber lost by falling a whole
+     *         ring behind?
+     */
+    public long dropped()
+    {
+      return my_dropped;
+    }
+
+    /**
+     * @return How many events has the handler been given?
+     */
+    public long delivered()
+    {
+      return my_delivered;
+    }
+
+    /**
+     * Stops delivering events, once the batch being delivered is done.
+     */
+    public void close()
+    {
+      my_closed = true;
+      my_bus.my_subscriptions.remove(this);
+      LockSupport.unpark(my_thread);
+    }
+
+    /**
+     * Delivers the events as they are flushed, until closed.
+     */
+    public void run()
+    {
+      while (!my_closed)
+      {
+        if (poll() == 0)
+        {
+          my_waiting = true;
+          // looks again after saying so, so a flush in between is not missed
+          if (my_bus.my_published.get() == my_next && !my_closed)
+          {
+            LockSupport.parkNanos(WAIT);
+          }
+          my_waiting = false;
+        }
+      }
+    }
+
+    /**
+     * Copies the events flushed since the last poll and delivers those that
+     * were not overwritten while they were copied.
+     *
+     * @return the number of events delivered.
+     */
+    private int poll()
+    {
+      final EventBus bus = my_bus;
+      final long end = bus.my_published.get();
+      long start = Math.max(my_next, end - bus.capacity());
+      for (long n = start; n < end; n++)
+      {
+        final int from = (int) n & bus.my_mask;
+        final int to = (int) (n - start);
+        my_types[to] = bus.my_types[from];
+        my_as[to] = bus.my_as[from];
+        my_bs[to] = bus.my_bs[from];
+        my_versions[to] = bus.my_versions[from];
+      }
+      VarHandle.loadLoadFence();
+      // the events the publisher may have begun to overwrite are lost
+      final int skip = (int) Math.min(end - start, Math.max(0, bus.my_claimed.get() -
+                                                              bus.capacity() - start));
+      final int count = (int) Math.max(0, end - start - skip);
+      start = start + skip;
+      if (my_next < start)
+      {
+        my_dropped = my_dropped + start - my_next;
+      }
+      for (int i = 0; i < count; i++)
+      {
+        my_handler.handle(my_types[skip + i], my_as[skip + i], my_bs[skip + i],
+                          my_versions[skip + i], i == count - 1);
+      }
+      my_next = end;
+      my_delivered = my_delivered + count;
+      return count;
+    }
+  }
+}
@@ -4,15 +4,21 @@ import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.Toolkit;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.swing.JFrame;
 
-import tetris.entities.Board;
+import tetris.entities.BoardView;
 import tetris.entities.pieces.Piece;
 import tetris.entities.pieces.Rotation;
 
@@ -141,7 +147,129 @@ public class TetrisCanvas extends Canvas
    * 
    */
   private static final int BOARD_HEIGHT = 20;
- 
+
+  /**
+   * The space above the top row of blocks.
+   */
+  private static final int TOP_MARGIN = 3;
+
+  /**
+   * x coord. for the pause and game over messages.
+   */
+  private static final int MESSAGE_X_LOC = 172;
+
+  /**
+   * y coord. for the pause and game over messages.
+   */
+  private static final int MESSAGE_Y_LOC = 200;
+
+  /**
+   * The size of the info font.
+   */
+  private static final int INFO_FONT_SIZE = 12;
+
+  /**
+   * The font of the side info, made once rather than every frame.
+   */
+  private static final Font INFO_FONT = new Font(Font.DIALOG, Font.PLAIN, INFO_FONT_SIZE);
+
+  /**
+   * The font of the pause and game over messages.
+   */
+  private static final Font MESSAGE_FONT = new Font("", Font.BOLD, FONT);
+
+  /**
+   * The label of the number of complete rows.
+   */
+  private static final char[] ROWS_LABEL = "Full Rows: ".toCharArray();
+
+  /**
+   * The label of the level.
+   */
+  private static final char[] LEVEL_LABEL = "Level: ".toCharArray();
+
+  /**
+   * The label of the seconds left.
+   */
+  private static final char[] TIME_LEFT_LABEL = "Next level in: ".toCharArray();
+
+  /**
+   * The label of the score.
+   */
+  private static final char[] SCORE_LABEL = "Total score: ".toCharArray();
+
+  /**
+   * The pause message.
+   */
+  private static final char[] PAUSED_TEXT = "PAUSED".toCharArray();
+
+  /**
+   * The game over message.
+   */
+  private static final char[] GAME_OVER_TEXT = "GAME OVER!".toCharArray();
+
+  /**
+   * The longest line of info: the longest label, a sign and 19 digits.
+   */
+  private static final int TEXT_CAPACITY = 40;
+
+  /**
+   * The base numbers are drawn in.
+   */
+  private static final int RADIX = 10;
+
+  /**
+   * The color of an empty cell.
+   */
+  private static final Color EMPTY_COLOR = Color.WHITE;
+
+  /**
+   * No message is shown.
+   */
+  private static final int NO_MESSAGE = 0;
+
+  /**
+   * The pause message is shown.
+   */
+  private static final int PAUSE_MESSAGE = 1;
+
+  /**
+   * The game over message is shown.
+   */
+  private static final int GAME_OVER_MESSAGE = 2;
+
+  /**
+   * The system property that, if "true", makes new canvases accelerated.
+   */
+  public static final String ACCELERATED_PROPERTY = "tetris.accelerated";
+
+  /**
+   * The number of buffers of an accelerated canvas: one shown, one drawn.
+   */
+  private static final int BUFFERS = 2;
+
+  /**
+   * If frames are drawn into a VolatileImage and shown through a
+   * BufferStrategy, rather than drawn into a software image shown by paint().
+   */
+  private final boolean my_accelerated;
+
+  /**
+   * The buffers an accelerated canvas shows its frames through, or null
+   * before the first frame.
+   */
+  private BufferStrategy my_strategy;
+
+  /**
+   * my_offscreen if it is a VolatileImage, or null.
+   */
+  private VolatileImage my_volatile;
+
+  /**
+   * The block images, pre-rendered once per color.
+   */
+  private final Map<Color, Image> my_sprites = new HashMap<Color, Image>();
+
   /**
    * 
    */
@@ -149,7 +277,7 @@ public class TetrisCanvas extends Canvas
   /**
    * 
    */
-  private Board my_board;
+  private BoardView my_board;
   /**
    * 
    */
@@ -193,10 +321,93 @@ public class TetrisCanvas extends Canvas
   private Image my_offscreen;
 
   /**
-   *  The object we will use to write with.
+   *  The object we will use to write with; it lasts as long as my_offscreen.
    */
   private Graphics my_graphics;
+
+  /**
+   *  The colors of the cells drawn in my_offscreen, row by row from the top;
+   *  null if a cell has not been drawn.
+   */
+  private final Color[] my_shown_cells = new Color[BOARD_WIDTH * BOARD_HEIGHT];
+
+  /**
+   *  The board drawn in my_offscreen.
+   */
+  private BoardView my_shown_board;
+
+  /**
+   *  The version of the board drawn in my_offscreen.
+   */
+  private long my_shown_version;
+
+  /**
+   *  The number of complete rows drawn in my_offscreen, or -1.
+   */
+  private int my_shown_rows;
+
+  /**
+   *  The level drawn in my_offscreen, or -1.
+   */
+  private int my_shown_level;
+
+  /**
+   *  The seconds left drawn in my_offscreen, or -1.
+   */
+  private int my_shown_seconds;
+
+  /**
+   *  The score drawn in my_offscreen, or -1.
+   */
+  private long my_shown_score;
+
+  /**
+   *  The message drawn in my_offscreen, or -1.
+   */
+  private int my_shown_message;
+
+  /**
+   *  Whether paint() had no frame of the right size to show, so the next
+   *  render() is needed even if nothing changed; set on the event thread and
+   *  cleared on the game thread.
+   */
+  private volatile boolean my_stale;
+
+  /**
+   *  The line of info being drawn, reused so no String is made per line.
+   */
+  private final char[] my_text = new char[TEXT_CAPACITY];
+
+  /**
+   *  The metrics of INFO_FONT in my_graphics.
+   */
+  private FontMetrics my_info_metrics;
+
+  /**
+   *  The metrics of MESSAGE_FONT in my_graphics.
+   */
+  private FontMetrics my_message_metrics;
  
+  /**
+   * Creates a new canvas, accelerated if the system property
+   * ACCELERATED_PROPERTY is "true".
+   */
+  public TetrisCanvas()
+  {
+    this(Boolean.getBoolean(ACCELERATED_PROPERTY));
+  }
+
+  /**
+   * Creates a new canvas.
+   * @param the_accelerated is whether frames are drawn into video memory
+   *          and shown by page flipping
+   */
+  public TetrisCanvas(final boolean the_accelerated)
+  {
+    super();
+    my_accelerated = the_accelerated;
+  }
+
   /**
    * Sets a 2d array to be drawn. Which should be the current piece in play.
    * 
@@ -228,11 +439,12 @@ public class TetrisCanvas extends Canvas
   }
 
   /**
-   * Sets the board to be drawn.
+   * Sets the board to be drawn. It is read, not copied, when a frame is
+   * drawn, which render() does on the calling thread.
    * 
    * @param the_board is the board.
    */
-  public void setBoard(final Board the_board)
+  public void setBoard(final BoardView the_board)
   {
     my_board = the_board;
   }
@@ -243,8 +455,14 @@ public class TetrisCanvas extends Canvas
    * @param the_column_location Column which in play game piece will be drawn
    * @param the_row_location Row which in play game piece will be drawn
    */
-  public void setPaintLocation(final int the_column_location, final int the_row_location)
+  public synchronized void setPaintLocation(final int the_column_location,
+                                            final int the_row_location)
   {
+    if (the_column_location != my_column_multiplyer || the_row_location != my_row_multiplyer)
+    {
+      // the cells move, so the whole image is drawn again
+      my_offscreen = null;
+    }
     my_column_multiplyer = the_column_location;
     my_row_multiplyer = the_row_location;
   }
@@ -315,20 +533,165 @@ public class TetrisCanvas extends Canvas
   }
 
   /**
-   * Overridden from super.
+   * Overridden from super. Shows the offscreen image as render() last drew
+   * it. The board is never read here, on the event thread, since the game
+   * thread may be changing it; if there is no image of the right size yet,
+   * the canvas is marked stale and the next render() draws one.
    * @param  the_g is graphics
    */
-  public void paint(final Graphics the_g)
+  public synchronized void paint(final Graphics the_g)
   {
     super.paint(the_g);
-    
-    if (my_offscreen == null)
+
+    if (my_offscreen != null && my_offscreen.getWidth(null) == this.getWidth() &&
+        my_offscreen.getHeight(null) == this.getHeight() &&
+        (my_volatile == null || !my_volatile.contentsLost()))
+    {
+      the_g.drawImage(my_offscreen, 0, 0, this);
+    }
+    else
+    {
+      my_stale = true;
+    }
+  }
+
+  /**
+   *  Gets whether paint() found no frame to show since the last render(), so
+   *  the game should render one even if it is paused.
+   * @return true if a frame is needed
+   */
+  public boolean isStale()
+  {
+    return my_stale;
+  }
+
+  /**
+   * Draws a frame on the calling thread, which should be the thread that
+   * changes the board, so the frame never shows a change half made. Only the
+   * cells and info that changed since the last frame are drawn again into
+   * the offscreen image. An accelerated canvas shows the frame at once;
+   * otherwise a repaint is asked for, which shows it. Until the canvas is
+   * displayable and has a size there is nothing to draw into, so nothing is
+   * drawn.
+   */
+  public synchronized void render()
+  {
+    my_stale = false;
+    final boolean shown = this.isDisplayable() && this.getWidth() > 0 &&
+                          this.getHeight() > 0;
+    if (shown && my_accelerated)
+    {
+      this.present();
+    }
+    else if (shown && (this.prepareOffscreen() || my_offscreen != null))
+    {
+      this.drawCells();
+      this.drawInfo();
+      this.repaint();
+    }
+  }
+
+  /**
+   *  Draws what changed into the offscreen image, copies it to the back
+   *  buffer and shows it, again until no contents were lost on the way.
+   */
+  private void present()
+  {
+    if (my_strategy == null)
+    {
+      // page flipping if the display can, else copying
+      this.createBufferStrategy(BUFFERS);
+      my_strategy = this.getBufferStrategy();
+    }
+    do
+    {
+      do
+      {
+        this.prepareOffscreen();
+        if (my_offscreen != null)
+        {
+          this.drawCells();
+          this.drawInfo();
+          final Graphics graphics = my_strategy.getDrawGraphics();
+          graphics.drawImage(my_offscreen, 0, 0, null);
+          graphics.dispose();
+        }
+      }
+      while (my_strategy.contentsRestored() ||
+             my_volatile != null && my_volatile.contentsLost());
+      my_strategy.show();
+    }
+    while (my_strategy.contentsLost());
+  }
+
+  /**
+   *  Makes sure the offscreen image exists, has the size of the canvas and,
+   *  if it is a VolatileImage, still has its contents. The canvas cannot
+   *  make an image before it is displayable; my_offscreen is then left null.
+   * @return true if the image was made or cleared, and so needs a frame
+   */
+  private boolean prepareOffscreen()
+  {
+    boolean fresh = my_offscreen == null || my_offscreen.getWidth(null) != this.getWidth() ||
+                    my_offscreen.getHeight(null) != this.getHeight();
+    boolean result = false;
+    if (!fresh && my_volatile != null)
+    {
+      final int status = my_volatile.validate(this.getGraphicsConfiguration());
+      if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+      {
+        fresh = true;
+      }
+      else if (status == VolatileImage.IMAGE_RESTORED)
+      {
+        this.clearOffscreen();
+        result = true;
+      }
+    }
+    if (fresh)
+    {
+      this.createOffscreen();
+    }
+    return my_offscreen != null && (result || fresh);
+  }
+
+  /**
+   *  Makes the offscreen image, in video memory if the canvas is accelerated,
+   *  and clears it; my_offscreen is null if no image could be made.
+   */
+  private void createOffscreen()
+  {
+    my_volatile = null;
+    if (my_accelerated && this.isDisplayable())
+    {
+      my_volatile = createVolatileImage(this.getWidth(), this.getHeight());
+      my_offscreen = my_volatile;
+    }
+    else
     {
       my_offscreen = createImage(this.getWidth(), this.getHeight());
     }
+    // the display may have changed, and the sprites with it
+    my_sprites.clear();
+    if (my_offscreen != null)
+    {
+      this.clearOffscreen();
+    }
+  }
 
+  /**
+   *  Draws what never changes into the offscreen image and marks everything
+   *  else as not yet drawn.
+   */
+  private void clearOffscreen()
+  {
+    if (my_graphics != null)
+    {
+      my_graphics.dispose();
+    }
     my_graphics = my_offscreen.getGraphics();
-
+    my_info_metrics = my_graphics.getFontMetrics(INFO_FONT);
+    my_message_metrics = my_graphics.getFontMetrics(MESSAGE_FONT);
 
     // Draw a black background
     my_graphics.setColor(Color.BLACK);
@@ -347,59 +710,209 @@ public class TetrisCanvas extends Canvas
     my_graphics.drawRect(GAME_INFO_X_LOC, GAME_INFO_Y_LOC, 
                             GAME_INFO_WIDTH, GAME_INFO_HEIGHT);
 
-    // Draws the piece
-  
-    int row = BLOCK_WIDTH * my_row_multiplyer + 3; 
-    int col = BLOCK_WIDTH * my_column_multiplyer;
-  
-    for (int i = 0; i < BOARD_WIDTH; i++)
-    {
+    Arrays.fill(my_shown_cells, null);
+    my_shown_board = null;
+    my_shown_version = Long.MIN_VALUE;
+    my_shown_rows = -1;
+    my_shown_level = -1;
+    my_shown_seconds = -1;
+    my_shown_score = -1;
+    my_shown_message = -1;
+  }
 
-      my_graphics.drawRect(col + BORDER, row, BLOCK_DRAW_SIZE, BLOCK_DRAW_SIZE);
+  /**
+   *  Gets the image of a block, rendering it the first time it is asked for.
+   *  The images are compatible with the display, so drawing one is a copy
+   *  that the display can accelerate.
+   * @param the_color is the color of the block
+   * @return the image
+   */
+  private Image sprite(final Color the_color)
+  {
+    Image result = my_sprites.get(the_color);
+    if (result == null)
+    {
+      final GraphicsConfiguration configuration = this.getGraphicsConfiguration();
+      if (configuration == null)
+      {
+        result = new BufferedImage(BLOCK_DRAW_SIZE, BLOCK_DRAW_SIZE,
+                                   BufferedImage.TYPE_INT_RGB);
+      }
+      else
+      {
+        result = configuration.createCompatibleImage(BLOCK_DRAW_SIZE, BLOCK_DRAW_SIZE);
+      }
+      final Graphics graphics = result.getGraphics();
+      graphics.setColor(the_color);
+      graphics.fillRect(0, 0, BLOCK_DRAW_SIZE, BLOCK_DRAW_SIZE);
+      graphics.dispose();
+      my_sprites.put(the_color, result);
     }
+    return result;
+  }
 
-   // my_board = new ArrayList<List<Color[]>>();
-    for (int i = 0; i < BOARD_HEIGHT; i++)
+  /**
+   *  Draws the cells whose colors changed since they were last drawn; if the
+   *  board and its version are the same as last time, none did.
+   */
+  private void drawCells()
+  {
+    final BoardView board = my_board;
+    long version = Long.MIN_VALUE + 1;
+    if (board != null)
     {
-      for (int j = 0; j < BOARD_WIDTH; j++)
+      version = board.version();
+    }
+    if (board != my_shown_board || version != my_shown_version)
+    {
+      final int left = BLOCK_WIDTH * my_column_multiplyer + BORDER;
+      final int top = BLOCK_WIDTH * my_row_multiplyer + TOP_MARGIN;
+      for (int row = 0; row < BOARD_HEIGHT; row++)
       {
-       // my_board.add(new ArrayList<Color[]>());
-        my_graphics.fillRect(col + BORDER, row, BLOCK_DRAW_SIZE, BLOCK_DRAW_SIZE);
-        col += BLOCK_WIDTH;
+        for (int col = 0; col < BOARD_WIDTH; col++)
+        {
+          Color color = EMPTY_COLOR;
+          if (board != null && col < board.width() && row < board.height())
+          {
+            final Color block = board.color(col, board.height() - 1 - row);
+            if (block != null)
+            {
+              color = block;
+            }
+          }
+          final int index = row * BOARD_WIDTH + col;
+          if (!color.equals(my_shown_cells[index]))
+          {
+            my_graphics.drawImage(this.sprite(color), left + col * BLOCK_WIDTH,
+                                  top + row * BLOCK_WIDTH, null);
+            my_shown_cells[index] = color;
+          }
+        }
       }
-      col = 0;
-      row += BLOCK_WIDTH;
-
+      my_shown_board = board;
+      my_shown_version = version;
     }
-    
-   //Draws side info status stuff
-    my_graphics.setColor(Color.WHITE);
-    my_graphics.drawString("Full Rows: " + my_completed_rows, ROWS_X_LOC, ROWS_Y_LOC);
-
-    my_graphics.drawString("Level: " + my_level, LEVEL_X_LOC, LEVEL_Y_LOC);
+  }
 
-    my_graphics.drawString("Next level in: " + my_till_next_level, TIME_LEFT_X_LOC,
-                              TIME_LEFT_Y_LOC);
-    my_graphics.drawString("Total score: " + my_score, SCORE_X_LOC, SCORE_Y_LOC);
- 
-    if (this.my_draw_pause)
+  /**
+   *  Draws the side info that changed since it was last drawn. The lines are
+   *  formatted into a reused buffer, so a frame makes no garbage.
+   */
+  private void drawInfo()
+  {
+    if (my_completed_rows != my_shown_rows)
     {
-      my_graphics.setFont(new Font("", Font.BOLD, FONT));
-      my_graphics.setColor(Color.BLUE);
-      my_graphics.drawString("PAUSED", 0, 0);
+      this.drawText(my_text, this.format(ROWS_LABEL, my_completed_rows), my_info_metrics,
+                    Color.WHITE, ROWS_X_LOC, ROWS_Y_LOC);
+      my_shown_rows = my_completed_rows;
+    }
+    if (my_level != my_shown_level)
+    {
+      this.drawText(my_text, this.format(LEVEL_LABEL, my_level), my_info_metrics,
+                    Color.WHITE, LEVEL_X_LOC, LEVEL_Y_LOC);
+      my_shown_level = my_level;
+    }
+    if (my_till_next_level != my_shown_seconds)
+    {
+      this.drawText(my_text, this.format(TIME_LEFT_LABEL, my_till_next_level),
+                    my_info_metrics, Color.WHITE, TIME_LEFT_X_LOC, TIME_LEFT_Y_LOC);
+      my_shown_seconds = my_till_next_level;
+    }
+    if (my_score != my_shown_score)
+    {
+      this.drawText(my_text, this.format(SCORE_LABEL, my_score), my_info_metrics,
+                    Color.WHITE, SCORE_X_LOC, SCORE_Y_LOC);
+      my_shown_score = my_score;
     }
 
-    // Draws game over, if it is set to
+    // Draws game over, if it is set to, or else paused
+    int message = NO_MESSAGE;
     if (this.my_draw_game_over)
     {
-      my_graphics.setFont(new Font("", Font.BOLD, FONT));
-      my_graphics.setColor(Color.RED);
-      my_graphics.drawString("GAME OVER!", 0, 0);
+      message = GAME_OVER_MESSAGE;
+    }
+    else if (this.my_draw_pause)
+    {
+      message = PAUSE_MESSAGE;
     }
-   
-    my_graphics.dispose();
-    the_g.drawImage(my_offscreen, 0, 0, this);
+    if (message != my_shown_message)
+    {
+      char[] text = my_text;
+      int length = 0;
+      Color color = Color.BLACK;
+      if (message == GAME_OVER_MESSAGE)
+      {
+        text = GAME_OVER_TEXT;
+        length = GAME_OVER_TEXT.length;
+        color = Color.RED;
+      }
+      else if (message == PAUSE_MESSAGE)
+      {
+        text = PAUSED_TEXT;
+        length = PAUSED_TEXT.length;
+        color = Color.BLUE;
+      }
+      this.drawText(text, length, my_message_metrics, color, MESSAGE_X_LOC, MESSAGE_Y_LOC);
+      my_shown_message = message;
+    }
+  }
 
+  /**
+   *  Writes a label and a number into my_text.
+   * @param the_label is the label
+   * @param the_value is the number
+   * @return the number of chars written
+   */
+  private int format(final char[] the_label, final long the_value)
+  {
+    System.arraycopy(the_label, 0, my_text, 0, the_label.length);
+    int result = the_label.length;
+    if (the_value < 0)
+    {
+      my_text[result] = '-';
+      result = result + 1;
+    }
+    // the digits, last first; the remainders are negated for negative
+    // values, which covers Long.MIN_VALUE too
+    final int start = result;
+    long value = the_value;
+    do
+    {
+      my_text[result] = (char) ('0' + Math.abs(value % RADIX));
+      value = value / RADIX;
+      result = result + 1;
+    }
+    while (value != 0);
+    for (int i = start, j = result - 1; i < j; i++, j--)
+    {
+      final char digit = my_text[i];
+      my_text[i] = my_text[j];
+      my_text[j] = digit;
+    }
+    return result;
+  }
+
+  /**
+   *  Clears a line of the game info area from the_x to its right border and
+   *  draws the text there.
+   * @param the_chars is the text
+   * @param the_length is the length of the text
+   * @param the_metrics is the metrics of the font to draw in
+   * @param the_color is the color
+   * @param the_x is the x coord. of the text
+   * @param the_y is the y coord. of the text's baseline
+   */
+  private void drawText(final char[] the_chars, final int the_length,
+                        final FontMetrics the_metrics, final Color the_color,
+                        final int the_x, final int the_y)
+  {
+    my_graphics.setColor(Color.BLACK);
+    my_graphics.fillRect(the_x, the_y - the_metrics.getAscent(),
+                         GAME_INFO_X_LOC + GAME_INFO_WIDTH - the_x,
+                         the_metrics.getAscent() + the_metrics.getDescent());
+    my_graphics.setFont(the_metrics.getFont());
+    my_graphics.setColor(the_color);
+    my_graphics.drawChars(the_chars, 0, the_length, the_x, the_y);
   }
 
   /**
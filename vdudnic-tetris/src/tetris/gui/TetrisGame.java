@@ -2,15 +2,24 @@ package tetris.gui;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.JFrame;
 
 import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.CommandQueue;
 import tetris.entities.piecegen.PieceGenerator;
 import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+import tetris.events.BoardEvents;
+import tetris.events.EventBus;
 import timer.CountDown;
+import timer.FixedStepScheduler;
 import timer.IsTimeUp;
+import timer.Tickable;
 import timer.TimerEvent;
+import timer.TimingWheel;
 
 /**
  * Handles how the game plays, user key presses and  
@@ -66,6 +75,83 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
    */
   private static final int DROP_TIME_REDUCTION = 20;
 
+  /**
+   *  The shortest time between a piece drops a row, reached at level
+   *  (DROP_WAIT - MIN_DROP_WAIT) / DROP_TIME_REDUCTION.
+   */
+  private static final int MIN_DROP_WAIT = 20;
+
+  /**
+   *  How long a piece may rest on the stack before it locks, in milliseconds.
+   */
+  private static final int LOCK_DELAY = 500;
+
+  /**
+   *  The time between frames, in nanoseconds.
+   */
+  private static final long FRAME_PERIOD = 1000000000L / 60;
+
+  /**
+   *  The longest the game loop waits before looking at the pause state again,
+   *  in milliseconds.
+   */
+  private static final int PAUSE_POLL = 50;
+
+  /**
+   *  The number of nanoseconds in a millisecond.
+   */
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  /**
+   *  The number of milliseconds in a second.
+   */
+  private static final long MILLIS_PER_SECOND = 1000L;
+
+  /**
+   *  The number of seconds in a minute.
+   */
+  private static final long SECONDS_PER_MINUTE = 60L;
+
+  /**
+   *  The tick of the timing wheel, in nanoseconds.
+   */
+  private static final long WHEEL_TICK = NANOS_PER_MILLI;
+
+  /**
+   *  The number of scheduler channels: gravity, lock delay and rendering.
+   */
+  private static final int CHANNELS = 3;
+
+  /**
+   *  The most key presses waiting for the game thread; more are dropped.
+   */
+  private static final int INPUT_CAPACITY = 64;
+
+  /**
+   *  The most board events a frame can hold, and subscribers can fall behind.
+   */
+  private static final int EVENT_CAPACITY = 1024;
+
+  /**
+   *  The input code to rotate the current piece in the rotate direction.
+   */
+  private static final int ROTATE = Command.COMMANDS;
+
+  /**
+   *  The input code to toggle the rotate direction.
+   */
+  private static final int TOGGLE_ROTATION = Command.COMMANDS + 1;
+
+  /**
+   *  The input code to pause or resume the game.
+   */
+  private static final int PAUSE = Command.COMMANDS + 2;
+
+  /**
+   *  The input code to restart the game.
+   */
+  private static final int RESTART = Command.COMMANDS + 3;
+
  /**
   *  Minutes until graduation to next level.
   */
@@ -122,10 +208,57 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
    */
   private char my_rotate_direction = 'R';
 
+  /**
+   *  Fires the level countdown; advanced by the game loop.
+   */
+  private final TimingWheel my_wheel = new TimingWheel(WHEEL_TICK, System.nanoTime());
+
   /**
    *  Creates a new timer to count time until next level.
    */
-  private CountDown my_countdown = new timer.CountDown(0, TILL_SPEED_UP, 0, 0);
+  private CountDown my_countdown = new CountDown(my_wheel, 0, TILL_SPEED_UP, 0, 0);
+
+  /**
+   *  Runs gravity, lock delay and rendering at their own rates.
+   */
+  private FixedStepScheduler my_scheduler;
+
+  /**
+   *  The scheduler channel of gravity.
+   */
+  private int my_gravity;
+
+  /**
+   *  The state of the current piece at the last lock delay step if it was
+   *  resting on the stack then, or -1.
+   */
+  private int my_lock_state = -1;
+
+  /**
+   *  The time left after the last frame was drawn, in nanoseconds.
+   */
+  private volatile long my_frame_time_left;
+
+  /**
+   *  The key presses, passed from the event thread to the game thread, which
+   *  alone changes the board.
+   */
+  private final CommandQueue my_inputs = new CommandQueue(INPUT_CAPACITY);
+
+  /**
+   *  The thread running the game loop.
+   */
+  private volatile Thread my_thread;
+
+  /**
+   *  The time from the last key press to its handling, in nanoseconds.
+   */
+  private volatile long my_input_latency;
+
+  /**
+   *  The board events, flushed to the subscribers once a frame.
+   */
+  private final EventBus my_events = new EventBus(EVENT_CAPACITY);
 
   /** 
    * Creates a new instance of TetrisGame. 
@@ -134,6 +267,7 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
   {
     super();
     my_board = new Board(BOARD_HEIGHT, BOARD_WIDTH, BOARD_SEED);
+    my_board.setEventBus(my_events);
 
     my_countdown.addTimesUpListener(this);
     my_game_canvas = new TetrisCanvas();
@@ -152,60 +286,204 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
   }
 
   /**
-   * The game loop.
+   * The game loop. Gravity, lock delay and rendering each run at their own
+   * fixed rate, and the loop waits until the next of them is due or a key
+   * is pressed. Key presses are handled first, in the order they were made.
    */
   public void run()
   {
+    final long start = System.nanoTime();
+    my_scheduler = new FixedStepScheduler(CHANNELS);
+    my_gravity = my_scheduler.add(my_drop_wait * NANOS_PER_MILLI, true, new Tickable()
+    {
+      public void tick(final long the_time)
+      {
+        gravity();
+      }
+    }, start);
+    my_scheduler.add(LOCK_DELAY * NANOS_PER_MILLI, true, new Tickable()
+    {
+      public void tick(final long the_time)
+      {
+        lock();
+      }
+    }, start);
+    my_scheduler.add(FRAME_PERIOD, false, new Tickable()
+    {
+      public void tick(final long the_time)
+      {
+        render();
+      }
+    }, start);
 
-    while (!GAME_OVER)
+    final CommandQueue.Handler handler = new CommandQueue.Handler()
     {
+      public void handle(final int the_command, final long the_time)
+      {
+        input(the_command, the_time);
+      }
+    };
 
-      if (!my_paused_game)
+    while (true)
+    {
+      my_inputs.drain(handler, INPUT_CAPACITY);
+      final long now = System.nanoTime();
+      my_wheel.advance(now);
+      my_scheduler.pause(my_paused_game || GAME_OVER, now);
+      final long left = my_scheduler.runDue(now);
+      if (my_game_canvas.isStale())
       {
+        // the window was resized or uncovered while no frame was due
+        render();
+      }
+      LockSupport.parkNanos(Math.min(left, PAUSE_POLL * NANOS_PER_MILLI));
+    }
+  }
 
-        my_game_canvas.setSeconds(Integer.parseInt(my_countdown.formatAsDate
-          (my_countdown.getTimeToGo()).split(":")[2]));
+  /**
+   *  Gets the time that was left after the last frame was drawn.
+   * @return the time left in nanoseconds, negative if the loop is behind
+   */
+  public long getFrameTimeLeft()
+  {
+    return my_frame_time_left;
+  }
 
-        this.piecePlaced();
-     
-        my_cur_piece.moveDown();
-     
-        this.drawGame();
+  /**
+   *  Gets the bus the board events are published to, for recorders and
+   *  broadcasters to subscribe to.
+   * @return the event bus
+   */
+  public EventBus getEventBus()
+  {
+    return my_events;
+  }
+
+  /**
+   *  Gets the time from the last key press to its handling.
+   * @return the latency in nanoseconds
+   */
+  public long getInputLatency()
+  {
+    return my_input_latency;
+  }
 
+  /**
+   *  Handles a key press on the game thread.
+   * @param the_command is the input code
+   * @param the_time is the time of the key press
+   */
+  private void input(final int the_command, final long the_time)
+  {
+    my_input_latency = System.nanoTime() - the_time;
+    if (the_command == PAUSE)
+    {
+      my_paused_game = !my_paused_game;
+      my_game_canvas.setPaused(this.my_paused_game);
+      my_countdown.pause(this.my_paused_game || GAME_OVER);
+      this.drawGame();
+    }
+    else if (the_command == TOGGLE_ROTATION)
+    {
+      if (this.my_rotate_direction == 'R')
+      {
+        this.my_rotate_direction = 'L';
+        my_game_canvas.setRotationDirection("Left");
+      }
+      else
+      {
+        this.my_rotate_direction = 'R';
+        my_game_canvas.setRotationDirection("Right");
+      }
+      this.drawGame();
+    }
+    else if (the_command == RESTART)
+    {
+      this.restart();
+    }
+    else if (!my_paused_game && !GAME_OVER)
+    {
+      int command = the_command;
+      if (command == ROTATE && this.my_rotate_direction == 'R')
+      {
+        command = Command.ROTATE_CLOCKWISE;
       }
-      
-      try
+      else if (command == ROTATE)
       {
-        Thread.sleep(my_drop_wait);
+        command = Command.ROTATE_COUNTERCLOCKWISE;
       }
-      catch (final InterruptedException ex)
+      Command.apply(my_board, command);
+      if (my_board.lastBlocksPlaced() > 0)
       {
-        ex.printStackTrace();
+        my_lock_state = -1;
+        this.piecePlaced();
       }
+    }
+  }
 
+  /**
+   *  Moves the current piece down a row, unless it rests on the stack, in
+   *  which case it is left for lock() to freeze.
+   */
+  private void gravity()
+  {
+    if (!my_board.collides(PieceStates.moveDown(my_board.currentState())))
+    {
+      my_board.moveDown();
     }
   }
 
   /**
-   *  Places a tetris piece on the board. 
+   *  Freezes the current piece if it has rested on the stack, without
+   *  moving, since the last lock delay step.
+   */
+  private void lock()
+  {
+    final int state = my_board.currentState();
+    if (!my_board.collides(PieceStates.moveDown(state)))
+    {
+      my_lock_state = -1;
+    }
+    else if (state == my_lock_state)
+    {
+      my_board.moveDown();
+      my_lock_state = -1;
+      this.piecePlaced();
+    }
+    else
+    {
+      my_lock_state = state;
+    }
+  }
+
+  /**
+   *  Draws a frame and notes the time left after it.
+   */
+  private void render()
+  {
+    my_game_canvas.setSeconds((int) (my_countdown.getTimeToGo() / MILLIS_PER_SECOND %
+                                     SECONDS_PER_MINUTE));
+    this.drawGame();
+    my_frame_time_left = my_scheduler.getTimeLeft(System.nanoTime());
+  }
+
+  /**
+   *  Updates the game after a piece has been frozen.
    */
   private void piecePlaced()
   {
     int rows = 0;
 
-    my_board.projection();
-
     if (my_board.isFull())
     {
       TetrisGame.GAME_OVER = true;
+      my_countdown.pause(true);
       my_game_canvas.setGameOver(true);
+      this.drawGame();
     }
     else
     {
-      my_cur_piece = my_next_piece;
-    
-      // next_piece = new Piece();
-      // next_piece = random.next();
+      my_cur_piece = my_board.currentPiece();
       my_next_piece = my_board.nextPiece();
       rows = my_board.lastLinesRemoved();
       this.my_cleared_rows += rows;
@@ -220,25 +498,31 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
   {
     Thread thread;
     thread = new Thread(this);
+    my_thread = thread;
     thread.start();
   }
 
   /**
-   * Restarts the game.
+   * Restarts the game, on the game thread.
    */
   private void restart()
   {
     // Create a new timer
-    my_countdown = new timer.CountDown(0, TILL_SPEED_UP, 0, 0);
+    my_countdown.cancel();
+    my_countdown = new CountDown(my_wheel, 0, TILL_SPEED_UP, 0, 0);
     my_countdown.addTimesUpListener(this);
 
-    my_cur_piece = my_board.currentPiece();
+    my_board = new Board(BOARD_HEIGHT, BOARD_WIDTH, BOARD_SEED);
+    my_board.setEventBus(my_events);
+    my_events.publish(BoardEvents.RESET, my_board.currentState(), 0, my_board.version());
 
-    my_next_piece = my_random.next();
+    my_cur_piece = my_board.currentPiece();
 
-    my_board = new Board(BOARD_HEIGHT, BOARD_WIDTH, BOARD_SEED);
+    my_next_piece = my_board.nextPiece();
 
     this.my_drop_wait = DROP_WAIT;
+    my_scheduler.setPeriod(my_gravity, my_drop_wait * NANOS_PER_MILLI);
+    my_lock_state = -1;
 
     my_paused_game = false;
     my_game_canvas.setPaused(false);
@@ -248,19 +532,8 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
     my_cleared_rows = 0;
     my_level = 0;
 
-    TetrisGame.GAME_OVER = true;
-
-    try
-    {
-      Thread.currentThread();
-      Thread.sleep(DROP_WAIT);
-    }
-    catch (final InterruptedException ex)
-    {
-      ex.printStackTrace();
-    }
-
-    this.start(); 
+    TetrisGame.GAME_OVER = false;
+    this.drawGame();
   }
 
  /**
@@ -297,17 +570,17 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
    */
   private void drawGame()
   {
-    final Board board = new Board(BOARD_HEIGHT, BOARD_WIDTH, BOARD_SEED);
     my_game_canvas.setScore(this.my_total_points); 
     my_game_canvas.setRowsComplete(this.my_cleared_rows); 
 
-    my_game_canvas.setBoard(board); 
+    my_game_canvas.setBoard(my_board); 
     my_game_canvas.setPiece(my_cur_piece);
     // Sets the location to draw the current piece
     // my_game_canvas.setPaintLocation(my_cur_piece.getColumnLocation(),
     //cur_piece.getRowLocation());
     // my_game_canvas.setArrayPiece(b1.currentPiece()); //Sets the current piece
-    my_game_canvas.repaint();
+    my_game_canvas.render();
+    my_events.flush();
   }
   /**
    * @param the_event is key event.
@@ -328,79 +601,57 @@ public class TetrisGame extends JFrame implements Runnable, KeyListener, IsTimeU
    */
   public void keyPressed(final KeyEvent the_event)
   {
+    int command = -1;
 
     if (the_event.getKeyCode() == KeyEvent.VK_DOWN)
     {
-      my_board.currentPiece().moveDown();
- 
+      command = Command.MOVE_DOWN;
     }
     else if (the_event.getKeyCode() == KeyEvent.VK_P)
     {
-      my_paused_game = !my_paused_game; 
-      my_game_canvas.setPaused(this.my_paused_game);
-      my_countdown.pause(this.my_paused_game);
-      this.drawGame(); 
-
-   
+      command = PAUSE;
     }
     else if (the_event.getKeyCode() == KeyEvent.VK_UP)
     {
-
-      if (this.my_rotate_direction == 'R')
-      {
-        my_board.currentPiece().rotateClockwise();
-   
-
-      }
-      else
-      {
-        my_board.currentPiece().rotateCounterclockwise();
-      }
-
+      command = ROTATE;
     }
     else if (the_event.getKeyCode() == KeyEvent.VK_RIGHT)
     {
-
-      my_board.currentPiece().moveRight();
-   
+      command = Command.MOVE_RIGHT;
     }
     else if (the_event.getKeyCode() == KeyEvent.VK_LEFT)
     {
-      my_board.currentPiece().moveLeft();
-   
+      command = Command.MOVE_LEFT;
     }
     else if (the_event.getKeyCode() == KeyEvent.VK_R)
     {
- 
-      if (this.my_rotate_direction == 'R')
-      {
-        this.my_rotate_direction = 'L';
-        my_game_canvas.setRotationDirection("Left");
-    
-      }
-      else
-      {
-        this.my_rotate_direction = 'R';
-        my_game_canvas.setRotationDirection("Right");
-      }
-      this.drawGame();
+      command = TOGGLE_ROTATION;
     }
     else if (the_event.getKeyCode() == KeyEvent.VK_N)
     {
-      this.restart(); 
+      command = RESTART;
+    }
+
+    // the game thread handles the key press; if it is that far behind, the
+    // key press is dropped
+    if (command >= 0 && my_inputs.offer(command, System.nanoTime()))
+    {
+      LockSupport.unpark(my_thread);
     }
   }
 
   /**
-   * Called when its time to move onto next level.
+   * Called when its time to move onto next level, on the game thread.
    * @param the_event 
    */
   public void timesUp(final TimerEvent the_event)
   {
 
-    this.my_drop_wait -= TetrisGame.DROP_TIME_REDUCTION; 
+    this.my_drop_wait = Math.max(MIN_DROP_WAIT,
+                                 this.my_drop_wait - TetrisGame.DROP_TIME_REDUCTION);
+    my_scheduler.setPeriod(my_gravity, my_drop_wait * NANOS_PER_MILLI);
     this.my_game_canvas.setLevel(++this.my_level); 
-    my_countdown = new timer.CountDown(0, TILL_SPEED_UP, 0, 0);
+    my_countdown = new CountDown(my_wheel, 0, TILL_SPEED_UP, 0, 0);
     
     
     my_countdown.addTimesUpListener(this);
@@ -0,0 +1,209 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.replay;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import tetris.entities.Board;
+import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+
+/**
+ * A recorded game: the board size, how its pieces were generated and the
+ * commands given, each with the time since the previous one. The commands are
+ * kept in their encoded form, a varint per command holding the time in
+ * milliseconds shifted left past the command code, so a replay in memory is as
+ * small as one on disk.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class Replay
+{
+  /**
+   * The board height.
+   */
+  private final int my_height;
+
+  /**
+   * The board width.
+   */
+  private final int my_width;
+
+  /**
+   * The seed of the random generator; unused if there is a sequence.
+   */
+  private final long my_seed;
+
+  /**
+   * The packed states of the sequence of pieces, or null if the game used the
+   * random generator.
+   */
+  private final/* @ nullable @ */int[] my_sequence;
+
+  /**
+   * The encoded commands, from position 0 to the limit; possibly a slice of
+   * a larger buffer such as a mapped archive.
+   */
+  private final/* @ non_null @ */ByteBuffer my_moves;
+
+  /**
+   * The number of commands.
+   */
+  private final int my_move_count;
+
+  /**
+   * The time from the start of the game to the last command, in milliseconds.
+   */
+  private final long my_duration;
+
+  /**
+   * Constructs a new replay. Neither the sequence nor the moves are copied.
+   *
+   * @param the_height The board height.
+   * @param the_width The board width.
+   * @param the_seed The seed of the random generator.
+   * @param the_sequence The packed states of the sequence of pieces, or null.
+   * @param the_moves The encoded commands.
+   * @param the_move_count The number of commands.
+   * @param the_duration The time of the last command, in milliseconds.
+   */
+  Replay(final int the_height, final int the_width, final long the_seed,
+         final int[] the_sequence, final ByteBuffer the_moves, final int the_move_count,
+         final long the_duration)
+  {
+    my_height = the_height;
+    my_width = the_width;
+    my_seed = the_seed;
+    my_sequence = the_sequence;
+    my_moves = the_moves;
+    my_move_count = the_move_count;
+    my_duration = the_duration;
+  }
+
+  /**
+   * @return What is the board height?
+   */
+  public int height()
+  {
+    return my_height;
+  }
+
+  /**
+   * @return What is the board width?
+   */
+  public int width()
+  {
+    return my_width;
+  }
+
+  /**
+   * @return Did the game use the random generator rather than a sequence?
+   */
+  public boolean isRandom()
+  {
+    return my_sequence == null;
+  }
+
+  /**
+   * @return What is the seed of the random generator?
+   */
+  public long seed()
+  {
+    return my_seed;
+  }
+
+  /**
+   * @return What are the packed states of the sequence of pieces? An empty
+   *         array if the game used the random generator.
+   */
+  public/* @ non_null @ */int[] sequence()
+  {
+    int[] result = new int[0];
+    if (my_sequence != null)
+    {
+      result = my_sequence.clone();
+    }
+    return result;
+  }
+
+  /**
+   * @return How many commands were given?
+   */
+  public int moveCount()
+  {
+    return my_move_count;
+  }
+
+  /**
+   * @return How many milliseconds after the start was the last command given?
+   */
+  public long duration()
+  {
+    return my_duration;
+  }
+
+  /**
+   * @return What are the encoded commands? The buffer is read only and
+   *         shares the bytes of this replay.
+   */
+  public/* @ non_null @ */ByteBuffer moves()
+  {
+    return my_moves.asReadOnlyBuffer();
+  }
+
+  /**
+   * @return How many bytes do the encoded commands take?
+   */
+  public int movesLength()
+  {
+    return my_moves.limit();
+  }
+
+  /**
+   * @return a new board in the state the recorded game started in.
+   */
+  public/* @ non_null @ */Board newBoard()
+  {
+    final Board result;
+    if (my_sequence == null)
+    {
+      result = new Board(my_height, my_width, my_seed);
+    }
+    else
+    {
+      final List<Piece> pieces = new ArrayList<Piece>(my_sequence.length);
+      for (int i = 0; i < my_sequence.length; i++)
+      {
+        pieces.add(PieceStates.toPiece(my_sequence[i]));
+      }
+      result = new Board(my_height, my_width, pieces);
+    }
+    return result;
+  }
+
+  /**
+   * @return the encoded commands themselves, for the codec.
+   */
+  ByteBuffer rawMoves()
+  {
+    return my_moves;
+  }
+
+  /**
+   * @return the sequence itself, or null, for the codec.
+   */
+  int[] rawSequence()
+  {
+    return my_sequence;
+  }
+}
@@ -0,0 +1,535 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An append-only archive of replays in a directory of memory-mapped files.
+ * The replays themselves go, encoded, into segment files of a fixed size; an
+ * index file maps the id of each replay to the segment and offset where it
+ * starts. Every counter lives in the mapped files, so an archive picks up
+ * where it left off when it is opened again.
+ *
+ * <p>Any number of threads may append at once. A writer takes an id and room
+ * in the current segment with atomic adds on the mapped counters, copies its
+ * replay in, and only then publishes the index entry with a release store;
+ * only rolling over to a new segment takes a lock. Readers load index entries
+ * with acquire, so a replay they can see has all of its bytes in place, and
+ * they decode it straight out of the mapping without copying it to the heap.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class ReplayArchive implements Closeable
+{
+  /**
+   * The default size of a segment file, in bytes.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+  /**
+   * The default number of replays an archive can hold.
+   */
+  public static final long DEFAULT_CAPACITY = 1L << 24;
+
+  /**
+   * The name of the index file.
+   */
+  private static final String INDEX_NAME = "replays.idx";
+
+  /**
+   * The format of the names of the segment files.
+   */
+  private static final String SEGMENT_NAME = "replays-%05d.seg";
+
+  /**
+   * The first int of the index file.
+   */
+  private static final int INDEX_MAGIC = 0x54524149;
+
+  /**
+   * The first int of every segment file.
+   */
+  private static final int SEGMENT_MAGIC = 0x54524153;
+
+  /**
+   * The offset of the segment size in the index file.
+   */
+  private static final int SEGMENT_SIZE_OFFSET = 4;
+
+  /**
+   * The offset of the capacity in the index file.
+   */
+  private static final int CAPACITY_OFFSET = 8;
+
+  /**
+   * The offset of the number of ids taken in the index file.
+   */
+  private static final int COUNT_OFFSET = 16;
+
+  /**
+   * The offset of the first entry in the index file.
+   */
+  private static final int ENTRIES_OFFSET = 24;
+
+  /**
+   * The offset of the number of bytes taken in a segment file.
+   */
+  private static final int TAKEN_OFFSET = 4;
+
+  /**
+   * The offset of the first record in a segment file.
+   */
+  private static final int RECORDS_OFFSET = 8;
+
+  /**
+   * The alignment of records in a segment file, so that every length prefix
+   * can be read and written atomically.
+   */
+  private static final int ALIGNMENT = 8;
+
+  /**
+   * The size of a length prefix.
+   */
+  private static final int LENGTH_BYTES = 4;
+
+  /**
+   * The size of an index entry.
+   */
+  private static final int ENTRY_BYTES = 8;
+
+  /**
+   * The number of bits of an index entry that hold the offset.
+   */
+  private static final int OFFSET_BITS = 32;
+
+  /**
+   * The mask of the offset in an index entry.
+   */
+  private static final long OFFSET_MASK = 0xffffffffL;
+
+  /**
+   * Atomic and ordered access to the ints of a mapped file.
+   */
+  private static final VarHandle INT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+  /**
+   * Atomic and ordered access to the longs of a mapped file.
+   */
+  private static final VarHandle LONG =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  /**
+   * The directory of the archive.
+   */
+  private final/* @ non_null @ */Path my_directory;
+
+  /**
+   * The size of a segment file, in bytes.
+   */
+  private final int my_segment_size;
+
+  /**
+   * The number of replays the archive can hold.
+   */
+  private final long my_capacity;
+
+  /**
+   * The open files, closed with the archive.
+   */
+  private final/* @ non_null @ */List<FileChannel> my_channels = new ArrayList<FileChannel>();
+
+  /**
+   * The mapped index file.
+   */
+  private final/* @ non_null @ */MappedByteBuffer my_index;
+
+  /**
+   * The mapped segment files, by number; replaced, never changed, when a
+   * segment is added.
+   */
+  private volatile/* @ non_null @ */MappedByteBuffer[] my_segments;
+
+  /**
+   * Opens the archive in the_directory, creating it with the default segment
+   * size and capacity if there is none.
+   *
+   * @param the_directory The directory.
+   * @throws IOException if the files cannot be opened or are not an archive.
+   */
+  public ReplayArchive(final/* @ non_null @ */Path the_directory) throws IOException
+  {
+    this(the_directory, DEFAULT_SEGMENT_SIZE, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Opens the archive in the_directory, creating it if there is none. An
+   * existing archive keeps the segment size and capacity it was created with.
+   *
+   * @param the_directory The directory.
+   * @param the_segment_size The size of a segment file, in bytes, for a new
+   *          archive.
+   * @param the_capacity The number of replays a new archive can hold. The
+   *          index file is sparse, so room for unused entries costs little.
+   * @throws IOException if the files cannot be opened or are not an archive.
+   * @throws IllegalArgumentException if the segment size is too small or the
+   *           capacity is not positive or too large to map.
+   */
+  public ReplayArchive(final/* @ non_null @ */Path the_directory, final int the_segment_size,
+                       final long the_capacity) throws IOException
+  {
+    if (the_segment_size <= RECORDS_OFFSET || the_capacity <= 0 ||
+        (Integer.MAX_VALUE - ENTRIES_OFFSET) / ENTRY_BYTES < the_capacity)
+    {
+      throw new IllegalArgumentException("bad segment size or capacity");
+    }
+    my_directory = the_directory;
+    Files.createDirectories(the_directory);
+    final Path index_path = the_directory.resolve(INDEX_NAME);
+    final boolean exists = Files.exists(index_path);
+    if (exists)
+    {
+      final ByteBuffer header = ByteBuffer.allocate(ENTRIES_OFFSET);
+      final FileChannel channel = FileChannel.open(index_path, StandardOpenOption.READ);
+      try
+      {
+        channel.read(header, 0);
+      }
+      finally
+      {
+        channel.close();
+      }
+      if (header.getInt(0) != INDEX_MAGIC)
+      {
+        throw new IOException("not a replay archive: " + the_directory);
+      }
+      my_segment_size = header.getInt(SEGMENT_SIZE_OFFSET);
+      my_capacity = header.getLong(CAPACITY_OFFSET);
+    }
+    else
+    {
+      my_segment_size = the_segment_size;
+      my_capacity = the_capacity;
+    }
+    my_index = map(index_path, ENTRIES_OFFSET + my_capacity * ENTRY_BYTES);
+    if (!exists)
+    {
+      my_index.putInt(SEGMENT_SIZE_OFFSET, my_segment_size);
+      my_index.putLong(CAPACITY_OFFSET, my_capacity);
+      INT.setRelease(my_index, 0, INDEX_MAGIC);
+    }
+    final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+    while (segments.isEmpty() || Files.exists(segmentPath(segments.size())))
+    {
+      segments.add(openSegment(segments.size()));
+    }
+    my_segments = segments.toArray(new MappedByteBuffer[segments.size()]);
+  }
+
+  /**
+   * Appends the_replay to the archive.
+   *
+   * @param the_replay The replay.
+   * @return the id of the replay.
+   * @throws IOException if a new segment file cannot be created.
+   * @throws IllegalStateException if the archive is full.
+   * @throws IllegalArgumentException if the replay does not fit in a segment.
+   */
+  public long append(final/* @ non_null @ */Replay the_replay) throws IOException
+  {
+    return append(ReplayCodec.encode(the_replay));
+  }
+
+  /**
+   * Appends a replay already encoded by ReplayCodec to the archive.
+   *
+   * @param the_encoded The encoded replay.
+   * @return the id of the replay.
+   * @throws IOException if a new segment file cannot be created.
+   * @throws IllegalStateException if the archive is full.
+   * @throws IllegalArgumentException if the replay does not fit in a segment.
+   */
+  public long append(final/* @ non_null @ */byte[] the_encoded) throws IOException
+  {
+    final int size = align(LENGTH_BYTES + the_encoded.length);
+    if (my_segment_size - RECORDS_OFFSET < size)
+    {
+      throw new IllegalArgumentException("replay too large: " + the_encoded.length);
+    }
+    final long result = (long) LONG.getAndAdd(my_index, COUNT_OFFSET, 1L);
+    if (my_capacity <= result)
+    {
+      throw new IllegalStateException("archive full: " + my_capacity + " replays");
+    }
+    MappedByteBuffer[] segments = my_segments;
+    int number = segments.length - 1;
+    int offset = (int) INT.getAndAdd(segments[number], TAKEN_OFFSET, size);
+    while (offset < RECORDS_OFFSET || my_segment_size - size < offset)
+    {
+      // the segment is full, or its counter has run past the end on failed
+      // attempts; move on to the next one
+      segments = roll(number);
+      number = segments.length - 1;
+      offset = (int) INT.getAndAdd(segments[number], TAKEN_OFFSET, size);
+    }
+    final ByteBuffer record = segments[number].duplicate();
+    record.position(offset + LENGTH_BYTES);
+    record.put(the_encoded);
+    record.putInt(offset, the_encoded.length);
+    LONG.setRelease(my_index, entryOffset(result), (long) number << OFFSET_BITS | offset);
+    return result;
+  }
+
+  /**
+   * @return How many ids have been taken? Replays with lower ids are in the
+   *         archive or are still being written.
+   */
+  public long size()
+  {
+    return Math.min(my_capacity, (long) LONG.getAcquire(my_index, COUNT_OFFSET));
+  }
+
+  /**
+   * @param the_id The id.
+   * @return Has the replay with id the_id been completely written?
+   */
+  public boolean isPublished(final long the_id)
+  {
+    return 0 <= the_id && the_id < size() && entry(the_id) != 0;
+  }
+
+  /**
+   * @param the_id The id of a published replay.
+   * @return the encoded replay with id the_id, as a read-only slice of the
+   *         mapped segment file.
+   * @throws IllegalArgumentException if there is no published replay with id
+   *           the_id.
+   */
+  public/* @ non_null @ */ByteBuffer encoded(final long the_id)
+  {
+    if (!isPublished(the_id))
+    {
+      throw new IllegalArgumentException("no replay with id " + the_id);
+    }
+    final long entry = entry(the_id);
+    final int offset = (int) (entry & OFFSET_MASK);
+    final ByteBuffer result =
+        my_segments[(int) (entry >>> OFFSET_BITS)].asReadOnlyBuffer();
+    result.position(offset + LENGTH_BYTES);
+    result.limit(offset + LENGTH_BYTES + result.getInt(offset));
+    return result.slice();
+  }
+
+  /**
+   * @param the_id The id of a published replay.
+   * @return the replay with id the_id. Its moves are read straight from the
+   *         mapped segment file.
+   * @throws IllegalArgumentException if there is no published replay with id
+   *           the_id.
+   */
+  public/* @ non_null @ */Replay get(final long the_id)
+  {
+    return ReplayCodec.decode(encoded(the_id));
+  }
+
+  /**
+   * Calls the_visitor with every published replay in order of id.
+   *
+   * @param the_visitor The visitor.
+   * @return the number of replays visited.
+   */
+  public long scan(final/* @ non_null @ */Visitor the_visitor)
+  {
+    return scan(0, size(), the_visitor);
+  }
+
+  /**
+   * Calls the_visitor with every published replay whose id is at least
+   * the_from and less than the_to, in order of id. Scans of disjoint ranges
+   * can run on different threads.
+   *
+   * @param the_from The first id.
+   * @param the_to The id after the last.
+   * @param the_visitor The visitor.
+   * @return the number of replays visited.
+   */
+  public long scan(final long the_from, final long the_to,
+                   final/* @ non_null @ */Visitor the_visitor)
+  {
+    long result = 0;
+    final long to = Math.min(the_to, size());
+    for (long id = Math.max(0, the_from); id < to; id++)
+    {
+      if (entry(id) != 0)
+      {
+        the_visitor.visit(id, get(id));
+        result = result + 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes everything appended so far out to the files.
+   */
+  public void force()
+  {
+    final MappedByteBuffer[] segments = my_segments;
+    for (int i = 0; i < segments.length; i++)
+    {
+      segments[i].force();
+    }
+    my_index.force();
+  }
+
+  /**
+   * Writes everything out and closes the files. The mappings, and so any
+   * replays read from them, stay valid until they are garbage collected.
+   *
+   * @throws IOException if a file cannot be closed.
+   */
+  public void close() throws IOException
+  {
+    force();
+    synchronized (my_channels)
+    {
+      for (FileChannel channel : my_channels)
+      {
+        channel.close();
+      }
+      my_channels.clear();
+    }
+  }
+
+  /**
+   * Makes sure there is a segment after number the_full, adding one if no
+   * other writer has.
+   *
+   * @param the_full The number of a full segment.
+   * @return the segments.
+   * @throws IOException if the segment file cannot be created.
+   */
+  private synchronized MappedByteBuffer[] roll(final int the_full) throws IOException
+  {
+    if (my_segments.length - 1 == the_full)
+    {
+      final MappedByteBuffer[] segments = Arrays.copyOf(my_segments, the_full + 2);
+      segments[the_full + 1] = openSegment(the_full + 1);
+      my_segments = segments;
+    }
+    return my_segments;
+  }
+
+  /**
+   * Maps segment file the_number, creating it if there is none.
+   *
+   * @param the_number The number of the segment.
+   * @return the mapped segment.
+   * @throws IOException if the file cannot be opened or is not a segment.
+   */
+  private MappedByteBuffer openSegment(final int the_number) throws IOException
+  {
+    final MappedByteBuffer result = map(segmentPath(the_number), my_segment_size);
+    if (result.getInt(0) == 0)
+    {
+      result.putInt(TAKEN_OFFSET, RECORDS_OFFSET);
+      INT.setRelease(result, 0, SEGMENT_MAGIC);
+    }
+    else if (result.getInt(0) != SEGMENT_MAGIC)
+    {
+      throw new IOException("not a replay segment: " + segmentPath(the_number));
+    }
+    return result;
+  }
+
+  /**
+   * Maps the_size bytes of file the_path for reading and writing, creating it
+   * if there is none.
+   *
+   * @param the_path The path.
+   * @param the_size The size.
+   * @return the mapped file.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  private MappedByteBuffer map(final Path the_path, final long the_size) throws IOException
+  {
+    final FileChannel channel =
+        FileChannel.open(the_path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                         StandardOpenOption.WRITE);
+    synchronized (my_channels)
+    {
+      my_channels.add(channel);
+    }
+    return channel.map(FileChannel.MapMode.READ_WRITE, 0, the_size);
+  }
+
+  /**
+   * @param the_number The number of a segment.
+   * @return the path of the segment file.
+   */
+  private Path segmentPath(final int the_number)
+  {
+    return my_directory.resolve(String.format(SEGMENT_NAME, the_number));
+  }
+
+  /**
+   * @param the_id The id.
+   * @return the index entry of the_id, 0 if it is not published yet.
+   */
+  private long entry(final long the_id)
+  {
+    return (long) LONG.getAcquire(my_index, entryOffset(the_id));
+  }
+
+  /**
+   * @param the_id The id.
+   * @return the offset of the index entry of the_id in the index file.
+   */
+  private static int entryOffset(final long the_id)
+  {
+    return (int) (ENTRIES_OFFSET + the_id * ENTRY_BYTES);
+  }
+
+  /**
+   * @param the_size A size.
+   * @return the_size rounded up to the record alignment.
+   */
+  private static int align(final int the_size)
+  {
+    return (the_size + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  /**
+   * Receives the replays of a scan.
+   */
+  public interface Visitor
+  {
+    /**
+     * @param the_id The id of the replay.
+     * @param the_replay The replay; its moves are read from the mapped file.
+     */
+    void visit(long the_id, /* @ non_null @ */Replay the_replay);
+  }
+}
@@ -0,0 +1,362 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.replay;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import tetris.entities.Command;
+
+/**
+ * Reads and writes replays in a compact binary format. All numbers are
+ * unsigned LEB128 varints, seven bits to a byte with the high bit set on every
+ * byte but the last; the seed is zigzag encoded first so small negative seeds
+ * stay small. A replay is laid out as
+ *
+ * <pre>
+ * 'T' 'R' 'P' version
+ * height width sequence-length (seed | state...)
+ * move-count duration moves-length move...
+ * </pre>
+ *
+ * where a sequence length of 0 means the random generator, and each move is
+ * the milliseconds since the previous move shifted left by Command.BITS, or'ed
+ * with the command code. At human speed most moves take one or two bytes.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public final class ReplayCodec
+{
+  /**
+   * The current format version.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The most bytes a varint can take.
+   */
+  public static final int MAX_VARINT_BYTES = 10;
+
+  /**
+   * The most varints in a header besides the states of the sequence.
+   */
+  private static final int HEADER_VARINTS = 7;
+
+  /**
+   * The bytes every encoded replay starts with.
+   */
+  private static final byte[] MAGIC = {'T', 'R', 'P'};
+
+  /**
+   * The payload bits of a varint byte.
+   */
+  private static final int PAYLOAD = 0x7f;
+
+  /**
+   * The continuation bit of a varint byte.
+   */
+  private static final int MORE = 0x80;
+
+  /**
+   * The number of payload bits in a varint byte.
+   */
+  private static final int PAYLOAD_BITS = 7;
+
+  /**
+   * The mask of the command code in a move.
+   */
+  private static final int COMMAND_MASK = (1 << Command.BITS) - 1;
+
+  /**
+   * There are no codec objects.
+   */
+  private ReplayCodec()
+  {
+    // do nothing
+  }
+
+  // Replays
+
+  /**
+   * @param the_replay The replay.
+   * @return the_replay in the binary format.
+   */
+  public static/* @ non_null @ */byte[] encode(final/* @ non_null @ */Replay the_replay)
+  {
+    final int[] sequence = the_replay.rawSequence();
+    final ByteBuffer moves = the_replay.rawMoves().duplicate();
+    final int states;
+    if (sequence == null)
+    {
+      states = 0;
+    }
+    else
+    {
+      states = sequence.length;
+    }
+    final byte[] header =
+        new byte[MAGIC.length + 1 + (states + HEADER_VARINTS) * MAX_VARINT_BYTES];
+    int position = 0;
+    for (int i = 0; i < MAGIC.length; i++)
+    {
+      header[position] = MAGIC[i];
+      position = position + 1;
+    }
+    header[position] = (byte) VERSION;
+    position = position + 1;
+    position = putVarint(header, position, the_replay.height());
+    position = putVarint(header, position, the_replay.width());
+    position = putVarint(header, position, states);
+    if (sequence == null)
+    {
+      position = putVarint(header, position, zigzag(the_replay.seed()));
+    }
+    else
+    {
+      for (int i = 0; i < states; i++)
+      {
+        position = putVarint(header, position, sequence[i]);
+      }
+    }
+    position = putVarint(header, position, the_replay.moveCount());
+    position = putVarint(header, position, the_replay.duration());
+    position = putVarint(header, position, moves.limit());
+    final byte[] result = new byte[position + moves.limit()];
+    System.arraycopy(header, 0, result, 0, position);
+    moves.position(0);
+    moves.get(result, position, moves.limit());
+    return result;
+  }
+
+  /**
+   * @param the_bytes A replay in the binary format.
+   * @return the replay.
+   * @throws IllegalArgumentException if the_bytes is not a replay of this
+   *           format version or is truncated.
+   */
+  public static/* @ non_null @ */Replay decode(final/* @ non_null @ */byte[] the_bytes)
+  {
+    return decode(ByteBuffer.wrap(the_bytes));
+  }
+
+  /**
+   * Reads a replay from the_buffer, leaving its position just past the end of
+   * the replay so that replays written back to back can be read in turn. The
+   * moves of the replay are not copied: they are a slice of the_buffer, so
+   * the_buffer must not change while the replay is in use.
+   *
+   * @param the_buffer A buffer positioned at a replay in the binary format.
+   * @return the replay.
+   * @throws IllegalArgumentException if the_buffer does not hold a replay of
+   *           this format version or the replay is truncated.
+   */
+  public static/* @ non_null @ */Replay decode(final/* @ non_null @ */ByteBuffer the_buffer)
+  {
+    try
+    {
+      for (int i = 0; i < MAGIC.length; i++)
+      {
+        if (the_buffer.get() != MAGIC[i])
+        {
+          throw new IllegalArgumentException("not a replay");
+        }
+      }
+      final int version = the_buffer.get();
+      if (version != VERSION)
+      {
+        throw new IllegalArgumentException("unsupported replay version: " + version);
+      }
+      final int height = getInt(the_buffer);
+      final int width = getInt(the_buffer);
+      final int states = getLength(the_buffer);
+      long seed = 0;
+      int[] sequence = null;
+      if (states == 0)
+      {
+        seed = unzigzag(getVarint(the_buffer));
+      }
+      else
+      {
+        sequence = new int[states];
+        for (int i = 0; i < states; i++)
+        {
+          sequence[i] = getInt(the_buffer);
+        }
+      }
+      final int move_count = getInt(the_buffer);
+      final long duration = getVarint(the_buffer);
+      final int length = getLength(the_buffer);
+      final ByteBuffer moves = the_buffer.slice();
+      moves.limit(length);
+      the_buffer.position(the_buffer.position() + length);
+      return new Replay(height, width, seed, sequence, moves, move_count, duration);
+    }
+    catch (final BufferUnderflowException e)
+    {
+      throw new IllegalArgumentException("truncated replay", e);
+    }
+  }
+
+  // Moves
+
+  /**
+   * @param the_delay The milliseconds since the previous move.
+   * @param the_command The command.
+   * @return the move giving the_command the_delay milliseconds after the
+   *         previous one.
+   */
+  public static long move(final long the_delay, final int the_command)
+  {
+    return the_delay << Command.BITS | the_command;
+  }
+
+  /**
+   * @param the_move The move.
+   * @return What is the command of the_move?
+   */
+  public static int command(final long the_move)
+  {
+    return (int) the_move & COMMAND_MASK;
+  }
+
+  /**
+   * @param the_move The move.
+   * @return How many milliseconds after the previous move is the_move?
+   */
+  public static long delay(final long the_move)
+  {
+    return the_move >>> Command.BITS;
+  }
+
+  // Varints
+
+  /**
+   * Writes the_value to the_bytes as a varint. There must be room for
+   * MAX_VARINT_BYTES bytes at the_position.
+   *
+   * @param the_bytes The bytes.
+   * @param the_position The position to write at.
+   * @param the_value The value, treated as unsigned.
+   * @return the position just past the varint.
+   */
+  public static int putVarint(final byte[] the_bytes, final int the_position,
+                              final long the_value)
+  {
+    int position = the_position;
+    long value = the_value;
+    while ((value & ~PAYLOAD) != 0)
+    {
+      the_bytes[position] = (byte) (value & PAYLOAD | MORE);
+      position = position + 1;
+      value = value >>> PAYLOAD_BITS;
+    }
+    the_bytes[position] = (byte) value;
+    return position + 1;
+  }
+
+  /**
+   * Reads a varint from the_buffer.
+   *
+   * @param the_buffer The buffer.
+   * @return the value.
+   * @throws IllegalArgumentException if the varint is longer than
+   *           MAX_VARINT_BYTES.
+   * @throws BufferUnderflowException if the_buffer ends inside the varint.
+   */
+  public static long getVarint(final ByteBuffer the_buffer)
+  {
+    long result = 0;
+    int shift = 0;
+    int next = the_buffer.get();
+    while ((next & MORE) != 0)
+    {
+      result = result | (long) (next & PAYLOAD) << shift;
+      shift = shift + PAYLOAD_BITS;
+      if (MAX_VARINT_BYTES * PAYLOAD_BITS <= shift)
+      {
+        throw new IllegalArgumentException("varint too long");
+      }
+      next = the_buffer.get();
+    }
+    return result | (long) next << shift;
+  }
+
+  /**
+   * @param the_value The value.
+   * @return How many bytes does the_value take as a varint?
+   */
+  public static int varintSize(final long the_value)
+  {
+    int result = 1;
+    long value = the_value >>> PAYLOAD_BITS;
+    while (value != 0)
+    {
+      result = result + 1;
+      value = value >>> PAYLOAD_BITS;
+    }
+    return result;
+  }
+
+  /**
+   * @param the_value A signed value.
+   * @return the_value with its sign moved to the low bit, so that values near
+   *         zero of either sign are small.
+   */
+  public static long zigzag(final long the_value)
+  {
+    return the_value << 1 ^ the_value >> (Long.SIZE - 1);
+  }
+
+  /**
+   * @param the_value A zigzag encoded value.
+   * @return the signed value.
+   */
+  public static long unzigzag(final long the_value)
+  {
+    return the_value >>> 1 ^ -(the_value & 1);
+  }
+
+  /**
+   * Reads a varint that must fit in a non-negative int.
+   *
+   * @param the_buffer The buffer.
+   * @return the value.
+   * @throws IllegalArgumentException if the value does not fit.
+   */
+  private static int getInt(final ByteBuffer the_buffer)
+  {
+    final long result = getVarint(the_buffer);
+    if (result < 0 || Integer.MAX_VALUE < result)
+    {
+      throw new IllegalArgumentException("value out of range: " + result);
+    }
+    return (int) result;
+  }
+
+  /**
+   * Reads the length of something that follows, which cannot be more than
+   * the bytes left since every element takes at least one byte.
+   *
+   * @param the_buffer The buffer.
+   * @return the length.
+   * @throws IllegalArgumentException if the length is more than the bytes
+   *           left in the_buffer.
+   */
+  private static int getLength(final ByteBuffer the_buffer)
+  {
+    final int result = getInt(the_buffer);
+    if (the_buffer.remaining() < result)
+    {
+      throw new IllegalArgumentException("truncated replay");
+    }
+    return result;
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.replay;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.pieces.Piece;
+
+/**
+ * Plays a replay back on a new board. Nothing here waits: step() applies the
+ * next command at once, and time() tells a caller that wants real-time
+ * playback when it was given. Playing a whole replay with run() goes as fast
+ * as the board allows and touches neither the AWT toolkit nor Swing.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class ReplayPlayer
+{
+  /**
+   * The number of nanoseconds in a second.
+   */
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /**
+   * The default number of games recorded and played by main().
+   */
+  private static final int DEFAULT_GAMES = 2000;
+
+  /**
+   * The board height of the games recorded by main().
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The board width of the games recorded by main().
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The limit on the number of pieces in a game recorded by main().
+   */
+  private static final int MAX_PIECES = 1000;
+
+  /**
+   * The longest pause between two commands of a game recorded by main(), in
+   * milliseconds.
+   */
+  private static final int MAX_DELAY = 400;
+
+  /**
+   * The number of times main() plays the recorded games.
+   */
+  private static final int ROUNDS = 20;
+
+  /**
+   * The replay.
+   */
+  private final/* @ non_null @ */Replay my_replay;
+
+  /**
+   * The board the replay is played on.
+   */
+  private final/* @ non_null @ */Board my_board;
+
+  /**
+   * The encoded moves, positioned at the next move.
+   */
+  private final/* @ non_null @ */ByteBuffer my_moves;
+
+  /**
+   * The number of moves played.
+   */
+  private int my_moves_played;
+
+  /**
+   * The time of the last move played, in milliseconds from the start.
+   */
+  private long my_time;
+
+  /**
+   * The number of pieces frozen.
+   */
+  private int my_pieces;
+
+  /**
+   * The number of lines cleared.
+   */
+  private int my_lines;
+
+  /**
+   * Constructs a new player for the_replay, on a new board in the state the
+   * game started in.
+   *
+   * @param the_replay The replay.
+   */
+  public ReplayPlayer(final/* @ non_null @ */Replay the_replay)
+  {
+    my_replay = the_replay;
+    my_board = the_replay.newBoard();
+    my_moves = the_replay.moves();
+  }
+
+  /**
+   * @return the board the replay is played on.
+   */
+  public/* @ non_null @ */Board board()
+  {
+    return my_board;
+  }
+
+  /**
+   * @return Are there moves left to play?
+   */
+  public boolean hasNext()
+  {
+    return my_moves_played < my_replay.moveCount();
+  }
+
+  /**
+   * Plays the next move.
+   *
+   * @return the command played.
+   * @throws IllegalStateException if there are no moves left.
+   * @throws IllegalArgumentException if the replay holds a bad move.
+   */
+  public int step()
+  {
+    if (!hasNext())
+    {
+      throw new IllegalStateException("no moves left");
+    }
+    final long move = ReplayCodec.getVarint(my_moves);
+    final int result = ReplayCodec.command(move);
+    Command.apply(my_board, result);
+    my_time = my_time + ReplayCodec.delay(move);
+    my_moves_played = my_moves_played + 1;
+    if (my_board.lastBlocksPlaced() != 0)
+    {
+      my_pieces = my_pieces + 1;
+      my_lines = my_lines + my_board.lastLinesRemoved();
+    }
+    return result;
+  }
+
+  /**
+   * Plays all the moves left.
+   *
+   * @return the board.
+   * @throws IllegalArgumentException if the replay holds a bad move.
+   */
+  public/* @ non_null @ */Board run()
+  {
+    while (hasNext())
+    {
+      step();
+    }
+    return my_board;
+  }
+
+  /**
+   * @return When was the last move played given, in milliseconds from the
+   *         start of the game?
+   */
+  public long time()
+  {
+    return my_time;
+  }
+
+  /**
+   * @return How many pieces have been frozen?
+   */
+  public int pieces()
+  {
+    return my_pieces;
+  }
+
+  /**
+   * @return How many lines have been cleared?
+   */
+  public int lines()
+  {
+    return my_lines;
+  }
+
+  /**
+   * Records a number of random games, checks that each replay ends on the
+   * same board as its game, and prints how fast the replays play and how
+   * small they are.
+   *
+   * @param the_args The number of games, optional.
+   */
+  public static void main(final String[] the_args)
+  {
+    System.setProperty("java.awt.headless", "true");
+    int games = DEFAULT_GAMES;
+    if (0 < the_args.length)
+    {
+      games = Integer.parseInt(the_args[0]);
+    }
+    final byte[][] encoded = new byte[games][];
+    long bytes = 0;
+    for (int i = 0; i < games; i++)
+    {
+      final ReplayRecorder recorder = record(i);
+      encoded[i] = ReplayCodec.encode(recorder.replay());
+      bytes = bytes + encoded[i].length;
+      final Board board = new ReplayPlayer(ReplayCodec.decode(encoded[i])).run();
+      if (!board.toString().equals(recorder.board().toString()))
+      {
+        throw new IllegalStateException("replay " + i + " does not match its game");
+      }
+    }
+    long pieces = 0;
+    long nanos = 0;
+    // the early rounds warm up the compiler, so only the last one is timed
+    for (int round = 0; round < ROUNDS; round++)
+    {
+      pieces = 0;
+      final long start = System.nanoTime();
+      for (int i = 0; i < games; i++)
+      {
+        final ReplayPlayer player = new ReplayPlayer(ReplayCodec.decode(encoded[i]));
+        player.run();
+        pieces = pieces + player.pieces();
+      }
+      nanos = System.nanoTime() - start;
+    }
+    System.out.printf("%d games, %d pieces, %.2f bytes/piece, %.0f pieces/s%n", games,
+                      pieces, (double) bytes / pieces, pieces * NANOS_PER_SECOND / nanos);
+  }
+
+  /**
+   * Records a game of random moves with random pauses between them.
+   *
+   * @param the_seed The seed of the game.
+   * @return the recorder of the game.
+   */
+  private static ReplayRecorder record(final long the_seed)
+  {
+    final ReplayRecorder result = new ReplayRecorder(HEIGHT, WIDTH, the_seed);
+    final Random random = new Random(the_seed);
+    long time = 0;
+    int pieces = 0;
+    while (!result.board().isFull() && pieces < MAX_PIECES)
+    {
+      final int turns = random.nextInt(Piece.NUMBER_OF_BLOCKS);
+      final int shift = random.nextInt(WIDTH) - WIDTH / 2;
+      final int falls = random.nextInt(Piece.NUMBER_OF_BLOCKS);
+      for (int i = 0; i < turns; i++)
+      {
+        time = time + random.nextInt(MAX_DELAY);
+        result.apply(Command.ROTATE_CLOCKWISE, time);
+      }
+      int direction = Command.MOVE_RIGHT;
+      if (shift < 0)
+      {
+        direction = Command.MOVE_LEFT;
+      }
+      for (int i = 0; i < Math.abs(shift); i++)
+      {
+        time = time + random.nextInt(MAX_DELAY);
+        result.apply(direction, time);
+      }
+      // without a turn or a shift the flags are still those of the last lock
+      boolean locked = false;
+      for (int i = 0; i < falls && !locked; i++)
+      {
+        time = time + random.nextInt(MAX_DELAY);
+        result.apply(Command.MOVE_DOWN, time);
+        locked = result.board().lastBlocksPlaced() != 0;
+      }
+      if (!locked)
+      {
+        time = time + random.nextInt(MAX_DELAY);
+        result.apply(Command.DROP, time);
+      }
+      pieces = pieces + 1;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.replay;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.pieces.Piece;
+
+/**
+ * Plays a game on a board of its own and records every command given to it.
+ * Commands must go through the recorder, not straight to the board, or the
+ * replay will not match the game.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class ReplayRecorder
+{
+  /**
+   * The initial capacity of the move buffer, in bytes.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The number of nanoseconds in a millisecond.
+   */
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  /**
+   * The board the game is played on.
+   */
+  private final/* @ non_null @ */Board my_board;
+
+  /**
+   * The seed of the random generator; unused if there is a sequence.
+   */
+  private final long my_seed;
+
+  /**
+   * The packed states of the sequence of pieces, or null.
+   */
+  private final/* @ nullable @ */int[] my_sequence;
+
+  /**
+   * The System.nanoTime() at which the game started.
+   */
+  private final long my_start_nanos;
+
+  /**
+   * The encoded moves; only the first my_length bytes are used.
+   */
+  private byte[] my_moves = new byte[INITIAL_CAPACITY];
+
+  /**
+   * The number of bytes of my_moves in use.
+   */
+  private int my_length;
+
+  /**
+   * The number of moves recorded.
+   */
+  private int my_move_count;
+
+  /**
+   * The time of the last move, in milliseconds from the start.
+   */
+  private long my_last_time;
+
+  /**
+   * Constructs a new recorder for a game on a board of the specified size
+   * using the random generator with the specified seed.
+   *
+   * @param the_height The height.
+   * @param the_width The width.
+   * @param the_seed The random seed.
+   */
+  public ReplayRecorder(final int the_height, final int the_width, final long the_seed)
+  {
+    my_board = new Board(the_height, the_width, the_seed);
+    my_seed = the_seed;
+    my_sequence = null;
+    my_start_nanos = System.nanoTime();
+  }
+
+  /**
+   * Constructs a new recorder for a game on a board of the specified size
+   * using the specified sequence of pieces.
+   *
+   * @param the_height The height.
+   * @param the_width The width.
+   * @param the_sequence The sequence.
+   * @throws IllegalArgumentException if a piece of the_sequence is not one of
+   *           the seven standard pieces.
+   */
+  public ReplayRecorder(final int the_height, final int the_width,
+                        final/* @ non_null @ */List<Piece> the_sequence)
+  {
+    my_sequence = new int[the_sequence.size()];
+    for (int i = 0; i < my_sequence.length; i++)
+    {
+      my_sequence[i] = the_sequence.get(i).state();
+    }
+    my_board = new Board(the_height, the_width, the_sequence);
+    my_seed = 0;
+    my_start_nanos = System.nanoTime();
+  }
+
+  /**
+   * @return the board the game is played on. Give it commands through this
+   *         recorder only.
+   */
+  public/* @ non_null @ */Board board()
+  {
+    return my_board;
+  }
+
+  /**
+   * Gives the_command to the board and records it at the current time.
+   *
+   * @param the_command The command.
+   * @throws IllegalArgumentException if the_command is not a command.
+   */
+  public void apply(final int the_command)
+  {
+    apply(the_command,
+          Math.max(my_last_time, (System.nanoTime() - my_start_nanos) / NANOS_PER_MILLI));
+  }
+
+  /**
+   * Gives the_command to the board and records it at the specified time, for
+   * games that keep their own clock.
+   *
+   * @param the_command The command.
+   * @param the_time The time in milliseconds from the start of the game; no
+   *          earlier than the time of the previous command.
+   * @throws IllegalArgumentException if the_command is not a command or
+   *           the_time is earlier than the time of the previous command.
+   */
+  public void apply(final int the_command, final long the_time)
+  {
+    if (!Command.isCommand(the_command))
+    {
+      throw new IllegalArgumentException("no such command: " + the_command);
+    }
+    if (the_time < my_last_time)
+    {
+      throw new IllegalArgumentException("time went backwards: " + the_time);
+    }
+    Command.apply(my_board, the_command);
+    if (my_moves.length < my_length + ReplayCodec.MAX_VARINT_BYTES)
+    {
+      my_moves = Arrays.copyOf(my_moves, 2 * my_moves.length);
+    }
+    my_length = ReplayCodec.putVarint(my_moves, my_length,
+                                      ReplayCodec.move(the_time - my_last_time, the_command));
+    my_move_count = my_move_count + 1;
+    my_last_time = the_time;
+  }
+
+  /**
+   * @return How many moves have been recorded?
+   */
+  public int moveCount()
+  {
+    return my_move_count;
+  }
+
+  /**
+   * @return the game so far.
+   */
+  public/* @ non_null @ */Replay replay()
+  {
+    int[] sequence = null;
+    if (my_sequence != null)
+    {
+      sequence = my_sequence.clone();
+    }
+    return new Replay(my_board.height(), my_board.width(), my_seed, sequence,
+                      ByteBuffer.wrap(Arrays.copyOf(my_moves, my_length)), my_move_count,
+                      my_last_time);
+  }
+}
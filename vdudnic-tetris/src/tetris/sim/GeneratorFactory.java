@@ -0,0 +1,29 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.sim;
+
+import tetris.entities.Point;
+import tetris.entities.piecegen.PieceGenerator;
+
+/**
+ * Creates the piece generator for each game of a simulation.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface GeneratorFactory
+{
+  /**
+   * @param the_seed The seed of the game.
+   * @param the_origin The origin new pieces must have.
+   * @return a new piece generator for the game with seed the_seed.
+   */
+  /*@ non_null @*/ PieceGenerator create(long the_seed, /*@ non_null @*/ Point the_origin);
+}
@@ -0,0 +1,34 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.sim;
+
+import java.util.Random;
+
+import tetris.entities.Board;
+
+/**
+ * Decides the inputs for a headless game. A single policy is shared by every
+ * game of a simulation, and games run on many threads at once, so any state a
+ * policy keeps between calls must be thread safe.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface InputPolicy
+{
+  /**
+   * Issues commands for the current piece of the_board. If the piece has not
+   * been frozen when this returns, the simulator drops it.
+   *
+   * @param the_board The board.
+   * @param the_random A random number generator seeded for this game.
+   */
+  void playPiece(/*@ non_null @*/ Board the_board, /*@ non_null @*/ Random the_random);
+}
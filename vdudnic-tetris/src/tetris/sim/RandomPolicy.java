@@ -0,0 +1,47 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.sim;
+
+import java.util.Random;
+
+import tetris.entities.Board;
+import tetris.entities.pieces.Piece;
+
+/**
+ * An input policy that turns each piece a random number of times and shifts
+ * it a random distance before it is dropped. It keeps no state, so one
+ * instance can be shared by all games.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class RandomPolicy implements InputPolicy
+{
+  /**
+   * {@inheritDoc}
+   */
+  public void playPiece(final Board the_board, final Random the_random)
+  {
+    final int turns = the_random.nextInt(Piece.NUMBER_OF_BLOCKS);
+    for (int i = 0; i < turns; i++)
+    {
+      the_board.rotateClockwise();
+    }
+    final int shift = the_random.nextInt(the_board.width()) - the_board.width() / 2;
+    for (int i = 0; i < shift; i++)
+    {
+      the_board.moveRight();
+    }
+    for (int i = 0; i > shift; i--)
+    {
+      the_board.moveLeft();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.sim;
+
+/**
+ * The totals of a number of headless games and the wall-clock time they took.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class SimulationReport
+{
+  /**
+   * The number of nanoseconds in a second.
+   */
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /**
+   * The number of games played.
+   */
+  private final long my_games;
+
+  /**
+   * The number of pieces frozen.
+   */
+  private final long my_pieces;
+
+  /**
+   * The number of lines cleared.
+   */
+  private final long my_lines;
+
+  /**
+   * The most lines cleared in a single game.
+   */
+  private final long my_best_lines;
+
+  /**
+   * The wall-clock time taken, in nanoseconds.
+   */
+  private final long my_elapsed_nanos;
+
+  /**
+   * Constructs a new report.
+   *
+   * @param the_games The number of games played.
+   * @param the_pieces The number of pieces frozen.
+   * @param the_lines The number of lines cleared.
+   * @param the_best_lines The most lines cleared in a single game.
+   * @param the_elapsed_nanos The wall-clock time taken, in nanoseconds.
+   */
+  public SimulationReport(final long the_games, final long the_pieces, final long the_lines,
+                          final long the_best_lines, final long the_elapsed_nanos)
+  {
+    my_games = the_games;
+    my_pieces = the_pieces;
+    my_lines = the_lines;
+    my_best_lines = the_best_lines;
+    my_elapsed_nanos = the_elapsed_nanos;
+  }
+
+  /**
+   * @param the_other Another report.
+   * @return a report with the totals of this report and the_other, and the
+   *         longer of their times.
+   */
+  public SimulationReport combine(final SimulationReport the_other)
+  {
+    return new SimulationReport(my_games + the_other.my_games, my_pieces + the_other.my_pieces,
+                                my_lines + the_other.my_lines,
+                                Math.max(my_best_lines, the_other.my_best_lines),
+                                Math.max(my_elapsed_nanos, the_other.my_elapsed_nanos));
+  }
+
+  /**
+   * @param the_elapsed_nanos The wall-clock time taken, in nanoseconds.
+   * @return a report with the same totals as this one and the_elapsed_nanos.
+   */
+  public SimulationReport withElapsedNanos(final long the_elapsed_nanos)
+  {
+    return new SimulationReport(my_games, my_pieces, my_lines, my_best_lines,
+                                the_elapsed_nanos);
+  }
+
+  /**
+   * @return How many games were played?
+   */
+  public long games()
+  {
+    return my_games;
+  }
+
+  /**
+   * @return How many pieces were frozen?
+   */
+  public long pieces()
+  {
+    return my_pieces;
+  }
+
+  /**
+   * @return How many lines were cleared?
+   */
+  public long lines()
+  {
+    return my_lines;
+  }
+
+  /**
+   * @return What is the most lines cleared in a single game?
+   */
+  public long bestLines()
+  {
+    return my_best_lines;
+  }
+
+  /**
+   * @return How many nanoseconds did the games take?
+   */
+  public long elapsedNanos()
+  {
+    return my_elapsed_nanos;
+  }
+
+  /**
+   * @return How many games were played per second?
+   */
+  public double gamesPerSecond()
+  {
+    return perSecond(my_games);
+  }
+
+  /**
+   * @return How many pieces were frozen per second?
+   */
+  public double piecesPerSecond()
+  {
+    return perSecond(my_pieces);
+  }
+
+  /**
+   * @return How many lines were cleared per second?
+   */
+  public double linesPerSecond()
+  {
+    return perSecond(my_lines);
+  }
+
+  /**
+   * @return What is your printable representation?
+   */
+  public String toString()
+  {
+    return String.format("%d games, %d pieces, %d lines (best %d) in %.3f s: "
+                         + "%.1f games/s, %.1f pieces/s, %.1f lines/s", my_games, my_pieces,
+                         my_lines, my_best_lines, my_elapsed_nanos / NANOS_PER_SECOND,
+                         gamesPerSecond(), piecesPerSecond(), linesPerSecond());
+  }
+
+  /**
+   * @param the_count A count.
+   * @return the_count divided by the elapsed time in seconds, or 0 if no time
+   *         was recorded.
+   */
+  private double perSecond(final long the_count)
+  {
+    double result = 0;
+    if (0 < my_elapsed_nanos)
+    {
+      result = the_count * NANOS_PER_SECOND / my_elapsed_nanos;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.sim;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import tetris.entities.Board;
+import tetris.entities.Point;
+import tetris.entities.piecegen.PieceGenerator;
+import tetris.entities.piecegen.RandomGenerator;
+
+/**
+ * Plays seeded games on Boards without a window, as fast as the processors
+ * allow. Games are independent, so a run is split into single games on a
+ * work-stealing fork/join pool.
+ *
+ * <p>Nothing here touches the AWT toolkit or Swing; main() also sets
+ * java.awt.headless so that the color constants of the pieces can be loaded on
+ * machines without a display.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class Simulator
+{
+  /**
+   * Creates the standard seven-bag generator for a game.
+   */
+  public static final GeneratorFactory RANDOM_GENERATOR = new GeneratorFactory()
+  {
+    public PieceGenerator create(final long the_seed, final Point the_origin)
+    {
+      return new RandomGenerator(the_seed, the_origin);
+    }
+  };
+
+  /**
+   * The default board height.
+   */
+  public static final int DEFAULT_HEIGHT = 20;
+
+  /**
+   * The default board width.
+   */
+  public static final int DEFAULT_WIDTH = 10;
+
+  /**
+   * The default number of games played by main().
+   */
+  private static final int DEFAULT_GAMES = 10000;
+
+  /**
+   * The default limit on the number of pieces in a game played by main().
+   */
+  private static final int DEFAULT_MAX_PIECES = 1000;
+
+  /**
+   * The board height.
+   */
+  private final int my_height;
+
+  /**
+   * The board width.
+   */
+  private final int my_width;
+
+  /**
+   * Creates the piece generator of each game.
+   */
+  private final GeneratorFactory my_generators;
+
+  /**
+   * Decides the inputs of every game.
+   */
+  private final InputPolicy my_policy;
+
+  /**
+   * Constructs a new simulator for games on boards of the specified size that
+   * use the standard random generator.
+   *
+   * @param the_height The board height.
+   * @param the_width The board width.
+   * @param the_policy The input policy; it must be thread safe.
+   */
+  public Simulator(final int the_height, final int the_width, final InputPolicy the_policy)
+  {
+    this(the_height, the_width, RANDOM_GENERATOR, the_policy);
+  }
+
+  /**
+   * Constructs a new simulator for games on boards of the specified size.
+   *
+   * @param the_height The board height.
+   * @param the_width The board width.
+   * @param the_generators Creates the piece generator of each game.
+   * @param the_policy The input policy; it must be thread safe.
+   */
+  public Simulator(final int the_height, final int the_width,
+                   final GeneratorFactory the_generators, final InputPolicy the_policy)
+  {
+    my_height = the_height;
+    my_width = the_width;
+    my_generators = the_generators;
+    my_policy = the_policy;
+  }
+
+  /**
+   * Plays games with seeds the_first_seed, the_first_seed + 1, ... on the
+   * common fork/join pool.
+   *
+   * @param the_first_seed The seed of the first game.
+   * @param the_games The number of games.
+   * @param the_max_pieces The number of pieces after which a game is stopped
+   *          even if the board is not full.
+   * @return the totals of the games.
+   */
+  public SimulationReport run(final long the_first_seed, final int the_games,
+                              final int the_max_pieces)
+  {
+    return run(the_first_seed, the_games, the_max_pieces, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Plays games with seeds the_first_seed, the_first_seed + 1, ... on
+   * the_pool.
+   *
+   * @param the_first_seed The seed of the first game.
+   * @param the_games The number of games.
+   * @param the_max_pieces The number of pieces after which a game is stopped
+   *          even if the board is not full.
+   * @param the_pool The pool to play the games on.
+   * @return the totals of the games.
+   */
+  public SimulationReport run(final long the_first_seed, final int the_games,
+                              final int the_max_pieces, final ForkJoinPool the_pool)
+  {
+    final long start = System.nanoTime();
+    final SimulationReport totals =
+        the_pool.invoke(new GamesTask(the_first_seed, the_games, the_max_pieces));
+    return totals.withElapsedNanos(System.nanoTime() - start);
+  }
+
+  /**
+   * Plays a single game on the calling thread.
+   *
+   * @param the_seed The seed of the game.
+   * @param the_max_pieces The number of pieces after which the game is stopped
+   *          even if the board is not full.
+   * @return the totals of the game.
+   */
+  public SimulationReport play(final long the_seed, final int the_max_pieces)
+  {
+    final long start = System.nanoTime();
+    final Board board =
+        new Board(my_height, my_width,
+                  my_generators.create(the_seed, new Point(my_width / 2, my_height)));
+    final Random random = new Random(the_seed);
+    long pieces = 0;
+    long lines = 0;
+    while (!board.isFull() && pieces < the_max_pieces)
+    {
+      final long version = board.version();
+      my_policy.playPiece(board, random);
+      // a policy that made no change left the flags of the last lock behind
+      if (board.version() == version || board.lastBlocksPlaced() == 0)
+      {
+        board.drop();
+      }
+      pieces = pieces + 1;
+      lines = lines + board.lastLinesRemoved();
+    }
+    return new SimulationReport(1, pieces, lines, lines, System.nanoTime() - start);
+  }
+
+  /**
+   * Plays a number of random games and prints the totals and rates.
+   *
+   * @param the_args The number of games, the piece limit per game and the
+   *          first seed, all optional.
+   */
+  public static void main(final String[] the_args)
+  {
+    System.setProperty("java.awt.headless", "true");
+    int games = DEFAULT_GAMES;
+    int max_pieces = DEFAULT_MAX_PIECES;
+    long seed = 0;
+    if (0 < the_args.length)
+    {
+      games = Integer.parseInt(the_args[0]);
+    }
+    if (1 < the_args.length)
+    {
+      max_pieces = Integer.parseInt(the_args[1]);
+    }
+    if (2 < the_args.length)
+    {
+      seed = Long.parseLong(the_args[2]);
+    }
+    final Simulator simulator =
+        new Simulator(DEFAULT_HEIGHT, DEFAULT_WIDTH, new RandomPolicy());
+    // a short run first, so the timed run measures compiled code
+    simulator.run(seed, Math.min(games, DEFAULT_GAMES / 10), max_pieces);
+    System.out.println(simulator.run(seed, games, max_pieces));
+  }
+
+  /**
+   * Plays a range of games, splitting the range in half until a single game
+   * is left so that idle workers can steal the other half.
+   */
+  @SuppressWarnings("serial")
+  private class GamesTask extends RecursiveTask<SimulationReport>
+  {
+    /**
+     * The seed of the first game.
+     */
+    private final long my_first_seed;
+
+    /**
+     * The number of games.
+     */
+    private final int my_games;
+
+    /**
+     * The piece limit per game.
+     */
+    private final int my_max_pieces;
+
+    /**
+     * Constructs a new task.
+     *
+     * @param the_first_seed The seed of the first game.
+     * @param the_games The number of games.
+     * @param the_max_pieces The piece limit per game.
+     */
+    GamesTask(final long the_first_seed, final int the_games, final int the_max_pieces)
+    {
+      super();
+      my_first_seed = the_first_seed;
+      my_games = the_games;
+      my_max_pieces = the_max_pieces;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected SimulationReport compute()
+    {
+      SimulationReport result;
+      if (my_games <= 1)
+      {
+        result = new SimulationReport(0, 0, 0, 0, 0);
+        if (my_games == 1)
+        {
+          result = play(my_first_seed, my_max_pieces);
+        }
+      }
+      else
+      {
+        final int half = my_games / 2;
+        final GamesTask low = new GamesTask(my_first_seed, half, my_max_pieces);
+        final GamesTask high =
+            new GamesTask(my_first_seed + half, my_games - half, my_max_pieces);
+        high.fork();
+        result = low.compute().combine(high.join());
+      }
+      return result;
+    }
+  }
+}
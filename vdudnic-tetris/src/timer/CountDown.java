@@ -1,83 +1,110 @@
-
 package timer;
 
-import java.util.Calendar;
 /**
- * 
- * @author Vladimir Dudnic 
+ * Counts down a length of time on a TimingWheel and tells its listener when
+ * the time is up. It can be paused and resumed, and reading the time to go
+ * costs a subtraction.
+ *
+ * @author Vladimir Dudnic
  * @version 1.0
  */
 public class CountDown
 {
+  /**
+   * The number of milliseconds in a second.
+   */
+  private static final long MILLIS_PER_SECOND = 1000L;
+
+  /**
+   * The number of seconds in a minute, and minutes in an hour.
+   */
+  private static final long SIXTY = 60L;
+
+  /**
+   * The number of nanoseconds in a millisecond.
+   */
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  /**
+   * The next countdown in the same slot of the wheel, or null.
+   */
+  CountDown my_next;
+
+  /**
+   * The previous countdown in the same slot of the wheel, or null.
+   */
+  CountDown my_previous;
 
   /**
-   * Holds the time that it will be when the time runs out.
+   * The slot of the wheel the countdown is in, or -1 if it is not in the
+   * wheel.
    */
-  private final Calendar my_run_time;
+  int my_slot = -1;
 
   /**
-   * Holds a timer instance, used to get pause time.
+   * The wheel that fires the countdown.
    */
-  private Timer my_pause;
+  private final TimingWheel my_wheel;
+
   /**
-   * Holds the amount of time the countdown has been paused.
+   * Holds the time, as a System.nanoTime(), when the time runs out.
    */
-  private long my_pause_time;
+  private long my_deadline;
+
   /**
-   * Holds the amount of time to go until times up.
+   * Holds the time to go, in nanoseconds, while the count down is paused.
    */
-  private long my_time_to_go;
+  private long my_remaining;
+
   /**
    *  Holds the pause state of the count down.
    */
   private boolean my_paused_state;
 
   /**
-   * count down timer. 
+   * count down timer.
    */
   private IsTimeUp my_countdown_listners;
 
-  /** 
-   * Creates a new instance of CountDown. 
+  /**
+   * Creates a new instance of CountDown, counting from the wheel's time.
+   * @param the_wheel is the wheel
    * @param the_hours is hours
    * @param the_minutes is minutes
    * @param the_seconds is seconds
    * @param the_millisecs is millisecs
    */
-  public CountDown(final int the_hours, final int the_minutes, 
+  public CountDown(final TimingWheel the_wheel, final int the_hours, final int the_minutes,
                    final int the_seconds, final int the_millisecs)
   {
-    my_run_time = Calendar.getInstance();
-     
-    my_run_time.set(Calendar.HOUR_OF_DAY, 
-                    my_run_time.get(Calendar.HOUR_OF_DAY) + the_hours); 
-    my_run_time.set(Calendar.MINUTE,
-                    my_run_time.get(Calendar.MINUTE) + the_minutes); 
-    my_run_time.set(Calendar.SECOND,
-                    my_run_time.get(Calendar.SECOND) + the_seconds); 
-    my_run_time.set(Calendar.MILLISECOND,
-                    my_run_time.get(Calendar.MILLISECOND) + the_millisecs); 
+    my_wheel = the_wheel;
+    final long millis = ((the_hours * SIXTY + the_minutes) * SIXTY + the_seconds) *
+                        MILLIS_PER_SECOND + the_millisecs;
+    my_deadline = the_wheel.getTime() + millis * NANOS_PER_MILLI;
+    the_wheel.schedule(this);
   }
 
   /**
-   *  Return the amount of time until the times up.
-   * @return my_time_to_go
+   *  Return the amount of time until the times up, as of the wheel's time.
+   * @return the time to go in milliseconds, 0 once the time is up
    */
   public long getTimeToGo()
   {
-     
+    long result = my_remaining;
     if (!this.my_paused_state)
     {
-      this.my_time_to_go =
-          (my_run_time.getTime().getTime() + this.my_pause_time) - System.currentTimeMillis();
-    
-      if (this.my_time_to_go <= 0)
-      {
-        this.noTimeLeftEvent();
-      }
+      result = Math.max(0, my_deadline - my_wheel.getTime());
     }
-    // Return the amount of time to go
-    return this.my_time_to_go;
+    return result / NANOS_PER_MILLI;
+  }
+
+  /**
+   *  Gets the time the count down runs out at.
+   * @return the time as a System.nanoTime(); meaningless while paused
+   */
+  public long getDeadline()
+  {
+    return my_deadline;
   }
 
   /**
@@ -101,39 +128,67 @@ public class CountDown
   }
 
   /**
-   *  Pauses or resumes a timer.
+   *  Gets whether the count down is waiting to fire.
+   * @return true if it is in the wheel
+   */
+  public boolean isScheduled()
+  {
+    return my_slot >= 0;
+  }
+
+  /**
+   *  Pauses or resumes a timer. Pausing a paused timer or resuming a running
+   *  one does nothing, and neither does pausing one whose time is up.
    * @param the_pause is pause
    */
   public void pause(final boolean the_pause)
   {
-    if (the_pause)
+    if (the_pause && !my_paused_state && isScheduled())
+    {
+      my_remaining = Math.max(0, my_deadline - my_wheel.getTime());
+      my_wheel.unlink(this);
+      my_paused_state = true;
+    }
+    else if (!the_pause && my_paused_state)
     {
-      my_pause = new Timer();
+      my_deadline = my_wheel.getTime() + my_remaining;
+      my_wheel.schedule(this);
+      my_paused_state = false;
     }
-    else
+  }
+
+  /**
+   *  Stops the count down without telling the listener.
+   */
+  public void cancel()
+  {
+    if (isScheduled())
     {
-      my_pause_time += my_pause.getTimePassed();
+      my_wheel.unlink(this);
     }
-    my_paused_state = the_pause;
+    my_paused_state = false;
+    my_remaining = 0;
   }
 
   /**
-   *  Loops through all the registered listeners  
-   *  and gives them a new TimerEvent.
+   *  Called by the wheel when the time is up; gives the listener a new
+   *  TimerEvent.
    */
-  private void noTimeLeftEvent()
+  void fire()
   {
-    my_countdown_listners.timesUp(new TimerEvent(this));
+    final IsTimeUp listener = my_countdown_listners;
+    if (listener != null)
+    {
+      listener.timesUp(new TimerEvent(this));
+    }
   }
 
   /**
    *  Classes that want to listen for TimerEvents need to register here.
-   * @param the_alarm 
+   * @param the_alarm
    */
   public synchronized void addTimesUpListener(final IsTimeUp the_alarm)
   {
     my_countdown_listners = the_alarm;
   }
 }
-
-
@@ -0,0 +1,261 @@
+package timer;
+
+import java.util.Arrays;
+/**
+ * Runs tasks at fixed rates measured with System.nanoTime(), each on its own
+ * channel with its own period. A step is due at a fixed time, the previous
+ * step's time plus the period, whenever the scheduler actually gets to run
+ * it, so the rate does not drift with sleep granularity or pauses of the
+ * calling thread.
+ *
+ * <p>If the caller falls behind, the due steps of catching-up channels are all
+ * run, each with the time it was due at, in order of those times (channels in
+ * the order they were added when times are equal), so the steps happen in the
+ * same order however late the caller wakes up. A channel that does not catch
+ * up, such as rendering, runs once and skips the steps it missed, and so does
+ * a catching-up channel more than MAX_CATCH_UP steps behind.
+ *
+ * <p>A scheduler is meant to be driven by one thread: call runDue() and then
+ * wait for the time it returns.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class FixedStepScheduler
+{
+  /**
+   * The most steps a channel runs in one call to runDue().
+   */
+  public static final int MAX_CATCH_UP = 64;
+
+  /**
+   * The time each channel's next step is due at.
+   */
+  private final long[] my_next;
+
+  /**
+   * The period of each channel.
+   */
+  private final long[] my_period;
+
+  /**
+   * Whether each channel catches up on missed steps.
+   */
+  private final boolean[] my_catch_up;
+
+  /**
+   * The task of each channel.
+   */
+  private final Tickable[] my_tasks;
+
+  /**
+   * The number of steps each channel has run in the current call to runDue().
+   */
+  private final int[] my_steps;
+
+  /**
+   * The number of channels.
+   */
+  private int my_count;
+
+  /**
+   * The number of steps skipped.
+   */
+  private long my_skipped;
+
+  /**
+   * Holds whether the scheduler is paused.
+   */
+  private boolean my_paused;
+
+  /**
+   * The time the scheduler was paused at.
+   */
+  private long my_pause_start;
+
+  /**
+   * Creates a new instance of FixedStepScheduler.
+   * @param the_capacity is the most channels it can have
+   */
+  public FixedStepScheduler(final int the_capacity)
+  {
+    my_next = new long[the_capacity];
+    my_period = new long[the_capacity];
+    my_catch_up = new boolean[the_capacity];
+    my_tasks = new Tickable[the_capacity];
+    my_steps = new int[the_capacity];
+  }
+
+  /**
+   * Adds a channel whose first step is due one period after the_now.
+   * @param the_period is the period in nanoseconds, positive
+   * @param the_catch_up is whether missed steps are run rather than skipped
+   * @param the_task is the task
+   * @param the_now is the current System.nanoTime()
+   * @return the channel number
+   * @throws IllegalArgumentException if the_period is not positive
+   * @throws IllegalStateException if there is no room for another channel
+   */
+  public int add(final long the_period, final boolean the_catch_up, final Tickable the_task,
+                 final long the_now)
+  {
+    checkPeriod(the_period);
+    if (my_count == my_tasks.length)
+    {
+      throw new IllegalStateException("no room for another channel");
+    }
+    final int result = my_count;
+    my_period[result] = the_period;
+    my_next[result] = the_now + the_period;
+    my_catch_up[result] = the_catch_up;
+    my_tasks[result] = the_task;
+    my_count = my_count + 1;
+    return result;
+  }
+
+  /**
+   * Changes the period of a channel; its next step is due the new period
+   * after its last one.
+   * @param the_channel is the channel number
+   * @param the_period is the new period in nanoseconds, positive
+   * @throws IllegalArgumentException if the_period is not positive
+   */
+  public void setPeriod(final int the_channel, final long the_period)
+  {
+    checkPeriod(the_period);
+    my_next[the_channel] = my_next[the_channel] - my_period[the_channel] + the_period;
+    my_period[the_channel] = the_period;
+  }
+
+  /**
+   * Gets the period of a channel.
+   * @param the_channel is the channel number
+   * @return the period in nanoseconds
+   */
+  public long getPeriod(final int the_channel)
+  {
+    return my_period[the_channel];
+  }
+
+  /**
+   * Runs every step due at or before the_now.
+   * @param the_now is the current System.nanoTime()
+   * @return the time left until the next step is due, in nanoseconds
+   */
+  public long runDue(final long the_now)
+  {
+    if (!my_paused)
+    {
+      Arrays.fill(my_steps, 0, my_count, 0);
+      int channel = earliest();
+      while (0 <= channel && my_next[channel] - the_now <= 0)
+      {
+        final long due = my_next[channel];
+        if (my_catch_up[channel] && my_steps[channel] < MAX_CATCH_UP ||
+            my_steps[channel] == 0)
+        {
+          my_next[channel] = due + my_period[channel];
+          my_steps[channel] = my_steps[channel] + 1;
+          my_tasks[channel].tick(due);
+        }
+        else
+        {
+          // skip to the first step after the_now, keeping the phase
+          final long missed = (the_now - due) / my_period[channel] + 1;
+          my_next[channel] = due + missed * my_period[channel];
+          my_skipped = my_skipped + missed;
+        }
+        channel = earliest();
+      }
+    }
+    return getTimeLeft(the_now);
+  }
+
+  /**
+   * Gets the time left until the next step is due.
+   * @param the_now is the current System.nanoTime()
+   * @return the time left in nanoseconds, negative if a step is overdue, or
+   *         Long.MAX_VALUE if the scheduler is paused or has no channels
+   */
+  public long getTimeLeft(final long the_now)
+  {
+    long result = Long.MAX_VALUE;
+    final int channel = earliest();
+    if (!my_paused && 0 <= channel)
+    {
+      result = my_next[channel] - the_now;
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of steps skipped because the caller fell too far behind.
+   * @return the number of skipped steps
+   */
+  public long getSkipped()
+  {
+    return my_skipped;
+  }
+
+  /**
+   * Gets the pause state of the scheduler.
+   * @return my_paused
+   */
+  public boolean isPaused()
+  {
+    return my_paused;
+  }
+
+  /**
+   * Pauses or resumes the scheduler. Every step is due later by the time the
+   * scheduler was paused for, so no steps are missed across a pause.
+   * @param the_pause is pause
+   * @param the_now is the current System.nanoTime()
+   */
+  public void pause(final boolean the_pause, final long the_now)
+  {
+    if (the_pause && !my_paused)
+    {
+      my_pause_start = the_now;
+    }
+    else if (!the_pause && my_paused)
+    {
+      for (int i = 0; i < my_count; i++)
+      {
+        my_next[i] = my_next[i] + the_now - my_pause_start;
+      }
+    }
+    my_paused = the_pause;
+  }
+
+  /**
+   * Checks a period; a channel with no period would run the same step over
+   * and over.
+   * @param the_period is the period in nanoseconds
+   * @throws IllegalArgumentException if the_period is not positive
+   */
+  private static void checkPeriod(final long the_period)
+  {
+    if (the_period <= 0)
+    {
+      throw new IllegalArgumentException("period must be positive: " + the_period);
+    }
+  }
+
+  /**
+   * Finds the channel whose next step is due first.
+   * @return the channel number, or -1 if there are no channels
+   */
+  private int earliest()
+  {
+    int result = -1;
+    for (int i = 0; i < my_count; i++)
+    {
+      if (result < 0 || my_next[i] - my_next[result] < 0)
+      {
+        result = i;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,16 @@
+package timer;
+/**
+ * All classes that want to be run at a fixed rate by a FixedStepScheduler
+ * need to implement this.
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public interface Tickable
+{
+  /**
+   * Runs one step.
+   * @param the_time is the System.nanoTime() the step was due at, which may
+   *          be earlier than now if the scheduler is catching up.
+   */
+  void tick(long the_time);
+}
@@ -2,7 +2,6 @@ package timer;
 
 
 import java.util.Calendar;
-import java.util.Date;
 /**
  * 
  * @author Vladimir Dudnic
@@ -11,11 +10,22 @@ import java.util.Date;
 public class Timer
 {
   /**
-   * Creates a new calendar instance.
+   * The number of nanoseconds in a millisecond.
    */
-  private static Calendar calendar = Calendar.getInstance(); 
+  private static final long NANOS_PER_MILLI = 1000000L;
   /**
-   * Holds reference to the time when the timer has started.
+   * A calendar for each thread that formats dates, since a Calendar must not
+   * be used by two threads at once.
+   */
+  private static final ThreadLocal<Calendar> CALENDARS = new ThreadLocal<Calendar>()
+  {
+    protected Calendar initialValue()
+    {
+      return Calendar.getInstance();
+    }
+  };
+  /**
+   * Holds reference to the System.nanoTime() when the timer has started.
    */
   private final long my_current_time;
   /**
@@ -46,7 +56,7 @@ public class Timer
 
   public Timer()
   {
-    my_current_time = System.currentTimeMillis();
+    my_current_time = System.nanoTime();
   }
 
   /**
@@ -93,14 +103,15 @@ public class Timer
   }
 
   /**
-   * Calculates and returns the amount of time the timer has been running for.
-   * @return my_time_passed
+   * Calculates and returns the amount of time the timer has been running for,
+   * measured with the monotonic System.nanoTime().
+   * @return my_time_passed in milliseconds
    */
   public long getTimePassed()
   {
     if (!(this.my_stop && this.my_pause))
     {
-      my_time_passed = System.currentTimeMillis() - this.my_current_time;
+      my_time_passed = (System.nanoTime() - this.my_current_time) / NANOS_PER_MILLI;
     }
     return my_time_passed;
   }
@@ -112,7 +123,8 @@ public class Timer
    */
   public static String formatAsDate(final long the_date)
   {
-    calendar.setTime(new Date(the_date));
+    final Calendar calendar = CALENDARS.get();
+    calendar.setTimeInMillis(the_date);
 
     return calendar.get(Calendar.HOUR_OF_DAY) + ":" + calendar.get(Calendar.MINUTE) + ":" +
            calendar.get(Calendar.SECOND) + ":" + calendar.get(Calendar.MILLISECOND);
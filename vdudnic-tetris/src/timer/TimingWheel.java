@@ -0,0 +1,275 @@
+package timer;
+
+/**
+ * Fires countdowns when their time is up, measured with System.nanoTime().
+ * Time is cut into ticks, and a countdown is kept in the slot of the tick it
+ * is due in, so scheduling and cancelling cost the same however many
+ * countdowns there are, and advancing the wheel only looks at the slots it
+ * passes.
+ *
+ * <p>The wheel is hierarchical: LEVELS wheels of SLOTS slots each, where a
+ * slot of level n spans SLOTS^n ticks. A countdown due within SLOTS ticks
+ * goes in the lowest level; one due later goes in a higher level and moves
+ * down a level each time the wheel below it comes round, until it reaches
+ * the lowest level and fires. A countdown due further off than the top level
+ * reaches waits in its last slot and is placed again from there.
+ *
+ * <p>A wheel is meant to be driven by one thread: call advance() with the
+ * current time, and the countdowns fire on that thread. The countdowns read
+ * their time to go from the time of the last advance(), so reading it needs
+ * neither the clock nor an allocation.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class TimingWheel
+{
+  /**
+   * The number of bits of a slot index.
+   */
+  public static final int SLOT_BITS = 6;
+
+  /**
+   * The number of slots in each level.
+   */
+  public static final int SLOTS = 1 << SLOT_BITS;
+
+  /**
+   * The number of levels.
+   */
+  public static final int LEVELS = 4;
+
+  /**
+   * The slot index mask.
+   */
+  private static final int MASK = SLOTS - 1;
+
+  /**
+   * The number of ticks the wheel spans.
+   */
+  private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+  /**
+   * The first countdown in each slot, level by level, or null.
+   */
+  private final CountDown[] my_slots = new CountDown[SLOTS * LEVELS];
+
+  /**
+   * The length of a tick in nanoseconds.
+   */
+  private final long my_tick;
+
+  /**
+   * The time of tick 0.
+   */
+  private final long my_origin;
+
+  /**
+   * The number of ticks the wheel has passed.
+   */
+  private long my_ticks;
+
+  /**
+   * The time of the last call to advance().
+   */
+  private long my_time;
+
+  /**
+   * The number of countdowns in the wheel.
+   */
+  private int my_count;
+
+  /**
+   * Creates a new instance of TimingWheel.
+   * @param the_tick is the length of a tick in nanoseconds, positive; the
+   *          countdowns fire up to a tick late
+   * @param the_now is the current System.nanoTime()
+   */
+  public TimingWheel(final long the_tick, final long the_now)
+  {
+    if (the_tick <= 0)
+    {
+      throw new IllegalArgumentException("tick must be positive: " + the_tick);
+    }
+    my_tick = the_tick;
+    my_origin = the_now;
+    my_time = the_now;
+  }
+
+  /**
+   * Gets the time of the last call to advance().
+   * @return the time as a System.nanoTime()
+   */
+  public long getTime()
+  {
+    return my_time;
+  }
+
+  /**
+   * Gets the length of a tick.
+   * @return the length in nanoseconds
+   */
+  public long getTick()
+  {
+    return my_tick;
+  }
+
+  /**
+   * Gets the number of countdowns waiting to fire.
+   * @return the number of countdowns
+   */
+  public int size()
+  {
+    return my_count;
+  }
+
+  /**
+   * Moves the wheel on to the_now and fires every countdown due at or before
+   * it, in the order of their ticks.
+   * @param the_now is the current System.nanoTime()
+   * @return the number of countdowns fired
+   */
+  public int advance(final long the_now)
+  {
+    int result = 0;
+    final long target = (the_now - my_origin) / my_tick;
+    if (the_now - my_time > 0)
+    {
+      my_time = the_now;
+    }
+    if (my_count == 0 && my_ticks < target)
+    {
+      // nothing to pass on the way
+      my_ticks = target;
+    }
+    while (my_ticks < target)
+    {
+      my_ticks = my_ticks + 1;
+      int level = 0;
+      while (level < LEVELS - 1 && slotIndex(my_ticks, level) == 0)
+      {
+        level = level + 1;
+      }
+      for (int i = level; 1 <= i; i--)
+      {
+        cascade(i * SLOTS + slotIndex(my_ticks, i));
+      }
+      final int slot = slotIndex(my_ticks, 0);
+      CountDown count_down = my_slots[slot];
+      while (count_down != null)
+      {
+        unlink(count_down);
+        count_down.fire();
+        result = result + 1;
+        count_down = my_slots[slot];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Puts a countdown in the wheel.
+   * @param the_count_down is the countdown, not in the wheel
+   */
+  void schedule(final CountDown the_count_down)
+  {
+    // never the tick just passed, or it would wait a whole turn
+    place(the_count_down, my_ticks + 1);
+  }
+
+  /**
+   * Puts a countdown in the slot of the tick it is due in.
+   * @param the_count_down is the countdown, not in the wheel
+   * @param the_first is the first tick it may go in
+   */
+  private void place(final CountDown the_count_down, final long the_first)
+  {
+    final long due = Math.max(the_first,
+                              ceilDiv(the_count_down.getDeadline() - my_origin, my_tick));
+    final long at = Math.min(due, my_ticks + SPAN - 1);
+    final long delta = at - my_ticks;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1)))
+    {
+      level = level + 1;
+    }
+    final int slot = level * SLOTS + slotIndex(at, level);
+    final CountDown head = my_slots[slot];
+    the_count_down.my_slot = slot;
+    the_count_down.my_previous = null;
+    the_count_down.my_next = head;
+    if (head != null)
+    {
+      head.my_previous = the_count_down;
+    }
+    my_slots[slot] = the_count_down;
+    my_count = my_count + 1;
+  }
+
+  /**
+   * Takes a countdown out of the wheel.
+   * @param the_count_down is the countdown, in the wheel
+   */
+  void unlink(final CountDown the_count_down)
+  {
+    if (the_count_down.my_previous == null)
+    {
+      my_slots[the_count_down.my_slot] = the_count_down.my_next;
+    }
+    else
+    {
+      the_count_down.my_previous.my_next = the_count_down.my_next;
+    }
+    if (the_count_down.my_next != null)
+    {
+      the_count_down.my_next.my_previous = the_count_down.my_previous;
+    }
+    the_count_down.my_slot = -1;
+    the_count_down.my_previous = null;
+    the_count_down.my_next = null;
+    my_count = my_count - 1;
+  }
+
+  /**
+   * Places the countdowns of a slot again, now that they are nearer. The
+   * tick being passed has not fired yet, so those due in it go in its slot.
+   * @param the_slot is the slot
+   */
+  private void cascade(final int the_slot)
+  {
+    CountDown count_down = my_slots[the_slot];
+    while (count_down != null)
+    {
+      unlink(count_down);
+      place(count_down, my_ticks);
+      count_down = my_slots[the_slot];
+    }
+  }
+
+  /**
+   * Gets the slot index of a tick in a level.
+   * @param the_ticks is the tick
+   * @param the_level is the level
+   * @return the slot index
+   */
+  private static int slotIndex(final long the_ticks, final int the_level)
+  {
+    return (int) (the_ticks >>> (SLOT_BITS * the_level)) & MASK;
+  }
+
+  /**
+   * Divides, rounding up.
+   * @param the_dividend is the dividend
+   * @param the_divisor is the divisor, positive
+   * @return the quotient rounded towards positive infinity
+   */
+  private static long ceilDiv(final long the_dividend, final long the_divisor)
+  {
+    long result = the_dividend / the_divisor;
+    if (result * the_divisor < the_dividend)
+    {
+      result = result + 1;
+    }
+    return result;
+  }
+}
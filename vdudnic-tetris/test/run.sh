@@ -0,0 +1,43 @@
+#!/bin/sh
+#
+# Builds the game and its tests and runs the tests.
+#
+#   ./run.sh                          runs every test
+#   ./run.sh tetris.replay.ReplayCodecTest
+#                                     runs the named test classes
+#
+# JUnit is downloaded from Maven Central into lib/ the first time; to build
+# offline, put the jars there by hand. Classes are compiled into classes/.
+
+set -e
+cd "$(dirname "$0")"
+
+REPOSITORY=https://repo1.maven.org/maven2
+JARS="junit/junit/4.13.2/junit-4.13.2.jar
+org/hamcrest/hamcrest-core/1.3/hamcrest-core-1.3.jar"
+
+mkdir -p lib
+CLASSPATH=
+for jar in $JARS
+do
+  file="lib/$(basename "$jar")"
+  if [ ! -f "$file" ]
+  then
+    echo "downloading $file"
+    curl -fsSL -o "$file" "$REPOSITORY/$jar"
+  fi
+  CLASSPATH="$CLASSPATH:$file"
+done
+CLASSPATH="classes$CLASSPATH"
+
+rm -rf classes
+mkdir classes
+javac -nowarn -cp "$CLASSPATH" -d classes $(find ../src tetris timer -name '*.java' \
+  2>/dev/null)
+
+TESTS="$*"
+if [ -z "$TESTS" ]
+then
+  TESTS=$(find tetris timer -name '*Test.java' 2>/dev/null | sed 's/\.java$//; s#/#.#g')
+fi
+java -Djava.awt.headless=true -cp "$CLASSPATH" org.junit.runner.JUnitCore $TESTS
@@ -0,0 +1,241 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.pieces.Piece;
+import tetris.entities.pieces.PieceStates;
+
+/**
+ * Tests of PlacementFinder: the placements it finds include every one a
+ * piece reaches by turning and shifting above the stack and dropping, and
+ * are exactly those on an empty board; each is a state the piece rests in;
+ * and the path given for each, played on a board, brings the piece there
+ * and freezes it.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class PlacementFinderTest
+{
+  /**
+   * The height of the boards searched.
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The width of the boards searched.
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The number of pieces searched for on jagged boards in each game.
+   */
+  private static final int PIECES = 200;
+
+  /**
+   * How far a piece origin can be outside the board with the piece inside.
+   */
+  private static final int MARGIN = 3;
+
+  /**
+   * Checks, for every piece type on an empty board, that the placements found
+   * are exactly the drops of every rotation from every column.
+   */
+  @Test
+  public void testEmptyBoard()
+  {
+    final Grid grid = new Grid(WIDTH, HEIGHT, HEIGHT + Board.ROWS_ABOVE_BOARD);
+    final PlacementFinder finder = new PlacementFinder(grid);
+    for (int type = 0; type < PieceStates.TYPES; type++)
+    {
+      final int spawn = PieceStates.state(type, 0, WIDTH / 2, HEIGHT);
+      final Set<Integer> found = find(finder, grid, spawn);
+      assertEquals("placements of type " + type, drops(grid, spawn), found);
+    }
+  }
+
+  /**
+   * Plays games in which pieces are dropped at random, so the stack is
+   * jagged and has overhangs, and checks the placements of each piece
+   * against the drops of every rotation from every column, and the path to
+   * each placement by playing it on the board.
+   */
+  @Test
+  public void testJaggedBoards()
+  {
+    int tucks = 0;
+    for (long seed = 0; seed < 3; seed++)
+    {
+      final Board board = new Board(HEIGHT, WIDTH, seed);
+      final Board.Snapshot empty = board.snapshot();
+      final Board.Snapshot before = board.snapshot();
+      final Grid grid = new Grid(board);
+      final PlacementFinder finder = new PlacementFinder(grid);
+      final int[] path = new int[finder.maxPathLength()];
+      final Random random = new Random(seed);
+      for (int i = 0; i < PIECES; i++)
+      {
+        grid.load(board);
+        final Set<Integer> found = find(finder, grid, board.currentState());
+        final Set<Integer> drops = drops(grid, board.currentState());
+        assertTrue("missed a drop", found.containsAll(drops));
+        tucks = tucks + found.size() - drops.size();
+
+        board.save(before);
+        for (final int placement : found)
+        {
+          replay(board, finder.path(placement, path), path, placement);
+          board.restore(before);
+        }
+        dropAtRandom(board, random);
+        grid.load(board);
+        if (HEIGHT / 2 < grid.maxHeight() || board.isFull())
+        {
+          board.restore(empty);
+        }
+      }
+    }
+    assertTrue("no tucks under overhangs", 0 < tucks);
+  }
+
+  /**
+   * Checks that path() rejects a state the last search did not reach.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testPathToUnreachedState()
+  {
+    final Grid grid = new Grid(WIDTH, HEIGHT, HEIGHT + Board.ROWS_ABOVE_BOARD);
+    final PlacementFinder finder = new PlacementFinder(grid);
+    final int spawn = PieceStates.state(PieceStates.T_TYPE, 0, WIDTH / 2, HEIGHT);
+    finder.find(grid, spawn);
+    finder.path(PieceStates.moveDown(spawn), new int[finder.maxPathLength()]);
+  }
+
+  /**
+   * Finds the placements of a piece and checks that each is found once and
+   * is a state the piece rests in.
+   *
+   * @param the_finder The finder.
+   * @param the_grid The grid.
+   * @param the_spawn The state of the piece where it appears.
+   * @return the placements found.
+   */
+  private static Set<Integer> find(final PlacementFinder the_finder, final Grid the_grid,
+                                   final int the_spawn)
+  {
+    final int count = the_finder.find(the_grid, the_spawn);
+    assertEquals(count, the_finder.count());
+    final Set<Integer> result = new HashSet<Integer>();
+    for (int i = 0; i < count; i++)
+    {
+      final int placement = the_finder.placement(i);
+      assertFalse("placement collides", the_grid.collides(placement));
+      assertTrue("placement can move down",
+                 the_grid.collides(PieceStates.moveDown(placement)));
+      assertEquals("placement of another type", PieceStates.type(the_spawn),
+                   PieceStates.type(placement));
+      assertTrue("placement found twice", result.add(placement));
+    }
+    return result;
+  }
+
+  /**
+   * @param the_grid The grid, whose stack must leave the top rows open.
+   * @param the_spawn The state of the piece where it appears.
+   * @return the states the piece comes to rest in when dropped in each
+   *         rotation from each column, from as high as it fits.
+   */
+  private static Set<Integer> drops(final Grid the_grid, final int the_spawn)
+  {
+    final Set<Integer> result = new HashSet<Integer>();
+    final int type = PieceStates.type(the_spawn);
+    for (int rotation = 0; rotation < PieceStates.rotations(type); rotation++)
+    {
+      for (int x = -MARGIN; x < WIDTH + MARGIN; x++)
+      {
+        int state = PieceStates.state(type, rotation, x, PieceStates.y(the_spawn));
+        for (int i = 0; i < Piece.NUMBER_OF_BLOCKS && the_grid.collides(state); i++)
+        {
+          state = PieceStates.moveDown(state);
+        }
+        if (!the_grid.collides(state))
+        {
+          result.add(the_grid.drop(state));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Plays a path on the_board and checks that every command but the last
+   * changes the board, that the piece then lands in the_placement, and that
+   * the last command freezes it there.
+   *
+   * @param the_board The board.
+   * @param the_length The number of commands.
+   * @param the_path The commands.
+   * @param the_placement The placement the path leads to.
+   */
+  private static void replay(final Board the_board, final int the_length,
+                             final int[] the_path, final int the_placement)
+  {
+    assertEquals("path does not end with a drop", Command.DROP, the_path[the_length - 1]);
+    for (int i = 0; i < the_length - 1; i++)
+    {
+      final long version = the_board.version();
+      Command.apply(the_board, the_path[i]);
+      assertTrue("command " + i + " of the path failed", version < the_board.version());
+      assertEquals("piece frozen on the way", 0, the_board.lastBlocksPlaced());
+    }
+    assertEquals("path leads elsewhere", the_placement, the_board.projectionState());
+    Command.apply(the_board, Command.DROP);
+    assertEquals("piece not frozen", Piece.NUMBER_OF_BLOCKS, the_board.lastBlocksPlaced());
+  }
+
+  /**
+   * Turns and shifts the current piece of the_board at random and drops it.
+   *
+   * @param the_board The board.
+   * @param the_random Chooses the turns and the shift.
+   */
+  private static void dropAtRandom(final Board the_board, final Random the_random)
+  {
+    for (int i = the_random.nextInt(Piece.NUMBER_OF_BLOCKS); 0 < i; i--)
+    {
+      the_board.rotateClockwise();
+    }
+    final int shift = the_random.nextInt(WIDTH) - WIDTH / 2;
+    for (int i = 0; i < Math.abs(shift); i++)
+    {
+      if (shift < 0)
+      {
+        the_board.moveLeft();
+      }
+      else
+      {
+        the_board.moveRight();
+      }
+    }
+    the_board.drop();
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.ai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.Test;
+
+/**
+ * Tests of TranspositionTable: a stored value is found with its key and no
+ * other; a key stored in an occupied slot replaces the entry there; an empty
+ * or cleared table finds nothing, not even the key 0; and threads racing to
+ * store keys in one slot never make a reader find a value with the wrong
+ * key.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class TranspositionTableTest
+{
+  /**
+   * The value returned for keys not in the table.
+   */
+  private static final long ABSENT = -1;
+
+  /**
+   * The capacity of the tables tested.
+   */
+  private static final int CAPACITY = 64;
+
+  /**
+   * The number of entries each writer stores in the racing test.
+   */
+  private static final int PUTS = 200000;
+
+  /**
+   * How long the racing test may take, in milliseconds.
+   */
+  private static final long TIMEOUT = 60000;
+
+  /**
+   * Stores a value in every slot and checks each is found with its key, and
+   * not with keys that share its slot but differ in their high bits.
+   */
+  @Test
+  public void testStoreAndProbe()
+  {
+    final TranspositionTable table = new TranspositionTable(CAPACITY);
+    final Random random = new Random(1);
+    final long[] keys = new long[CAPACITY];
+    for (int i = 0; i < CAPACITY; i++)
+    {
+      keys[i] = random.nextLong() & ~(long) (CAPACITY - 1) | i;
+      table.put(keys[i], value(keys[i]));
+    }
+    for (int i = 0; i < CAPACITY; i++)
+    {
+      assertEquals(value(keys[i]), table.get(keys[i], ABSENT));
+      assertEquals(ABSENT, table.get(keys[i] ^ 1L << 40, ABSENT));
+      assertEquals(ABSENT, table.get(keys[i] ^ Long.MIN_VALUE, ABSENT));
+      assertEquals(ABSENT, table.get(keys[i] + CAPACITY, ABSENT));
+    }
+  }
+
+  /**
+   * Checks that of two keys sharing a slot only the one stored last is found,
+   * and that storing a key again replaces its value.
+   */
+  @Test
+  public void testCollisionAndOverwrite()
+  {
+    final TranspositionTable table = new TranspositionTable(CAPACITY);
+    final long first = 5;
+    final long second = first + CAPACITY;
+    table.put(first, 100);
+    table.put(second, 200);
+    assertEquals(ABSENT, table.get(first, ABSENT));
+    assertEquals(200, table.get(second, ABSENT));
+
+    table.put(first, 300);
+    assertEquals(300, table.get(first, ABSENT));
+    assertEquals(ABSENT, table.get(second, ABSENT));
+    table.put(first, 400);
+    assertEquals(400, table.get(first, ABSENT));
+    // a value that happens to be the absent value of the caller is stored too
+    table.put(first, ABSENT);
+    assertEquals(ABSENT, table.get(first, 0));
+  }
+
+  /**
+   * Checks that an empty table and a cleared one find nothing, the key 0 of
+   * an empty board included, and that 0 can be stored like any key.
+   */
+  @Test
+  public void testEmptyAndCleared()
+  {
+    final TranspositionTable table = new TranspositionTable(CAPACITY);
+    assertEquals(ABSENT, table.get(0, ABSENT));
+    assertEquals(ABSENT, table.get(CAPACITY, ABSENT));
+    table.put(0, 0);
+    assertEquals(0, table.get(0, ABSENT));
+    table.put(1, 1);
+    table.clear();
+    assertEquals(ABSENT, table.get(0, ABSENT));
+    assertEquals(ABSENT, table.get(1, ABSENT));
+  }
+
+  /**
+   * Checks that scores are stored bit for bit and that a missing score is
+   * NaN.
+   */
+  @Test
+  public void testScores()
+  {
+    final TranspositionTable table = new TranspositionTable(CAPACITY);
+    assertTrue(Double.isNaN(table.getScore(3)));
+    final double[] scores = {-0.0, 0.0, 1.5, -1e300, Double.NEGATIVE_INFINITY,
+                             Double.MIN_VALUE};
+    for (int i = 0; i < scores.length; i++)
+    {
+      table.putScore(i, scores[i]);
+    }
+    for (int i = 0; i < scores.length; i++)
+    {
+      assertEquals(Double.doubleToRawLongBits(scores[i]),
+                   Double.doubleToRawLongBits(table.getScore(i)));
+    }
+  }
+
+  /**
+   * Checks that capacities are rounded up to powers of two.
+   */
+  @Test
+  public void testCapacityRounding()
+  {
+    assertEquals(1, new TranspositionTable(1).capacity());
+    assertEquals(2, new TranspositionTable(2).capacity());
+    assertEquals(4, new TranspositionTable(3).capacity());
+    assertEquals(1024, new TranspositionTable(1000).capacity());
+    assertEquals(1024, new TranspositionTable(1024).capacity());
+  }
+
+  /**
+   * Checks that a capacity below 1 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityTooSmall()
+  {
+    new TranspositionTable(0);
+  }
+
+  /**
+   * Checks that a capacity above MAX_CAPACITY is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityTooLarge()
+  {
+    new TranspositionTable(TranspositionTable.MAX_CAPACITY + 1);
+  }
+
+  /**
+   * Has two threads store different keys in the one slot of a table while
+   * this thread reads the key each stored last, and checks that every value
+   * read is the one stored with the key read, whatever the interleaving of
+   * the writes.
+   *
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test(timeout = TIMEOUT)
+  public void testRacingWriters() throws InterruptedException
+  {
+    final TranspositionTable table = new TranspositionTable(1);
+    final Thread[] writers = new Thread[2];
+    final AtomicLongArray stored = new AtomicLongArray(writers.length);
+    for (int w = 0; w < writers.length; w++)
+    {
+      final long first = w;
+      writers[w] = new Thread(new Runnable()
+      {
+        public void run()
+        {
+          for (long key = first; key < 2L * PUTS; key = key + 2)
+          {
+            table.put(key, value(key));
+            stored.lazySet((int) first, key);
+            if (key % 64 < 2)
+            {
+              Thread.yield();
+            }
+          }
+        }
+      });
+      writers[w].start();
+    }
+    long hits = 0;
+    int turn = 0;
+    while (writers[0].isAlive() || writers[1].isAlive())
+    {
+      final long key = stored.get(turn);
+      final long value = table.get(key, ABSENT);
+      if (value != ABSENT)
+      {
+        assertEquals("value of key " + key, value(key), value);
+        hits = hits + 1;
+      }
+      turn = 1 - turn;
+    }
+    for (final Thread writer : writers)
+    {
+      writer.join();
+    }
+    final long last = 2L * PUTS - 1;
+    assertTrue(table.get(last, ABSENT) == value(last) ||
+               table.get(last - 1, ABSENT) == value(last - 1));
+    assertTrue("no hits", 0 < hits);
+  }
+
+  /**
+   * @param the_key A key.
+   * @return the value the tests store with the_key, which has no simple
+   *         relation to it.
+   */
+  private static long value(final long the_key)
+  {
+    return the_key * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+  }
+}
@@ -0,0 +1,373 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.Random;
+
+import org.junit.Test;
+
+import tetris.entities.pieces.Piece;
+
+/**
+ * Tests of Board.lastDelta(): a copy of a board that applies each delta as
+ * BoardDelta describes stays the same as the board, through moves, drops,
+ * locks and cleared rows, and never has to read the board again in full
+ * unless the board was reset.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class BoardDeltaTest
+{
+  /**
+   * The height of the boards played.
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The width of the boards played.
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The number of pieces placed in each game.
+   */
+  private static final int PIECES = 300;
+
+  /**
+   * The rows of the copy, bottom row first, as rowAt() gives them.
+   */
+  private Color[][] my_rows;
+
+  /**
+   * The packed state of the current piece in the copy.
+   */
+  private int my_state;
+
+  /**
+   * The version of the board the copy is at.
+   */
+  private long my_version;
+
+  /**
+   * The number of deltas applied to the copy.
+   */
+  private int my_applied;
+
+  /**
+   * The number of times the copy was read again in full.
+   */
+  private int my_reads;
+
+  /**
+   * The number of locks applied to the copy.
+   */
+  private int my_locks;
+
+  /**
+   * The number of rows removed from the copy.
+   */
+  private int my_removed;
+
+  /**
+   * The number of drops applied to the copy.
+   */
+  private int my_drops;
+
+  /**
+   * Plays games that clear lines, one command at a time, following each
+   * change with its delta, and checks that every delta but a reset applies
+   * to the copy and that the copy stays the same as the board after every
+   * command.
+   */
+  @Test
+  public void testDeltasFollowBoard()
+  {
+    for (long seed = 0; seed < 3; seed++)
+    {
+      final Board board = new Board(HEIGHT, WIDTH, seed);
+      final Board scratch = new Board(HEIGHT, WIDTH, seed);
+      final Board.Snapshot start = board.snapshot();
+      final Random random = new Random(seed);
+      read(board);
+      for (int i = 0; i < PIECES; i++)
+      {
+        if (board.isFull())
+        {
+          board.restore(start);
+          scratch.restore(start);
+          follow(board);
+          assertTrue("reset", board.lastDelta().isReset());
+        }
+        placePiece(board, scratch, random);
+      }
+    }
+    assertTrue("no locks", 0 < my_locks);
+    assertTrue("no drops", 0 < my_drops);
+    assertTrue("no rows removed", 0 < my_removed);
+    assertTrue("more reads than deltas", my_reads < my_applied);
+  }
+
+  /**
+   * Checks that a move into a wall, which is no change, leaves the delta as
+   * the last move made it.
+   */
+  @Test
+  public void testNoChangeKeepsDelta()
+  {
+    final Board board = new Board(HEIGHT, WIDTH, 1);
+    for (int i = 0; i < WIDTH; i++)
+    {
+      board.moveLeft();
+    }
+    final long version = board.version();
+    final String moved = describe(board.lastDelta());
+    board.moveLeft();
+    assertEquals(version, board.version());
+    assertEquals(moved, describe(board.lastDelta()));
+    assertEquals(version, board.lastDelta().version());
+  }
+
+  /**
+   * Checks that a restore is a reset, which no copy can apply.
+   */
+  @Test
+  public void testRestoreIsReset()
+  {
+    final Board board = new Board(HEIGHT, WIDTH, 2);
+    final Board.Snapshot snapshot = board.snapshot();
+    board.drop();
+    final long version = board.version();
+    board.restore(snapshot);
+    final BoardDelta delta = board.lastDelta();
+    assertTrue(delta.isReset());
+    assertFalse(delta.isLocked());
+    assertFalse(delta.appliesTo(version));
+    assertFalse(delta.appliesTo(delta.baseVersion()));
+    assertEquals(board.version(), delta.version());
+  }
+
+  /**
+   * Checks that a copied delta keeps what the board's delta said after the
+   * board changes again.
+   */
+  @Test
+  public void testCopyKeepsDelta()
+  {
+    final Board board = new Board(HEIGHT, WIDTH, 3);
+    final BoardDelta kept = new BoardDelta();
+    while (board.lastBlocksPlaced() == 0)
+    {
+      board.moveDown();
+    }
+    final BoardDelta delta = board.lastDelta();
+    kept.copy(delta);
+    final String locked = describe(delta);
+    assertTrue(kept.isLocked());
+    assertEquals(Piece.NUMBER_OF_BLOCKS, kept.setCount());
+    board.moveDown();
+    assertEquals(locked, describe(kept));
+    assertFalse(locked.equals(describe(delta)));
+  }
+
+  /**
+   * Places a piece where it leaves the flattest board, which is found by
+   * trying every place on the_scratch, and moves it down a row at a time
+   * until it locks, following the board after each command.
+   *
+   * @param the_board The board.
+   * @param the_scratch A board with the same pieces.
+   * @param the_random Breaks ties, and chooses when to drop instead.
+   */
+  private void placePiece(final Board the_board, final Board the_scratch,
+                          final Random the_random)
+  {
+    final Board.Snapshot snapshot = the_scratch.snapshot();
+    int best = Integer.MAX_VALUE;
+    int best_turns = 0;
+    int best_shift = 0;
+    for (int turns = 0; turns < Piece.NUMBER_OF_BLOCKS; turns++)
+    {
+      for (int shift = -WIDTH / 2; shift <= WIDTH / 2; shift++)
+      {
+        move(the_scratch, turns, shift);
+        the_scratch.drop();
+        final int score = 2 * the_scratch.aggregateHeight() + the_scratch.bumpiness() -
+                          WIDTH * the_scratch.lastLinesRemoved() + the_random.nextInt(2);
+        if (score < best)
+        {
+          best = score;
+          best_turns = turns;
+          best_shift = shift;
+        }
+        the_scratch.restore(snapshot);
+      }
+    }
+    for (int i = 0; i < best_turns; i++)
+    {
+      apply(the_board, the_scratch, Command.ROTATE_CLOCKWISE);
+    }
+    for (int i = 0; i < Math.abs(best_shift); i++)
+    {
+      int command = Command.MOVE_RIGHT;
+      if (best_shift < 0)
+      {
+        command = Command.MOVE_LEFT;
+      }
+      apply(the_board, the_scratch, command);
+    }
+    if (the_random.nextBoolean())
+    {
+      apply(the_board, the_scratch, Command.DROP);
+      my_drops = my_drops + 1;
+    }
+    else
+    {
+      do
+      {
+        apply(the_board, the_scratch, Command.MOVE_DOWN);
+      }
+      while (the_board.lastBlocksPlaced() == 0);
+    }
+  }
+
+  /**
+   * Turns and shifts the current piece of a board.
+   *
+   * @param the_board The board.
+   * @param the_turns The number of clockwise turns.
+   * @param the_shift The number of columns to shift, negative for left.
+   */
+  private static void move(final Board the_board, final int the_turns, final int the_shift)
+  {
+    for (int i = 0; i < the_turns; i++)
+    {
+      the_board.rotateClockwise();
+    }
+    for (int i = 0; i < Math.abs(the_shift); i++)
+    {
+      if (the_shift < 0)
+      {
+        the_board.moveLeft();
+      }
+      else
+      {
+        the_board.moveRight();
+      }
+    }
+  }
+
+  /**
+   * Applies a command to both boards and follows the_board.
+   *
+   * @param the_board The board.
+   * @param the_scratch A board with the same pieces.
+   * @param the_command The command.
+   */
+  private void apply(final Board the_board, final Board the_scratch, final int the_command)
+  {
+    Command.apply(the_board, the_command);
+    Command.apply(the_scratch, the_command);
+    follow(the_board);
+  }
+
+  /**
+   * Brings the copy up to date with the last delta of the_board, or by
+   * reading it in full if the delta is a reset, and checks that it is the
+   * same as the_board.
+   *
+   * @param the_board The board.
+   */
+  private void follow(final Board the_board)
+  {
+    final BoardDelta delta = the_board.lastDelta();
+    assertEquals("stale delta", the_board.version(), delta.version());
+    assertTrue("missed a change", delta.version() == my_version || delta.isReset() ||
+                                  delta.appliesTo(my_version));
+    if (delta.version() != my_version && delta.appliesTo(my_version))
+    {
+      assertEquals("from state", my_state, delta.fromState());
+      for (int i = 0; i < delta.setCount(); i++)
+      {
+        my_rows[delta.setY(i)][delta.setX(i)] = delta.setColor(i);
+      }
+      for (int i = delta.removedCount() - 1; 0 <= i; i--)
+      {
+        final int y = delta.removedRow(i);
+        System.arraycopy(my_rows, y + 1, my_rows, y, my_rows.length - y - 1);
+        my_rows[my_rows.length - 1] = new Color[the_board.width()];
+      }
+      my_state = delta.toState();
+      my_version = delta.version();
+      my_applied = my_applied + 1;
+      if (delta.isLocked())
+      {
+        my_locks = my_locks + 1;
+      }
+      my_removed = my_removed + delta.removedCount();
+    }
+    else if (delta.version() != my_version)
+    {
+      read(the_board);
+    }
+    assertEquals("state", the_board.currentState(), my_state);
+    assertEquals("full", the_board.isFull(), delta.isFull());
+    for (int y = 0; y < my_rows.length; y++)
+    {
+      assertArrayEquals("row " + y, the_board.rowAt(y), my_rows[y]);
+    }
+  }
+
+  /**
+   * Reads the_board into the copy in full.
+   *
+   * @param the_board The board.
+   */
+  private void read(final Board the_board)
+  {
+    my_rows = new Color[the_board.height() + Board.ROWS_ABOVE_BOARD][];
+    for (int y = 0; y < my_rows.length; y++)
+    {
+      my_rows[y] = the_board.rowAt(y);
+    }
+    my_state = the_board.currentState();
+    my_version = the_board.version();
+    my_reads = my_reads + 1;
+  }
+
+  /**
+   * @param the_delta A delta.
+   * @return everything the_delta tells.
+   */
+  private static String describe(final BoardDelta the_delta)
+  {
+    final StringBuilder result = new StringBuilder();
+    result.append(the_delta.baseVersion()).append(' ').append(the_delta.version());
+    result.append(' ').append(the_delta.fromState()).append(' ').append(the_delta.toState());
+    result.append(' ').append(the_delta.isReset()).append(' ').append(the_delta.isLocked());
+    result.append(' ').append(the_delta.isFull());
+    for (int i = 0; i < the_delta.setCount(); i++)
+    {
+      result.append(" (").append(the_delta.setX(i)).append(',').append(the_delta.setY(i));
+      result.append(' ').append(the_delta.setColor(i)).append(')');
+    }
+    for (int i = 0; i < the_delta.removedCount(); i++)
+    {
+      result.append(" -").append(the_delta.removedRow(i));
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests of Board.read() and tryRead(): frames read by another thread while
+ * the board changes are each a copy of a state the board really was in,
+ * which is found by playing the same game again to the frame's version. A
+ * version can have more than one state, as a move that fails clears the
+ * lines removed by the lock before it but does not change the version.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class BoardFrameTest
+{
+  /**
+   * The height of the boards played.
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The width of the boards played.
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The number of commands the writer plays.
+   */
+  private static final int STEPS = 100000;
+
+  /**
+   * The seed of the pieces and of the commands.
+   */
+  private static final long SEED = 7;
+
+  /**
+   * The aggregate height under which the writer saves the board to restore
+   * once it is full.
+   */
+  private static final int LOW = 30;
+
+  /**
+   * How long the test may take, in milliseconds.
+   */
+  private static final long TIMEOUT = 120000;
+
+  /**
+   * The characters that stand for the colors seen so far in descriptions.
+   */
+  private final Map<Color, Character> my_codes = new HashMap<Color, Character>();
+
+  /**
+   * Plays a seeded game with publishing on while this thread reads frames of
+   * it, then plays the same game again on another board and checks that each
+   * frame read is the same as that board in one of its states at the frame's
+   * version.
+   *
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test(timeout = TIMEOUT)
+  public void testFramesAreStatesThatExisted() throws InterruptedException
+  {
+    final Board board = new Board(HEIGHT, WIDTH, SEED);
+    board.setPublishing(true);
+    final Thread writer = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        play(board, STEPS, null);
+      }
+    });
+    final Map<Long, Set<String>> frames = new HashMap<Long, Set<String>>();
+    final BoardFrame frame = new BoardFrame(HEIGHT, WIDTH);
+    long version = -1;
+    int retries = 0;
+    writer.start();
+    while (writer.isAlive())
+    {
+      if (board.tryRead(frame))
+      {
+        assertTrue("version went back", version <= frame.version());
+        assertEquals("odd sequence", 0, frame.sequence() & 1);
+        add(frames, frame);
+        version = frame.version();
+      }
+      else
+      {
+        retries = retries + 1;
+      }
+      Thread.yield();
+    }
+    writer.join();
+    board.read(frame);
+    add(frames, frame);
+    final int versions = frames.size();
+
+    play(new Board(HEIGHT, WIDTH, SEED), STEPS, frames);
+    assertTrue("frames of states that never existed: " + frames, frames.isEmpty());
+    assertTrue("too few frames: " + versions + " with " + retries + " retries",
+               versions > STEPS / 100);
+  }
+
+  /**
+   * Checks that each write moves the sequence number on by 2, even a move
+   * that fails and so leaves the version.
+   */
+  @Test
+  public void testSequenceCountsChanges()
+  {
+    final Board board = new Board(HEIGHT, WIDTH, SEED);
+    final BoardFrame frame = new BoardFrame(HEIGHT, WIDTH);
+    board.setPublishing(true);
+    assertTrue(board.tryRead(frame));
+    final long sequence = frame.sequence();
+    board.drop();
+    assertTrue(board.tryRead(frame));
+    assertEquals(sequence + 2, frame.sequence());
+    assertEquals(board.version(), frame.version());
+    for (int i = 0; i < WIDTH; i++)
+    {
+      board.moveLeft();
+    }
+    assertTrue(board.tryRead(frame));
+    final long left = frame.sequence();
+    final long version = frame.version();
+    board.moveLeft();
+    assertTrue(board.tryRead(frame));
+    assertEquals(left + 2, frame.sequence());
+    assertEquals(version, frame.version());
+  }
+
+  /**
+   * Plays STEPS random commands, with the same commands for the same seed,
+   * restoring a saved board each time the board is full. If the_frames is
+   * not null, each state reached is removed from it; if it is null, the
+   * thread yields after each command, so that a reader gets its turns even
+   * on one processor.
+   *
+   * @param the_board The board.
+   * @param the_steps The number of commands.
+   * @param the_frames Descriptions of frames by version, or null.
+   */
+  private void play(final Board the_board, final int the_steps,
+                    final Map<Long, Set<String>> the_frames)
+  {
+    final Random random = new Random(SEED);
+    final Board.Snapshot low = the_board.snapshot();
+    remove(the_frames, the_board);
+    for (int i = 0; i < the_steps; i++)
+    {
+      if (the_board.isFull())
+      {
+        the_board.restore(low);
+      }
+      else
+      {
+        if (the_board.lastBlocksPlaced() != 0 && the_board.aggregateHeight() < LOW)
+        {
+          the_board.save(low);
+        }
+        Command.apply(the_board, random.nextInt(Command.COMMANDS));
+      }
+      if (the_frames == null && i % 16 == 0)
+      {
+        Thread.yield();
+      }
+      remove(the_frames, the_board);
+    }
+  }
+
+  /**
+   * Adds the description of a frame to the descriptions of its version.
+   *
+   * @param the_frames Descriptions of frames by version.
+   * @param the_frame The frame.
+   */
+  private void add(final Map<Long, Set<String>> the_frames, final BoardFrame the_frame)
+  {
+    Set<String> descriptions = the_frames.get(the_frame.version());
+    if (descriptions == null)
+    {
+      descriptions = new HashSet<String>();
+      the_frames.put(the_frame.version(), descriptions);
+    }
+    descriptions.add(describe(the_frame));
+  }
+
+  /**
+   * Removes the state of the_board from the descriptions of its version, if
+   * it is there, and the version once it has none left.
+   *
+   * @param the_frames Descriptions of frames by version, or null.
+   * @param the_board The board.
+   */
+  private void remove(final Map<Long, Set<String>> the_frames, final Board the_board)
+  {
+    if (the_frames != null && the_frames.containsKey(the_board.version()))
+    {
+      final BoardFrame frame = new BoardFrame(HEIGHT, WIDTH);
+      the_board.read(frame);
+      final Set<String> descriptions = the_frames.get(the_board.version());
+      descriptions.remove(describe(frame));
+      if (descriptions.isEmpty())
+      {
+        the_frames.remove(the_board.version());
+      }
+    }
+  }
+
+  /**
+   * @param the_frame A frame.
+   * @return everything the_frame holds but its sequence number.
+   */
+  private String describe(final BoardFrame the_frame)
+  {
+    final StringBuilder result = new StringBuilder();
+    for (int y = 0; y < the_frame.height(); y++)
+    {
+      for (int x = 0; x < the_frame.width(); x++)
+      {
+        result.append(code(the_frame.color(x, y)));
+      }
+    }
+    result.append(' ').append(the_frame.currentState()).append(' ');
+    result.append(the_frame.nextType()).append(' ').append(the_frame.lastLinesRemoved());
+    result.append(' ').append(the_frame.isFull()).append(' ').append(the_frame.version());
+    return result.toString();
+  }
+
+  /**
+   * @param the_color A color, or null.
+   * @return a character that stands for the_color in descriptions.
+   */
+  private char code(final Color the_color)
+  {
+    char result = '.';
+    if (the_color != null)
+    {
+      Character code = my_codes.get(the_color);
+      if (code == null)
+      {
+        code = (char) ('a' + my_codes.size());
+        my_codes.put(the_color, code);
+      }
+      result = code;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tetris.ai.LinearEvaluator;
+import tetris.ai.SearchPlayer;
+
+/**
+ * Tests of Board.snapshot(), save() and restore(): a restored board plays on
+ * exactly as the saved one did, down to its statistics, its hash and the
+ * pieces it deals, and a snapshot too old or of another board is rejected.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class BoardSnapshotTest
+{
+  /**
+   * The height of the boards played.
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The width of the boards played.
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The number of pieces placed before the snapshot is taken.
+   */
+  private static final int OPENING = 40;
+
+  /**
+   * The number of steps played after the snapshot is taken.
+   */
+  private static final int STEPS = 600;
+
+  /**
+   * The number of kinds of steps: one for each command, and as many for a
+   * piece placed by the player, so the random commands do not end the game
+   * too soon.
+   */
+  private static final int STEP_KINDS = 2 * Command.COMMANDS;
+
+  /**
+   * A player that places pieces well enough to clear lines and last long
+   * games, and plays the same moves on the same board every time.
+   */
+  private SearchPlayer my_player;
+
+  /**
+   * Makes the player.
+   */
+  @Before
+  public void setUp()
+  {
+    my_player = new SearchPlayer(LinearEvaluator.DEFAULT, false, SearchPlayer.UNLIMITED, null);
+  }
+
+  /**
+   * Plays a game on from a snapshot, restores the snapshot and plays the same
+   * steps again, twice, and checks that every step leaves the board the same
+   * each time, so the same pieces are dealt in the same order.
+   */
+  @Test
+  public void testRestoreReplaysSameGame()
+  {
+    for (long seed = 0; seed < 3; seed++)
+    {
+      final Board board = new Board(HEIGHT, WIDTH, seed);
+      placePieces(board, OPENING);
+      final String saved = describe(board);
+      final int upcoming = board.upcomingTypes();
+      final Board.Snapshot snapshot = board.snapshot();
+      final List<String> first = play(board, seed);
+      assertTrue("no lines cleared", clearedLines(first));
+
+      board.restore(snapshot);
+      assertEquals("restored board", saved, describe(board));
+      // the piece after next was dealt before, so the restored board knows
+      // which of the types that could come it is
+      assertEquals("upcoming types", 1, Integer.bitCount(board.upcomingTypes()));
+      assertEquals("upcoming types", board.upcomingTypes(),
+                   upcoming & board.upcomingTypes());
+      assertEquals("second replay", first, play(board, seed));
+
+      board.restore(snapshot);
+      assertEquals("restored twice", saved, describe(board));
+      assertEquals("third replay", first, play(board, seed));
+    }
+  }
+
+  /**
+   * Checks that save() overwrites a snapshot, so one snapshot can be reused.
+   */
+  @Test
+  public void testSaveOverwrites()
+  {
+    final Board board = new Board(HEIGHT, WIDTH, 1);
+    final Board.Snapshot snapshot = board.snapshot();
+    placePieces(board, OPENING);
+    board.save(snapshot);
+    final String saved = describe(board);
+    play(board, 1);
+    board.restore(snapshot);
+    assertEquals(saved, describe(board));
+  }
+
+  /**
+   * Checks that a snapshot can be restored after DEALT_HISTORY pieces have
+   * been dealt, but not after one more.
+   */
+  @Test
+  public void testRestoreTooOld()
+  {
+    final Board board = new Board(HEIGHT, WIDTH, 2);
+    final Board.Snapshot snapshot = board.snapshot();
+    final String saved = describe(board);
+    placePieces(board, Board.DEALT_HISTORY);
+    board.restore(snapshot);
+    assertEquals(saved, describe(board));
+
+    placePieces(board, Board.DEALT_HISTORY + 1);
+    try
+    {
+      board.restore(snapshot);
+      fail("restored a snapshot older than DEALT_HISTORY pieces");
+    }
+    catch (final IllegalArgumentException e)
+    {
+      // expected
+    }
+  }
+
+  /**
+   * Checks that a snapshot of a board of another size is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testRestoreOtherBoard()
+  {
+    final Board.Snapshot snapshot = new Board(HEIGHT, WIDTH, 0).snapshot();
+    new Board(HEIGHT + 1, WIDTH, 0).restore(snapshot);
+  }
+
+  /**
+   * Places the_count pieces on the_board with the player.
+   *
+   * @param the_board The board.
+   * @param the_count The number of pieces.
+   */
+  private void placePieces(final Board the_board, final int the_count)
+  {
+    for (int i = 0; i < the_count; i++)
+    {
+      assertFalse("board full after " + i + " pieces", the_board.isFull());
+      my_player.playPiece(the_board, null);
+    }
+  }
+
+  /**
+   * Plays STEPS steps on the_board, each a command or a piece placed by the
+   * player, chosen by a Random seeded with the_seed.
+   *
+   * @param the_board The board.
+   * @param the_seed The seed.
+   * @return the description of the board after each step.
+   */
+  private List<String> play(final Board the_board, final long the_seed)
+  {
+    final Random random = new Random(the_seed);
+    final List<String> result = new ArrayList<String>();
+    for (int i = 0; i < STEPS && !the_board.isFull(); i++)
+    {
+      final int step = random.nextInt(STEP_KINDS);
+      if (step < Command.COMMANDS)
+      {
+        Command.apply(the_board, step);
+      }
+      else
+      {
+        my_player.playPiece(the_board, random);
+      }
+      result.add(describe(the_board));
+    }
+    return result;
+  }
+
+  /**
+   * @param the_descriptions Descriptions made by describe().
+   * @return Do any of them follow a move that cleared lines?
+   */
+  private static boolean clearedLines(final List<String> the_descriptions)
+  {
+    boolean result = false;
+    for (final String description : the_descriptions)
+    {
+      result = result || description.startsWith("lines 1") ||
+               description.startsWith("lines 2") || description.startsWith("lines 3") ||
+               description.startsWith("lines 4");
+    }
+    return result;
+  }
+
+  /**
+   * @param the_board The board.
+   * @return everything the_board tells about itself: its blocks, statistics,
+   *         hash and pieces.
+   */
+  private static String describe(final Board the_board)
+  {
+    final StringBuilder result = new StringBuilder();
+    result.append("lines ").append(the_board.lastLinesRemoved());
+    result.append(" placed ").append(the_board.lastBlocksPlaced());
+    result.append(" hash ").append(the_board.hash());
+    result.append(" current ").append(the_board.currentState());
+    result.append(" next ").append(the_board.nextPiece().state());
+    result.append(" projection ").append(the_board.projectionState());
+    result.append(" aggregate ").append(the_board.aggregateHeight());
+    result.append(" holes ").append(the_board.holeCount());
+    result.append(" bumpiness ").append(the_board.bumpiness());
+    result.append(" full ").append(the_board.isFull());
+    result.append("\ncolumns");
+    for (int x = 0; x < the_board.width(); x++)
+    {
+      result.append(' ').append(the_board.columnHeight(x));
+    }
+    result.append("\nrows");
+    for (int y = 0; y < the_board.height() + Board.ROWS_ABOVE_BOARD; y++)
+    {
+      result.append(' ').append(the_board.rowFill(y)).append('/');
+      result.append(Integer.toHexString(the_board.rowMask(y)));
+    }
+    result.append('\n').append(the_board);
+    return result.toString();
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.Random;
+
+import org.junit.Test;
+
+import tetris.ai.Grid;
+import tetris.ai.LinearEvaluator;
+import tetris.ai.SearchPlayer;
+
+/**
+ * Tests of the statistics Board keeps up to date as it changes: after every
+ * command, placed piece, cleared row and restore, the column heights, row
+ * fills, holes, bumpiness and wells are the same as a scan of rowAt() finds,
+ * and so are those of a Grid loaded from the board.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class BoardStatsTest
+{
+  /**
+   * The height of the boards played.
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The width of the boards played.
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The number of steps played in each game.
+   */
+  private static final int STEPS = 3000;
+
+  /**
+   * The number of kinds of steps: one for each command, as many for a piece
+   * placed by the player, so that rows are cleared, and two more for saving
+   * and restoring the board.
+   */
+  private static final int STEP_KINDS = 2 * Command.COMMANDS + 2;
+
+  /**
+   * Plays games of random commands, pieces placed by a player, saves and
+   * restores, and checks the statistics after each step.
+   */
+  @Test
+  public void testStatsMatchScan()
+  {
+    final SearchPlayer player =
+        new SearchPlayer(LinearEvaluator.DEFAULT, false, SearchPlayer.UNLIMITED, null);
+    int lines = 0;
+    int restores = 0;
+    for (long seed = 0; seed < 3; seed++)
+    {
+      final Board board = new Board(HEIGHT, WIDTH, seed);
+      final Grid grid = new Grid(board);
+      final Random random = new Random(seed);
+      final Board.Snapshot snapshot = board.snapshot();
+      check(board, grid);
+      for (int i = 0; i < STEPS; i++)
+      {
+        final int step = random.nextInt(STEP_KINDS);
+        if (board.isFull() || step == STEP_KINDS - 1)
+        {
+          board.restore(snapshot);
+          restores = restores + 1;
+        }
+        else if (step == STEP_KINDS - 2)
+        {
+          board.save(snapshot);
+        }
+        else if (step < Command.COMMANDS)
+        {
+          Command.apply(board, step);
+        }
+        else
+        {
+          player.playPiece(board, random);
+        }
+        lines = lines + board.lastLinesRemoved();
+        check(board, grid);
+      }
+    }
+    assertTrue("no lines cleared", 0 < lines);
+    assertTrue("no restores", 0 < restores);
+  }
+
+  /**
+   * Checks the statistics of the_board, and of the_grid loaded from it,
+   * against a scan of its rows.
+   *
+   * @param the_board The board.
+   * @param the_grid A grid the size of the_board.
+   */
+  private static void check(final Board the_board, final Grid the_grid)
+  {
+    final int rows = the_board.height() + Board.ROWS_ABOVE_BOARD;
+    final int[] heights = new int[WIDTH];
+    int holes = 0;
+    for (int y = 0; y < rows; y++)
+    {
+      final Color[] row = the_board.rowAt(y);
+      int fill = 0;
+      for (int x = 0; x < WIDTH; x++)
+      {
+        if (row[x] != null)
+        {
+          heights[x] = y + 1;
+          fill = fill + 1;
+        }
+      }
+      assertEquals("fill of row " + y, fill, the_board.rowFill(y));
+    }
+    int aggregate = 0;
+    int bumpiness = 0;
+    for (int x = 0; x < WIDTH; x++)
+    {
+      assertEquals("height of column " + x, heights[x], the_board.columnHeight(x));
+      for (int y = 0; y < heights[x]; y++)
+      {
+        if (the_board.rowAt(y)[x] == null)
+        {
+          holes = holes + 1;
+        }
+      }
+      aggregate = aggregate + heights[x];
+      if (0 < x)
+      {
+        bumpiness = bumpiness + Math.abs(heights[x] - heights[x - 1]);
+      }
+      assertEquals("well at column " + x, wellDepth(heights, x), the_board.wellDepth(x));
+    }
+    assertEquals("aggregate height", aggregate, the_board.aggregateHeight());
+    assertEquals("holes", holes, the_board.holeCount());
+    assertEquals("bumpiness", bumpiness, the_board.bumpiness());
+
+    the_grid.load(the_board);
+    for (int x = 0; x < WIDTH; x++)
+    {
+      assertEquals("grid height of column " + x, heights[x], the_grid.columnHeight(x));
+    }
+    assertEquals("grid aggregate height", aggregate, the_grid.aggregateHeight());
+    assertEquals("grid holes", holes, the_grid.holeCount());
+    assertEquals("grid bumpiness", bumpiness, the_grid.bumpiness());
+  }
+
+  /**
+   * @param the_heights The column heights.
+   * @param the_x A column position.
+   * @return how far column the_x is below the lower of its neighbors, a wall
+   *         being higher than any column, or 0 if it is not below both.
+   */
+  private static int wellDepth(final int[] the_heights, final int the_x)
+  {
+    int neighbor = Integer.MAX_VALUE;
+    if (0 < the_x)
+    {
+      neighbor = the_heights[the_x - 1];
+    }
+    if (the_x < the_heights.length - 1)
+    {
+      neighbor = Math.min(neighbor, the_heights[the_x + 1]);
+    }
+    return Math.max(0, neighbor - the_heights[the_x]);
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests of CommandQueue: commands come out in the order they went in, with
+ * their times, however often the ring wraps around; a full queue refuses
+ * commands; drains stop at their limit; capacities are rounded up to powers
+ * of two; and a producer and a consumer on two threads lose and repeat
+ * nothing.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class CommandQueueTest
+{
+  /**
+   * The number of commands passed between the threads.
+   */
+  private static final int COMMANDS = 1000000;
+
+  /**
+   * The capacity of the queue between the threads, small so that it is often
+   * full and often empty.
+   */
+  private static final int SMALL_CAPACITY = 16;
+
+  /**
+   * How long the two thread test may take, in milliseconds.
+   */
+  private static final long TIMEOUT = 60000;
+
+  /**
+   * Offers and drains unevenly through a small queue, so the ring wraps
+   * around many times, and checks that every command comes out in order with
+   * its time.
+   */
+  @Test
+  public void testFifoAcrossWraparound()
+  {
+    final CommandQueue queue = new CommandQueue(4);
+    final Recorder recorder = new Recorder();
+    int offered = 0;
+    for (int round = 0; round < 100; round++)
+    {
+      final int count = 1 + round % queue.capacity();
+      for (int i = 0; i < count; i++)
+      {
+        assertTrue(queue.offer(offered, time(offered)));
+        offered = offered + 1;
+      }
+      assertEquals(count, queue.size());
+      assertEquals(count, queue.drain(recorder, Integer.MAX_VALUE));
+      assertEquals(0, queue.size());
+    }
+    assertEquals(offered, recorder.my_count);
+  }
+
+  /**
+   * Checks that a full queue refuses a command and keeps the ones it holds,
+   * and takes commands again once one is drained.
+   */
+  @Test
+  public void testOfferWhenFull()
+  {
+    final CommandQueue queue = new CommandQueue(8);
+    for (int i = 0; i < 8; i++)
+    {
+      assertTrue(queue.offer(i, time(i)));
+    }
+    assertFalse(queue.offer(8, time(8)));
+    assertEquals(8, queue.size());
+
+    final Recorder recorder = new Recorder();
+    assertEquals(1, queue.drain(recorder, 1));
+    assertTrue(queue.offer(8, time(8)));
+    assertFalse(queue.offer(9, time(9)));
+    assertEquals(8, queue.drain(recorder, Integer.MAX_VALUE));
+    assertEquals(9, recorder.my_count);
+  }
+
+  /**
+   * Checks that a drain passes no more than its limit and leaves the rest in
+   * order for the next drain.
+   */
+  @Test
+  public void testPartialDrain()
+  {
+    final CommandQueue queue = new CommandQueue(8);
+    final Recorder recorder = new Recorder();
+    for (int i = 0; i < 5; i++)
+    {
+      queue.offer(i, time(i));
+    }
+    assertEquals(0, queue.drain(recorder, 0));
+    assertEquals(2, queue.drain(recorder, 2));
+    assertEquals(2, recorder.my_count);
+    assertEquals(3, queue.size());
+    queue.offer(5, time(5));
+    assertEquals(3, queue.drain(recorder, 3));
+    assertEquals(1, queue.drain(recorder, 10));
+    assertEquals(0, queue.drain(recorder, 10));
+    assertEquals(6, recorder.my_count);
+  }
+
+  /**
+   * Checks that capacities are rounded up to powers of two, at the edges of
+   * the allowed range too, and that a queue holds exactly its capacity.
+   */
+  @Test
+  public void testCapacityRounding()
+  {
+    final int[] asked = {1, 2, 3, 4, 5, 7, 8, 9, 1000, 1024, 1025};
+    final int[] rounded = {1, 2, 4, 4, 8, 8, 8, 16, 1024, 1024, 2048};
+    for (int i = 0; i < asked.length; i++)
+    {
+      final CommandQueue queue = new CommandQueue(asked[i]);
+      assertEquals("capacity for " + asked[i], rounded[i], queue.capacity());
+      for (int j = 0; j < rounded[i]; j++)
+      {
+        assertTrue(queue.offer(j, time(j)));
+      }
+      assertFalse(queue.offer(rounded[i], time(rounded[i])));
+    }
+    assertEquals(CommandQueue.MAX_CAPACITY,
+                 CommandQueue.roundCapacity(CommandQueue.MAX_CAPACITY));
+    assertEquals(CommandQueue.MAX_CAPACITY,
+                 CommandQueue.roundCapacity(CommandQueue.MAX_CAPACITY / 2 + 1));
+    assertEquals(CommandQueue.MAX_CAPACITY / 2,
+                 CommandQueue.roundCapacity(CommandQueue.MAX_CAPACITY / 2));
+  }
+
+  /**
+   * Checks that a capacity below 1 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityTooSmall()
+  {
+    new CommandQueue(0);
+  }
+
+  /**
+   * Checks that a capacity above MAX_CAPACITY is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityTooLarge()
+  {
+    new CommandQueue(CommandQueue.MAX_CAPACITY + 1);
+  }
+
+  /**
+   * Passes COMMANDS commands from a producer thread to a consumer thread
+   * through a small queue and checks that the consumer gets every one once,
+   * in order, with its time.
+   *
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test(timeout = TIMEOUT)
+  public void testProducerAndConsumer() throws InterruptedException
+  {
+    final CommandQueue queue = new CommandQueue(SMALL_CAPACITY);
+    final Thread producer = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        for (int i = 0; i < COMMANDS; i++)
+        {
+          while (!queue.offer(i, time(i)))
+          {
+            Thread.yield();
+          }
+        }
+      }
+    });
+    final Recorder recorder = new Recorder();
+    producer.start();
+    while (recorder.my_count < COMMANDS)
+    {
+      if (queue.drain(recorder, 1 + recorder.my_count % SMALL_CAPACITY) == 0)
+      {
+        Thread.yield();
+      }
+    }
+    producer.join();
+    assertEquals(0, queue.size());
+    assertEquals(0, queue.drain(recorder, Integer.MAX_VALUE));
+  }
+
+  /**
+   * @param the_command A command.
+   * @return the time the tests offer the_command with, which differs from the
+   *         command, so a mix-up of the two rings shows.
+   */
+  private static long time(final int the_command)
+  {
+    return 3L * the_command + Integer.MAX_VALUE;
+  }
+
+  /**
+   * A handler that checks the commands come as 0, 1, 2 and so on, each with
+   * its time.
+   */
+  private static final class Recorder implements CommandQueue.Handler
+  {
+    /**
+     * The number of commands handled, which is the next command expected.
+     */
+    private int my_count;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void handle(final int the_command, final long the_time)
+    {
+      assertEquals("command", my_count, the_command);
+      assertEquals("time", time(my_count), the_time);
+      my_count = my_count + 1;
+    }
+  }
+}
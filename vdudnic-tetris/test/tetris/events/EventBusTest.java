@@ -0,0 +1,372 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests of EventBus: moves and rotations are coalesced only when one carries
+ * on from the last, events reach every subscriber in the order they were
+ * published, and a subscriber that falls a whole ring behind counts the
+ * events it lost and gets the rest whole.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class EventBusTest
+{
+  /**
+   * How long a test waits for events to be delivered, in milliseconds.
+   */
+  private static final long TIMEOUT = 60000;
+
+  /**
+   * The number of events published by the ordering tests.
+   */
+  private static final int EVENTS = 200000;
+
+  /**
+   * The number of events published between flushes by the ordering tests.
+   */
+  private static final int BATCH = 7;
+
+  /**
+   * Publishes chains of moves and rotations mixed with breaks in the chain,
+   * other types and flushes, and checks which were merged.
+   */
+  @Test
+  public void testCoalescesOnlyChains()
+  {
+    final EventBus bus = new EventBus(16);
+    final Recorder recorder = new Recorder();
+    final EventBus.Subscription subscription = bus.subscribe(recorder);
+    // a chain of moves is merged, keeping the last version
+    bus.publish(BoardEvents.MOVED, 1, 2, 1);
+    bus.publish(BoardEvents.MOVED, 2, 3, 2);
+    bus.publish(BoardEvents.MOVED, 3, 4, 3);
+    // a move that does not start where the last ended is not
+    bus.publish(BoardEvents.MOVED, 5, 6, 4);
+    // nor is a rotation after a move, but a chain of rotations is
+    bus.publish(BoardEvents.ROTATED, 6, 7, 5);
+    bus.publish(BoardEvents.ROTATED, 7, 8, 6);
+    // nor a move after a rotation, even if it carries on from it
+    bus.publish(BoardEvents.MOVED, 8, 9, 7);
+    // other types are never merged
+    bus.publish(BoardEvents.LOCKED, 9, 10, 8);
+    bus.publish(BoardEvents.LOCKED, 10, 11, 9);
+    bus.flush();
+    // nor are moves in different batches
+    bus.publish(BoardEvents.MOVED, 11, 12, 10);
+    bus.flush();
+    bus.publish(BoardEvents.MOVED, 12, 13, 11);
+    bus.flush();
+    assertEquals(3, bus.coalesced());
+
+    awaitDelivered(subscription, 8);
+    subscription.close();
+    final List<String> expected = new ArrayList<String>();
+    expected.add("MOVED 1 4 3");
+    expected.add("MOVED 5 6 4");
+    expected.add("ROTATED 6 8 6");
+    expected.add("MOVED 8 9 7");
+    expected.add("LOCKED 9 10 8");
+    expected.add("LOCKED 10 11 9");
+    expected.add("MOVED 11 12 10");
+    expected.add("MOVED 12 13 11");
+    assertEquals(expected, recorder.events());
+    assertEquals(0, subscription.dropped());
+  }
+
+  /**
+   * Publishes events from another thread, in batches, to two subscribers
+   * with a ring large enough for all of them, and checks that both get every
+   * event once, in order.
+   *
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test(timeout = TIMEOUT)
+  public void testDeliversInOrder() throws InterruptedException
+  {
+    final EventBus bus = new EventBus(EVENTS);
+    final Checker first = new Checker();
+    final Checker second = new Checker();
+    final EventBus.Subscription one = bus.subscribe(first);
+    final EventBus.Subscription two = bus.subscribe(second);
+    publishFrom(bus, EVENTS);
+    awaitDelivered(one, EVENTS);
+    awaitDelivered(two, EVENTS);
+    one.close();
+    two.close();
+    assertEquals(0, one.dropped());
+    assertEquals(0, two.dropped());
+    assertEquals(EVENTS, first.count());
+    assertEquals(EVENTS, second.count());
+    assertEquals(EVENTS - 1, first.last());
+  }
+
+  /**
+   * Stops a subscriber in its handler while more than a whole ring is
+   * published, and checks that it then counts exactly the events that were
+   * overwritten and gets the newest ring of events whole and in order.
+   *
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test(timeout = TIMEOUT)
+  public void testSlowSubscriberCountsDrops() throws InterruptedException
+  {
+    final EventBus bus = new EventBus(8);
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Checker checker = new Checker()
+    {
+      public void handle(final int the_type, final int the_a, final int the_b,
+                         final long the_version, final boolean the_last)
+      {
+        super.handle(the_type, the_a, the_b, the_version, the_last);
+        if (the_version == 0)
+        {
+          entered.countDown();
+          awaitQuietly(release);
+        }
+      }
+    };
+    final EventBus.Subscription subscription = bus.subscribe(checker);
+    publish(bus, 0);
+    bus.flush();
+    entered.await();
+    // three rings while the subscriber is stuck on the first event
+    for (int i = 1; i <= 3 * bus.capacity(); i++)
+    {
+      publish(bus, i);
+      if (i % 4 == 0)
+      {
+        bus.flush();
+      }
+    }
+    release.countDown();
+    awaitDelivered(subscription, 1 + bus.capacity());
+    subscription.close();
+    assertEquals(2 * bus.capacity(), subscription.dropped());
+    assertEquals(1 + bus.capacity(), checker.count());
+    assertEquals(3 * bus.capacity(), checker.last());
+  }
+
+  /**
+   * Publishes many events through a small ring to a subscriber that yields
+   * after each, so it falls behind again and again, and checks that every
+   * event it gets is whole and newer than the last, and that the events it
+   * got and the events it counted as lost add up to those published.
+   *
+   * @throws InterruptedException if the test is interrupted.
+   */
+  @Test(timeout = TIMEOUT)
+  public void testFallingBehindLosesWholeEvents() throws InterruptedException
+  {
+    final EventBus bus = new EventBus(64);
+    final Checker checker = new Checker()
+    {
+      public void handle(final int the_type, final int the_a, final int the_b,
+                         final long the_version, final boolean the_last)
+      {
+        super.handle(the_type, the_a, the_b, the_version, the_last);
+        Thread.yield();
+      }
+    };
+    final EventBus.Subscription subscription = bus.subscribe(checker);
+    publishFrom(bus, EVENTS);
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (subscription.delivered() + subscription.dropped() < EVENTS &&
+           System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(1);
+    }
+    subscription.close();
+    assertEquals(EVENTS, subscription.delivered() + subscription.dropped());
+    assertEquals(subscription.delivered(), checker.count());
+    assertEquals(EVENTS - 1, checker.last());
+  }
+
+  /**
+   * Publishes the_count events from a new thread, flushing every BATCH, and
+   * waits for it to finish.
+   *
+   * @param the_bus The bus.
+   * @param the_count The number of events.
+   * @throws InterruptedException if the test is interrupted.
+   */
+  private static void publishFrom(final EventBus the_bus, final int the_count)
+      throws InterruptedException
+  {
+    final Thread game = new Thread(new Runnable()
+    {
+      public void run()
+      {
+        for (int i = 0; i < the_count; i++)
+        {
+          publish(the_bus, i);
+          if (i % BATCH == BATCH - 1)
+          {
+            the_bus.flush();
+          }
+        }
+        the_bus.flush();
+      }
+    });
+    game.start();
+    game.join();
+  }
+
+  /**
+   * Publishes the event numbered the_number, whose payloads are made from its
+   * number so that a torn event shows.
+   *
+   * @param the_bus The bus.
+   * @param the_number The number of the event.
+   */
+  private static void publish(final EventBus the_bus, final int the_number)
+  {
+    the_bus.publish(BoardEvents.LOCKED, the_number, ~the_number, the_number);
+  }
+
+  /**
+   * Waits until a subscription has delivered the_count events.
+   *
+   * @param the_subscription The subscription.
+   * @param the_count The number of events.
+   */
+  private static void awaitDelivered(final EventBus.Subscription the_subscription,
+                                     final long the_count)
+  {
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (the_subscription.delivered() < the_count &&
+           System.currentTimeMillis() < deadline)
+    {
+      Thread.yield();
+    }
+    assertEquals(the_count, the_subscription.delivered());
+  }
+
+  /**
+   * Waits for a latch, ignoring interrupts.
+   *
+   * @param the_latch The latch.
+   */
+  private static void awaitQuietly(final CountDownLatch the_latch)
+  {
+    boolean done = false;
+    while (!done)
+    {
+      try
+      {
+        the_latch.await();
+        done = true;
+      }
+      catch (final InterruptedException e)
+      {
+        // wait again
+      }
+    }
+  }
+
+  /**
+   * A handler that records the events it gets as text.
+   */
+  private static final class Recorder implements BoardEventHandler
+  {
+    /**
+     * The events, as text.
+     */
+    private final List<String> my_events = new ArrayList<String>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void handle(final int the_type, final int the_a, final int the_b,
+                                    final long the_version, final boolean the_last)
+    {
+      my_events.add(BoardEvents.name(the_type) + " " + the_a + " " + the_b + " " +
+                    the_version);
+    }
+
+    /**
+     * @return the events so far.
+     */
+    synchronized List<String> events()
+    {
+      return new ArrayList<String>(my_events);
+    }
+  }
+
+  /**
+   * A handler that checks the events made by publish() come whole and in
+   * increasing order.
+   */
+  private static class Checker implements BoardEventHandler
+  {
+    /**
+     * The number of events handled.
+     */
+    private int my_count;
+
+    /**
+     * The number of the last event handled, or -1.
+     */
+    private long my_last = -1;
+
+    /**
+     * The first failure, or null.
+     */
+    private String my_failure;
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void handle(final int the_type, final int the_a, final int the_b,
+                                    final long the_version, final boolean the_last)
+    {
+      if (my_failure == null && (the_type != BoardEvents.LOCKED || the_a != the_version ||
+                                 the_b != ~the_a))
+      {
+        my_failure = "torn event " + the_type + " " + the_a + " " + the_b + " " + the_version;
+      }
+      if (my_failure == null && the_version <= my_last)
+      {
+        my_failure = "event " + the_version + " after " + my_last;
+      }
+      my_last = the_version;
+      my_count = my_count + 1;
+    }
+
+    /**
+     * @return the number of events handled, having checked that all were
+     *         whole and in order.
+     */
+    synchronized int count()
+    {
+      assertTrue(String.valueOf(my_failure), my_failure == null);
+      return my_count;
+    }
+
+    /**
+     * @return the number of the last event handled.
+     */
+    synchronized long last()
+    {
+      return my_last;
+    }
+  }
+}
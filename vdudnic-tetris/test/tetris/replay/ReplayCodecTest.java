@@ -0,0 +1,329 @@
+/*
+ * An implementation of the classic game "Tetris".
+ * @author "Vladimir Dudnic"
+ * @module "TCSS 305"
+ * @creation_date "October 2026"
+ * @last_updated_date "October 2026"
+ * @keywords "Tetris", "game"
+ */
+
+package tetris.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import tetris.entities.Board;
+import tetris.entities.Command;
+import tetris.entities.pieces.Piece;
+
+/**
+ * Tests of ReplayCodec: replays survive encoding and decoding and play back to
+ * the same game, and the varints and zigzag encoding are right at their edges.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class ReplayCodecTest
+{
+  /**
+   * The height of the boards played.
+   */
+  private static final int HEIGHT = 20;
+
+  /**
+   * The width of the boards played.
+   */
+  private static final int WIDTH = 10;
+
+  /**
+   * The most pieces a recorded game places.
+   */
+  private static final int MAX_PIECES = 500;
+
+  /**
+   * The delays the recorded games pause for between commands, in
+   * milliseconds: none, the longest whose move fits in one varint byte, the
+   * shortest whose move does not, and one that takes several bytes.
+   */
+  private static final long[] DELAYS = {0, 15, 16, 100000};
+
+  /**
+   * The values the varint tests try: the edges of the one and two byte
+   * encodings and of the long range.
+   */
+  private static final long[] VARINTS =
+  {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, -1};
+
+  /**
+   * Records games with pauses of every length in DELAYS, encodes and decodes
+   * them, and checks that their replays end on the same boards with the same
+   * lines.
+   */
+  @Test
+  public void testRoundTripReplaysGame()
+  {
+    for (long seed = 0; seed < 5; seed++)
+    {
+      final ReplayRecorder recorder = new ReplayRecorder(HEIGHT, WIDTH, seed);
+      final int lines = play(recorder, seed);
+      final Replay replay = ReplayCodec.decode(ReplayCodec.encode(recorder.replay()));
+      assertEquals("seed", seed, replay.seed());
+      assertEquals("moves", recorder.moveCount(), replay.moveCount());
+      final ReplayPlayer player = new ReplayPlayer(replay);
+      final Board board = player.run();
+      assertFalse("moves left", player.hasNext());
+      assertEquals("board", recorder.board().toString(), board.toString());
+      assertEquals("hash", recorder.board().hash(), board.hash());
+      assertEquals("lines", lines, player.lines());
+      assertTrue("no lines cleared", 0 < lines);
+    }
+  }
+
+  /**
+   * Checks that a negative seed survives the zigzag encoding of the header.
+   */
+  @Test
+  public void testRoundTripNegativeSeed()
+  {
+    final ReplayRecorder recorder = new ReplayRecorder(HEIGHT, WIDTH, Long.MIN_VALUE + 1);
+    recorder.apply(Command.DROP, 0);
+    final Replay replay = ReplayCodec.decode(ReplayCodec.encode(recorder.replay()));
+    assertEquals(Long.MIN_VALUE + 1, replay.seed());
+    assertEquals(recorder.board().toString(), new ReplayPlayer(replay).run().toString());
+  }
+
+  /**
+   * Checks that replays written back to back are read in turn from one
+   * buffer.
+   */
+  @Test
+  public void testDecodeBackToBack()
+  {
+    final ReplayRecorder first = new ReplayRecorder(HEIGHT, WIDTH, 1);
+    final ReplayRecorder second = new ReplayRecorder(HEIGHT, WIDTH, 2);
+    play(first, 1);
+    play(second, 2);
+    final byte[] a = ReplayCodec.encode(first.replay());
+    final byte[] b = ReplayCodec.encode(second.replay());
+    final ByteBuffer buffer = ByteBuffer.allocate(a.length + b.length);
+    buffer.put(a).put(b).flip();
+    assertEquals(first.board().toString(),
+                 new ReplayPlayer(ReplayCodec.decode(buffer)).run().toString());
+    assertEquals(second.board().toString(),
+                 new ReplayPlayer(ReplayCodec.decode(buffer)).run().toString());
+    assertEquals(0, buffer.remaining());
+  }
+
+  /**
+   * Checks that a truncated replay is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeTruncated()
+  {
+    final ReplayRecorder recorder = new ReplayRecorder(HEIGHT, WIDTH, 0);
+    play(recorder, 0);
+    final byte[] encoded = ReplayCodec.encode(recorder.replay());
+    final byte[] truncated = new byte[encoded.length - 1];
+    System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+    ReplayCodec.decode(truncated);
+  }
+
+  /**
+   * Checks that a command earlier than the one before it is rejected, since
+   * moves only hold non-negative delays.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeDelayRejected()
+  {
+    final ReplayRecorder recorder = new ReplayRecorder(HEIGHT, WIDTH, 0);
+    recorder.apply(Command.MOVE_LEFT, 10);
+    recorder.apply(Command.MOVE_RIGHT, 9);
+  }
+
+  /**
+   * Checks that varints read back as written, in the number of bytes
+   * varintSize() says, at the edges of each length.
+   */
+  @Test
+  public void testVarintEdges()
+  {
+    final int[] sizes = {1, 1, 1, 2, 2, 3, 5, 9, 10, 10};
+    for (int i = 0; i < VARINTS.length; i++)
+    {
+      final byte[] bytes = new byte[ReplayCodec.MAX_VARINT_BYTES];
+      final int length = ReplayCodec.putVarint(bytes, 0, VARINTS[i]);
+      assertEquals("size of " + VARINTS[i], sizes[i], length);
+      assertEquals("varintSize of " + VARINTS[i], sizes[i],
+                   ReplayCodec.varintSize(VARINTS[i]));
+      final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+      assertEquals("value of " + VARINTS[i], VARINTS[i], ReplayCodec.getVarint(buffer));
+      assertEquals(0, buffer.remaining());
+    }
+    assertArrayEquals(new byte[] {0}, encode(0));
+    assertArrayEquals(new byte[] {0x7f}, encode(127));
+    assertArrayEquals(new byte[] {(byte) 0x80, 0x01}, encode(128));
+  }
+
+  /**
+   * Checks that a varint longer than MAX_VARINT_BYTES is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testVarintTooLong()
+  {
+    final byte[] bytes = new byte[ReplayCodec.MAX_VARINT_BYTES + 1];
+    for (int i = 0; i < ReplayCodec.MAX_VARINT_BYTES; i++)
+    {
+      bytes[i] = (byte) 0x80;
+    }
+    ReplayCodec.getVarint(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Checks that zigzag encoding keeps small values of either sign small and
+   * is undone by unzigzag().
+   */
+  @Test
+  public void testZigzag()
+  {
+    assertEquals(0, ReplayCodec.zigzag(0));
+    assertEquals(1, ReplayCodec.zigzag(-1));
+    assertEquals(2, ReplayCodec.zigzag(1));
+    assertEquals(3, ReplayCodec.zigzag(-2));
+    assertEquals(255, ReplayCodec.zigzag(-128));
+    assertEquals(256, ReplayCodec.zigzag(128));
+    assertEquals(-1, ReplayCodec.zigzag(Long.MIN_VALUE));
+    for (int i = 0; i < VARINTS.length; i++)
+    {
+      assertEquals(VARINTS[i], ReplayCodec.unzigzag(ReplayCodec.zigzag(VARINTS[i])));
+      assertEquals(-VARINTS[i], ReplayCodec.unzigzag(ReplayCodec.zigzag(-VARINTS[i])));
+    }
+  }
+
+  /**
+   * Checks that moves keep their delays and commands.
+   */
+  @Test
+  public void testMoves()
+  {
+    for (int i = 0; i < DELAYS.length; i++)
+    {
+      for (int command = 0; command < Command.COMMANDS; command++)
+      {
+        final long move = ReplayCodec.move(DELAYS[i], command);
+        assertEquals(DELAYS[i], ReplayCodec.delay(move));
+        assertEquals(command, ReplayCodec.command(move));
+      }
+    }
+  }
+
+  /**
+   * @param the_value A value.
+   * @return the varint bytes of the_value.
+   */
+  private static byte[] encode(final long the_value)
+  {
+    final byte[] bytes = new byte[ReplayCodec.MAX_VARINT_BYTES];
+    final int length = ReplayCodec.putVarint(bytes, 0, the_value);
+    final byte[] result = new byte[length];
+    System.arraycopy(bytes, 0, result, 0, length);
+    return result;
+  }
+
+  /**
+   * Plays a game on the_recorder until the board is full or MAX_PIECES pieces
+   * are placed, pausing for the delays in DELAYS. Each piece is turned,
+   * shifted, moved down and dropped to the place that leaves the flattest
+   * board, which is found by trying every place on a second board with the
+   * same pieces, so that the game clears lines.
+   *
+   * @param the_recorder The recorder, of a board with seed the_seed.
+   * @param the_seed The seed of the board and of the pauses.
+   * @return the number of lines cleared.
+   */
+  private static int play(final ReplayRecorder the_recorder, final long the_seed)
+  {
+    final Board board = the_recorder.board();
+    final Board scratch = new Board(HEIGHT, WIDTH, the_seed);
+    final Board.Snapshot snapshot = scratch.snapshot();
+    final Random random = new Random(the_seed);
+    final int[] commands = new int[2 * WIDTH];
+    long time = 0;
+    int pieces = 0;
+    int result = 0;
+    while (!board.isFull() && pieces < MAX_PIECES)
+    {
+      scratch.save(snapshot);
+      int best = Integer.MAX_VALUE;
+      int best_turns = 0;
+      int best_shift = 0;
+      for (int turns = 0; turns < Piece.NUMBER_OF_BLOCKS; turns++)
+      {
+        for (int shift = -WIDTH / 2; shift <= WIDTH / 2; shift++)
+        {
+          final int length = place(commands, turns, shift);
+          for (int i = 0; i < length; i++)
+          {
+            Command.apply(scratch, commands[i]);
+          }
+          final int score = 2 * scratch.aggregateHeight() + scratch.bumpiness() -
+                            WIDTH * scratch.lastLinesRemoved() + random.nextInt(2);
+          if (score < best)
+          {
+            best = score;
+            best_turns = turns;
+            best_shift = shift;
+          }
+          scratch.restore(snapshot);
+        }
+      }
+      final int length = place(commands, best_turns, best_shift);
+      for (int i = 0; i < length && !board.isFull(); i++)
+      {
+        time = time + DELAYS[random.nextInt(DELAYS.length)];
+        the_recorder.apply(commands[i], time);
+        Command.apply(scratch, commands[i]);
+      }
+      pieces = pieces + 1;
+      result = result + board.lastLinesRemoved();
+    }
+    return result;
+  }
+
+  /**
+   * Writes the commands that place a piece into the_commands.
+   *
+   * @param the_commands The array to write into.
+   * @param the_turns The number of clockwise turns.
+   * @param the_shift The number of columns to shift, negative for left.
+   * @return the number of commands written; the last is a drop.
+   */
+  private static int place(final int[] the_commands, final int the_turns,
+                           final int the_shift)
+  {
+    int result = 0;
+    for (int i = 0; i < the_turns; i++)
+    {
+      the_commands[result] = Command.ROTATE_CLOCKWISE;
+      result = result + 1;
+    }
+    for (int i = 0; i < Math.abs(the_shift); i++)
+    {
+      the_commands[result] = Command.MOVE_RIGHT;
+      if (the_shift < 0)
+      {
+        the_commands[result] = Command.MOVE_LEFT;
+      }
+      result = result + 1;
+    }
+    the_commands[result] = Command.MOVE_DOWN;
+    the_commands[result + 1] = Command.DROP;
+    return result + 2;
+  }
+}
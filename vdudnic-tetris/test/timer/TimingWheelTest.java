@@ -0,0 +1,226 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of TimingWheel and CountDown: countdowns on every level of the wheel
+ * fire in the order of their ticks, never early and at most a tick late,
+ * however unevenly the wheel is advanced; a paused countdown keeps its time;
+ * and a countdown due beyond the wheel's span still fires on time.
+ *
+ * @author Vladimir Dudnic
+ * @version 1.0
+ */
+public class TimingWheelTest
+{
+  /**
+   * The length of a tick, one millisecond in nanoseconds, so a countdown of
+   * n milliseconds is due n ticks on.
+   */
+  private static final long TICK = 1000000L;
+
+  /**
+   * The time the wheels start at, not on a tick.
+   */
+  private static final long ORIGIN = 123456789L;
+
+  /**
+   * The number of ticks the wheel spans.
+   */
+  private static final long SPAN = 1L << (TimingWheel.SLOT_BITS * TimingWheel.LEVELS);
+
+  /**
+   * The number of milliseconds in a second.
+   */
+  private static final int MILLIS_PER_SECOND = 1000;
+
+  /**
+   * The wheel tested.
+   */
+  private TimingWheel my_wheel;
+
+  /**
+   * The countdowns fired, in the order they fired.
+   */
+  private List<CountDown> my_fired;
+
+  /**
+   * The countdowns fired.
+   */
+  private Set<CountDown> my_fired_set;
+
+  /**
+   * Records the countdowns fired, checking that none fires early, twice or
+   * before one due in an earlier tick.
+   */
+  private IsTimeUp my_listener;
+
+  /**
+   * Makes the wheel and the listener.
+   */
+  @Before
+  public void setUp()
+  {
+    my_wheel = new TimingWheel(TICK, ORIGIN);
+    my_fired = new ArrayList<CountDown>();
+    my_fired_set = new HashSet<CountDown>();
+    my_listener = new IsTimeUp()
+    {
+      public void timesUp(final TimerEvent the_event)
+      {
+        final CountDown count_down = (CountDown) the_event.getSource();
+        assertTrue("fired twice", my_fired_set.add(count_down));
+        assertFalse("still scheduled", count_down.isScheduled());
+        assertTrue("fired early", my_wheel.getTime() - count_down.getDeadline() >= 0);
+        if (!my_fired.isEmpty())
+        {
+          final CountDown last = my_fired.get(my_fired.size() - 1);
+          assertTrue("fired out of order", tick(last) <= tick(count_down));
+        }
+        my_fired.add(count_down);
+      }
+    };
+  }
+
+  /**
+   * Schedules countdowns at the edges of every level and at random ticks in
+   * each, advances the wheel in uneven steps, some within a tick and some
+   * across many slots, and checks that all of them fire in tick order.
+   */
+  @Test
+  public void testFiresEveryLevelInOrder()
+  {
+    final Random random = new Random(1);
+    final List<CountDown> count_downs = new ArrayList<CountDown>();
+    count_downs.add(countDown(0));
+    for (int level = 0; level < TimingWheel.LEVELS; level++)
+    {
+      final int first = 1 << (TimingWheel.SLOT_BITS * level);
+      final int last = (1 << (TimingWheel.SLOT_BITS * (level + 1))) - 1;
+      count_downs.add(countDown(first));
+      count_downs.add(countDown(first + 1));
+      count_downs.add(countDown(last));
+      for (int i = 0; i < TimingWheel.SLOTS; i++)
+      {
+        count_downs.add(countDown(first + random.nextInt(last - first)));
+      }
+    }
+    assertEquals(count_downs.size(), my_wheel.size());
+    run(count_downs, random, TimingWheel.SLOTS * TimingWheel.SLOTS * TICK);
+  }
+
+  /**
+   * Pauses a countdown, checks that it neither fires nor loses time however
+   * far the wheel moves on, and that it fires when its time is up once it is
+   * resumed.
+   */
+  @Test
+  public void testPausedKeepsTime()
+  {
+    final CountDown count_down = countDown(10 * MILLIS_PER_SECOND);
+    my_wheel.advance(ORIGIN + 3 * MILLIS_PER_SECOND * TICK);
+    count_down.pause(true);
+    assertTrue(count_down.isPausedState());
+    assertFalse(count_down.isScheduled());
+    assertEquals(0, my_wheel.size());
+    assertEquals(7 * MILLIS_PER_SECOND, count_down.getTimeToGo());
+
+    final long resumed = ORIGIN + SPAN * TICK;
+    my_wheel.advance(resumed);
+    assertTrue("fired while paused", my_fired.isEmpty());
+    assertEquals(7 * MILLIS_PER_SECOND, count_down.getTimeToGo());
+
+    count_down.pause(false);
+    assertFalse(count_down.isPausedState());
+    assertEquals(7 * MILLIS_PER_SECOND, count_down.getTimeToGo());
+    my_wheel.advance(resumed + 7 * MILLIS_PER_SECOND * TICK - 1);
+    assertTrue("fired early", my_fired.isEmpty());
+    my_wheel.advance(resumed + 7 * MILLIS_PER_SECOND * TICK + TICK);
+    assertEquals(1, my_fired.size());
+    assertEquals(0, count_down.getTimeToGo());
+  }
+
+  /**
+   * Schedules countdowns due at and beyond the span of the wheel, which wait
+   * in the last slot it reaches and are placed again from there, and checks
+   * that they fire on time.
+   */
+  @Test
+  public void testFarFutureClamped()
+  {
+    final List<CountDown> count_downs = new ArrayList<CountDown>();
+    count_downs.add(countDown((int) SPAN - 1));
+    count_downs.add(countDown((int) SPAN));
+    count_downs.add(countDown((int) SPAN + 1));
+    count_downs.add(countDown(2 * (int) SPAN + 12345));
+    count_downs.add(countDown(10 * 60 * 60 * MILLIS_PER_SECOND));
+    run(count_downs, new Random(2), SPAN / 8 * TICK);
+  }
+
+  /**
+   * Advances the wheel by random steps below the_max_step until every
+   * countdown has fired, checking after each step that none is more than a
+   * tick overdue, and at the end that they fired in tick order.
+   * @param the_count_downs are the countdowns, scheduled on the wheel
+   * @param the_random chooses the steps
+   * @param the_max_step is the longest step in nanoseconds
+   */
+  private void run(final List<CountDown> the_count_downs, final Random the_random,
+                   final long the_max_step)
+  {
+    long now = my_wheel.getTime();
+    while (my_fired.size() < the_count_downs.size())
+    {
+      long step = (long) (the_random.nextDouble() * TICK);
+      if (the_random.nextBoolean())
+      {
+        step = (long) (the_random.nextDouble() * the_max_step);
+      }
+      now = now + step;
+      my_wheel.advance(now);
+      for (final CountDown count_down : the_count_downs)
+      {
+        if (!my_fired_set.contains(count_down))
+        {
+          assertTrue("fired late", now - count_down.getDeadline() < TICK);
+          assertTrue("lost", count_down.isScheduled());
+        }
+      }
+      assertEquals(the_count_downs.size() - my_fired.size(), my_wheel.size());
+    }
+  }
+
+  /**
+   * Makes a countdown from the wheel's time that reports to the listener.
+   * @param the_millis is the time to count down in milliseconds
+   * @return the countdown
+   */
+  private CountDown countDown(final int the_millis)
+  {
+    final CountDown result = new CountDown(my_wheel, 0, 0, 0, the_millis);
+    result.addTimesUpListener(my_listener);
+    return result;
+  }
+
+  /**
+   * Gets the tick a countdown made at ORIGIN is due in.
+   * @param the_count_down is the countdown
+   * @return the first tick at or after its deadline, but never tick 0, which
+   *         the wheel has passed when it starts
+   */
+  private static long tick(final CountDown the_count_down)
+  {
+    return Math.max(1, (the_count_down.getDeadline() - ORIGIN + TICK - 1) / TICK);
+  }
+}